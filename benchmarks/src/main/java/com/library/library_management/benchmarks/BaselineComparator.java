@@ -0,0 +1,109 @@
+package com.library.library_management.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files.
+ *
+ * <p>Runs are matched by benchmark, mode and parameters. A run regressed when its primary score is
+ * worse than the baseline by more than the tolerance (lower throughput, higher sample time), or when
+ * it allocates more bytes per operation by more than the tolerance. Runs missing from either file are
+ * ignored, so adding a benchmark does not require updating the baseline first.</p>
+ */
+class BaselineComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final double tolerance;
+
+    BaselineComparator(double tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance cannot be negative.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    List<String> compare(Path baselineFile, Path resultFile) throws IOException {
+        Map<String, JsonNode> baseline = read(baselineFile);
+        Map<String, JsonNode> results = read(resultFile);
+
+        List<String> regressions = new ArrayList<>();
+        results.forEach((key, result) -> {
+            JsonNode base = baseline.get(key);
+            if (base == null) {
+                return;
+            }
+            boolean higherIsBetter = "thrpt".equals(result.path("mode").asText());
+            check(key, result.path("primaryMetric"), base.path("primaryMetric"), higherIsBetter, regressions);
+
+            JsonNode allocation = secondaryMetric(result, ALLOCATION_METRIC);
+            JsonNode baseAllocation = secondaryMetric(base, ALLOCATION_METRIC);
+            if (allocation != null && baseAllocation != null) {
+                check(key + " " + ALLOCATION_METRIC, allocation, baseAllocation, false, regressions);
+            }
+        });
+        return regressions;
+    }
+
+    private void check(String name, JsonNode current, JsonNode base, boolean higherIsBetter, List<String> regressions) {
+        String unit = current.path("scoreUnit").asText();
+        if (!unit.equals(base.path("scoreUnit").asText())) {
+            regressions.add(name + ": unit changed from " + base.path("scoreUnit").asText() + " to " + unit
+                    + ", the baseline has to be updated");
+            return;
+        }
+        double score = current.path("score").asDouble();
+        double baseScore = base.path("score").asDouble();
+        if (baseScore == 0) {
+            return;
+        }
+        double change = (score - baseScore) / baseScore;
+        boolean regressed = higherIsBetter ? change < -tolerance : change > tolerance;
+        if (regressed) {
+            regressions.add(String.format("%s: %.3f -> %.3f %s (%+.1f%%)", name, baseScore, score, unit, change * 100));
+        }
+    }
+
+    private Map<String, JsonNode> read(Path file) throws IOException {
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        for (JsonNode run : mapper.readTree(file.toFile())) {
+            runs.put(key(run), run);
+        }
+        return runs;
+    }
+
+    private static String key(JsonNode run) {
+        Map<String, String> params = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            params.put(field.getKey(), field.getValue().asText());
+        }
+        return run.path("benchmark").asText() + " [" + run.path("mode").asText() + "]"
+                + (params.isEmpty() ? "" : " " + params);
+    }
+
+    private static JsonNode secondaryMetric(JsonNode run, String name) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = run.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            // Older JMH versions prefix profiler metrics with a middle dot
+            if (metric.getKey().replace("·", "").equals(name)) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+}
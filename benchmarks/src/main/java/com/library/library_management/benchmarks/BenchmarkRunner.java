@@ -0,0 +1,69 @@
+package com.library.library_management.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the GC profiler and checks the results against the stored baseline.
+ *
+ * <p>Configured through system properties, which the {@code bench} Maven profile passes on:</p>
+ * <ul>
+ *     <li>{@code bench.include} - regular expression selecting the benchmarks, all by default;</li>
+ *     <li>{@code bench.datasetSize} - comma-separated dataset sizes overriding {@link LibraryState#datasetSize};</li>
+ *     <li>{@code bench.result} - where the JMH JSON result is written;</li>
+ *     <li>{@code bench.baseline} - the stored baseline, in the same JSON format;</li>
+ *     <li>{@code bench.tolerance} - allowed relative regression, {@code 0.10} by default;</li>
+ *     <li>{@code bench.updateBaseline} - replaces the baseline with the new results instead of comparing.</li>
+ * </ul>
+ *
+ * <p>The process exits with status 1 when a benchmark regressed, failing the build.</p>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path result = Path.of(System.getProperty("bench.result", "target/jmh-result.json"));
+        Path baseline = Path.of(System.getProperty("bench.baseline", "baseline.json"));
+        double tolerance = Double.parseDouble(System.getProperty("bench.tolerance", "0.10"));
+        boolean updateBaseline = Boolean.getBoolean("bench.updateBaseline");
+
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(System.getProperty("bench.include", ".*"))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString());
+        String datasetSizes = System.getProperty("bench.datasetSize", "");
+        if (!datasetSizes.isBlank()) {
+            options.param("datasetSize", datasetSizes.split("\\s*,\\s*"));
+        }
+        new Runner(options.build()).run();
+
+        if (updateBaseline) {
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + ", run with -Dbench.updateBaseline=true to store one.");
+            return;
+        }
+
+        List<String> regressions = new BaselineComparator(tolerance).compare(baseline, result);
+        if (!regressions.isEmpty()) {
+            System.out.println("Regressions against " + baseline + ":");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baseline + ".");
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.services.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BookService#getAvailableBooks()}, which backs the user catalog page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) {
+        bookService = state.getBean(BookService.class);
+    }
+
+    @Benchmark
+    public List<Book> getAvailableBooks() {
+        return bookService.getAvailableBooks();
+    }
+}
@@ -0,0 +1,80 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.User;
+import com.library.library_management.services.BorrowingService;
+import com.library.library_management.services.CopyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BorrowingService#insert(Borrowing)}: loading the copy, flipping its status,
+ * adjusting the availability counters and storing the borrowing.
+ *
+ * <p>Each invocation borrows the next available copy; the copy is returned again outside the
+ * measured section, so the dataset does not drain during long runs.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BorrowingBenchmark {
+
+    private BorrowingService borrowingService;
+
+    private CopyService copyService;
+
+    private List<Copy> copies;
+
+    private List<User> users;
+
+    private int next;
+
+    private Long borrowedCopyId;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) {
+        borrowingService = state.getBean(BorrowingService.class);
+        copyService = state.getBean(CopyService.class);
+        copies = state.getDataset().availableCopies();
+        users = state.getDataset().users();
+    }
+
+    @Benchmark
+    public Borrowing insert() {
+        Copy copy = copies.get(next % copies.size());
+        User user = users.get(next % users.size());
+        next++;
+
+        Borrowing borrowing = new Borrowing(user, copy, LocalDate.now(), null);
+        borrowingService.insert(borrowing);
+        borrowedCopyId = copy.getId();
+        return borrowing;
+    }
+
+    @TearDown(Level.Invocation)
+    public void giveBack() {
+        if (borrowedCopyId != null) {
+            copyService.changeStatus(copyService.getById(borrowedCopyId), CopyStatus.Available);
+            borrowedCopyId = null;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.search.BookDocument;
+import com.library.library_management.search.CatalogSearchIndex;
+import com.library.library_management.search.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures catalog searches against an in-memory index of a million titles.
+ *
+ * <p>The index is filled directly with generated documents instead of through the application
+ * context, since a search never touches the database. Titles, authors and publisher names are drawn
+ * from a Latin and a Cyrillic vocabulary with a skewed word frequency, so common words have long
+ * posting lists. Every benchmark cycles through queries built from the indexed titles: two whole
+ * words, a word cut to a prefix as typed, and a word with one letter replaced. The target is well
+ * under a millisecond per query; the sample time mode reports the percentiles.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CatalogSearchBenchmark {
+
+    private static final int LIMIT = 20;
+
+    private static final int QUERIES = 1024;
+
+    private static final int VOCABULARY = 20_000;
+
+    private static final String[] LATIN = {"ka", "lo", "mi", "ne", "ru", "sa", "to", "vi", "an", "er",
+            "or", "ul", "ber", "den", "gar", "lin", "mor", "sten", "ther", "wal"};
+
+    private static final String[] CYRILLIC = {"ва", "ро", "ми", "ка", "ле", "на", "ст", "ор", "ин", "ло",
+            "ска", "бер", "гор", "дон", "ель", "зим", "мир", "нов", "пут", "тиш"};
+
+    /**
+     * Separate from {@link LibraryState#datasetSize}, which {@code bench.datasetSize} overrides with
+     * the database sizes.
+     */
+    @Param({"1000000"})
+    public int titles;
+
+    private final CatalogSearchIndex index = new CatalogSearchIndex();
+
+    private final List<String> words = new ArrayList<>();
+
+    private final List<String> exactQueries = new ArrayList<>();
+
+    private final List<String> prefixQueries = new ArrayList<>();
+
+    private final List<String> typoQueries = new ArrayList<>();
+
+    private SplittableRandom random;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        for (int i = 0; i < VOCABULARY; i++) {
+            String[] syllables = i % 4 == 0 ? CYRILLIC : LATIN;
+            StringBuilder word = new StringBuilder();
+            for (int j = 0, length = 2 + random.nextInt(3); j < length; j++) {
+                word.append(syllables[random.nextInt(syllables.length)]);
+            }
+            words.add(word.toString());
+        }
+
+        List<String> sampleTitles = new ArrayList<>();
+        for (int i = 0; i < titles; i++) {
+            StringBuilder title = new StringBuilder(capitalized(word()));
+            for (int j = 0, length = 1 + random.nextInt(5); j < length; j++) {
+                title.append(' ').append(word());
+            }
+            String author = capitalized(word()) + " " + capitalized(word());
+            long publisherId = i % 5_000;
+            index.index(new BookDocument(i, title.toString(), author, String.format("978%010d", i),
+                    1900 + i % 125, publisherId, capitalized(words.get((int) publisherId)) + " Press"));
+            if (i % (titles / QUERIES) == 0 && sampleTitles.size() < QUERIES) {
+                sampleTitles.add(title.toString());
+            }
+        }
+
+        for (String title : sampleTitles) {
+            String[] terms = title.toLowerCase().split(" ");
+            String word = terms[random.nextInt(terms.length)];
+            exactQueries.add(terms.length > 1 ? terms[0] + " " + terms[1] : terms[0]);
+            prefixQueries.add(word.substring(0, Math.max(2, word.length() - 2)));
+            char[] typo = word.toCharArray();
+            int position = random.nextInt(typo.length);
+            typo[position] = typo[position] == 'a' ? 'e' : 'a';
+            typoQueries.add(new String(typo));
+        }
+    }
+
+    @Benchmark
+    public List<SearchHit> searchWords() {
+        return index.search(exactQueries.get(next++ % QUERIES), LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchHit> searchPrefix() {
+        return index.search(prefixQueries.get(next++ % QUERIES), LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchHit> searchWithTypo() {
+        return index.search(typoQueries.get(next++ % QUERIES), LIMIT);
+    }
+
+    /**
+     * Draws a word with a skewed frequency: low ranks are far more common than high ones.
+     */
+    private String word() {
+        double u = random.nextDouble();
+        return words.get((int) (VOCABULARY * u * u * u));
+    }
+
+    private static String capitalized(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,218 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.User;
+import com.library.library_management.services.BorrowingService;
+import com.library.library_management.services.CopyAlreadyTakenException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded check of {@link BorrowingService#insert(Borrowing)}.
+ *
+ * <ol>
+ *     <li>Contended: in every round all threads check out the same copy at once. Exactly one
+ *     checkout must succeed and the others must end with {@link CopyAlreadyTakenException}.</li>
+ *     <li>Scaling: every thread repeatedly checks out and returns its own copies for a fixed time,
+ *     reporting cycles per second for each thread count. Without shared rows the throughput must
+ *     grow with the threads: by at least {@value #MIN_SCALING_EFFICIENCY} of linear scaling up to the
+ *     number of CPUs, and never fall below the single-thread rate, less {@code bench.tolerance}.</li>
+ * </ol>
+ *
+ * <p>Afterwards no copy may have more than one open borrowing and the availability counters must
+ * match the copies. The process exits with status 1 when any of this fails, including a missed
+ * throughput target.</p>
+ *
+ * <p>The correctness part also runs with every build as {@code BorrowingConcurrencyTest}; this check
+ * adds the larger contended run and the throughput measurement. Run with {@code mvn -f benchmarks/pom.xml
+ * verify -Pbench -Dbench.main=com.library.library_management.benchmarks.CheckoutConcurrencyCheck}.</p>
+ */
+public class CheckoutConcurrencyCheck {
+
+    private static final int CONTENDED_THREADS = 8;
+
+    private static final int CONTENDED_ROUNDS = 200;
+
+    private static final int[] SCALING_THREADS = {1, 2, 4, 8};
+
+    private static final long SCALING_SECONDS = 5;
+
+    private static final double MIN_SCALING_EFFICIENCY = 0.5;
+
+    private final BorrowingService borrowingService;
+
+    private final JdbcTemplate jdbc;
+
+    private final List<Copy> copies;
+
+    private final List<User> users;
+
+    private final List<String> failures = new ArrayList<>();
+
+    private final double tolerance = Double.parseDouble(System.getProperty("bench.tolerance", "0.10"));
+
+    CheckoutConcurrencyCheck(LibraryState state) {
+        this.borrowingService = state.getBean(BorrowingService.class);
+        this.jdbc = state.getBean(JdbcTemplate.class);
+        this.copies = state.getDataset().availableCopies();
+        this.users = state.getDataset().users();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LibraryState state = new LibraryState();
+        String datasetSize = System.getProperty("bench.datasetSize", "");
+        state.datasetSize = datasetSize.isBlank() ? 1000 : Integer.parseInt(datasetSize.split(",")[0].trim());
+        state.start();
+        try {
+            CheckoutConcurrencyCheck check = new CheckoutConcurrencyCheck(state);
+            check.contended();
+            check.scaling();
+            check.verifyInvariants();
+            if (!check.failures.isEmpty()) {
+                check.failures.forEach(failure -> System.out.println("FAILED: " + failure));
+                System.exit(1);
+            }
+            System.out.println("No double loans.");
+        } finally {
+            state.stop();
+        }
+    }
+
+    private void contended() throws Exception {
+        if (copies.size() < CONTENDED_ROUNDS * 2) {
+            throw new IllegalStateException("The dataset is too small, use a larger bench.datasetSize.");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(CONTENDED_THREADS);
+        int taken = 0;
+        int conflicts = 0;
+        try {
+            for (int round = 0; round < CONTENDED_ROUNDS; round++) {
+                Copy copy = copies.get(round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (int thread = 0; thread < CONTENDED_THREADS; thread++) {
+                    User user = users.get((round * CONTENDED_THREADS + thread) % users.size());
+                    attempts.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            borrowingService.insert(new Borrowing(user, copy, LocalDate.now(), null));
+                            return true;
+                        } catch (CopyAlreadyTakenException e) {
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+
+                int succeeded = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    try {
+                        succeeded += attempt.get() ? 1 : 0;
+                    } catch (Exception e) {
+                        failures.add("round " + round + ": unexpected " + e.getCause());
+                    }
+                }
+                if (succeeded != 1) {
+                    failures.add("round " + round + ": " + succeeded + " checkouts of copy " + copy.getId() + " succeeded");
+                }
+                taken += succeeded;
+                conflicts += CONTENDED_THREADS - succeeded;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.printf("Contended: %d rounds x %d threads, %d checkouts, %d already taken%n",
+                CONTENDED_ROUNDS, CONTENDED_THREADS, taken, conflicts);
+    }
+
+    private void scaling() throws Exception {
+        List<Copy> free = copies.subList(CONTENDED_ROUNDS, copies.size());
+        double single = 0;
+        for (int threads : SCALING_THREADS) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            AtomicInteger cycles = new AtomicInteger();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SCALING_SECONDS);
+            List<Callable<Void>> workers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                List<Copy> own = slice(free, thread, threads);
+                User user = users.get(thread % users.size());
+                workers.add(() -> {
+                    for (int i = 0; System.nanoTime() < deadline; i++) {
+                        Borrowing borrowing = new Borrowing(user, own.get(i % own.size()), LocalDate.now(), null);
+                        borrowingService.insert(borrowing);
+                        borrowing.setReturnDate(LocalDate.now());
+                        borrowingService.update(borrowing);
+                        cycles.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> worker : executor.invokeAll(workers)) {
+                try {
+                    worker.get();
+                } catch (Exception e) {
+                    failures.add(threads + " threads on distinct copies: unexpected " + e.getCause());
+                }
+            }
+            executor.shutdown();
+
+            double perSecond = cycles.get() / (double) SCALING_SECONDS;
+            if (threads == 1) {
+                single = perSecond;
+            }
+            double required = requiredSpeedup(threads);
+            System.out.printf("Distinct copies: %d threads, %.0f checkout/return cycles per second (x%.2f, required x%.2f)%n",
+                    threads, perSecond, single == 0 ? 0 : perSecond / single, required);
+            if (perSecond == 0) {
+                failures.add(threads + " threads on distinct copies: no checkout/return cycle completed");
+            } else if (threads > 1 && perSecond < single * required * (1 - tolerance)) {
+                failures.add(String.format("%d threads on distinct copies: x%.2f the single-thread throughput, "
+                        + "below the required x%.2f", threads, perSecond / single, required));
+            }
+        }
+    }
+
+    /**
+     * The speedup over one thread that the given number of threads must reach on this machine.
+     */
+    private static double requiredSpeedup(int threads) {
+        int parallel = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        return Math.max(1, MIN_SCALING_EFFICIENCY * parallel);
+    }
+
+    private void verifyInvariants() {
+        Integer doubleLoans = jdbc.queryForObject("SELECT COUNT(*) FROM (SELECT copy_id FROM BORROWING "
+                + "WHERE return_date IS NULL GROUP BY copy_id HAVING COUNT(*) > 1)", Integer.class);
+        if (doubleLoans != null && doubleLoans > 0) {
+            failures.add(doubleLoans + " copies have more than one open borrowing");
+        }
+
+        Integer drifted = jdbc.queryForObject("SELECT COUNT(*) FROM BOOK_AVAILABILITY a WHERE a.borrowed <> "
+                + "(SELECT COUNT(*) FROM COPY c WHERE c.book_id = a.book_id AND c.status = ?) "
+                + "OR a.available <> (SELECT COUNT(*) FROM COPY c WHERE c.book_id = a.book_id AND c.status = ?)",
+                Integer.class, String.valueOf(CopyStatus.Borrowed.getCode()), String.valueOf(CopyStatus.Available.getCode()));
+        if (drifted != null && drifted > 0) {
+            failures.add(drifted + " books have availability counters that do not match their copies");
+        }
+    }
+
+    private static <T> List<T> slice(List<T> items, int index, int count) {
+        List<T> slice = new ArrayList<>();
+        for (int i = index; i < items.size(); i += count) {
+            slice.add(items.get(i));
+        }
+        return slice;
+    }
+}
@@ -0,0 +1,247 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.LibraryManagementApplication;
+import com.library.library_management.circulation.CirculationEngine;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.User;
+import com.library.library_management.services.BorrowingService;
+import com.library.library_management.services.CirculationBatchException;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Desk checkouts and returns on a few hot copies, with and without the {@link CirculationEngine}.
+ *
+ * <p>For every mode the application is started on its own in-memory database and loaded with the
+ * benchmark catalog. Each client then repeatedly checks out a random copy of a small hot set through
+ * {@link BorrowingService#checkOut} and, if it got the copy, returns it through
+ * {@link BorrowingService#returnAll}, so most attempts meet a copy that another client holds. The
+ * calls per second, the successful checkouts and returns per second, the share of rejected checkouts
+ * and the p50/p99 latency of every call are printed per mode and client count, after a warmup run that is not reported.</p>
+ *
+ * <p>With the engine the latency is that of the desk call only; the loans reach the database
+ * shortly after. Before the context is closed the check waits for them and prints how long the last
+ * ones took. Then no copy may have more than one open borrowing and every loan must be returned.
+ * Calls failing with anything but a rejected checkout are failures too, and the process exits with
+ * status 1 on any of them.</p>
+ *
+ * <p>Run with {@code mvn -f benchmarks/pom.xml verify -Pbench
+ * -Dbench.main=com.library.library_management.benchmarks.CirculationContentionCheck}.</p>
+ */
+public class CirculationContentionCheck {
+
+    private static final int HOT_COPIES = 16;
+
+    private static final int[] CLIENTS = {8, 32};
+
+    private static final long WARMUP_SECONDS = 5;
+
+    private static final long MEASURE_SECONDS = 10;
+
+    private static final long DRAIN_SECONDS = 60;
+
+    private final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        String datasetSize = System.getProperty("bench.datasetSize", "");
+        int size = datasetSize.isBlank() ? 1000 : Integer.parseInt(datasetSize.split(",")[0].trim());
+
+        CirculationContentionCheck check = new CirculationContentionCheck();
+        check.run("database", size, false);
+        check.run("engine", size, true);
+        if (!check.failures.isEmpty()) {
+            check.failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+    }
+
+    private void run(String mode, int size, boolean engineEnabled) throws Exception {
+        Path directory = Files.createTempDirectory("circulation-bench");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("bench")
+                .run("--spring.datasource.url=jdbc:h2:mem:contention-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--library.circulation.engine.enabled=" + engineEnabled,
+                        "--library.circulation.engine.directory=" + directory)) {
+            Dataset dataset = new DatasetLoader(context).load(size);
+            BorrowingService borrowingService = context.getBean(BorrowingService.class);
+            List<Long> hot = dataset.availableCopies().subList(0, HOT_COPIES).stream().map(Copy::getId).toList();
+            if (engineEnabled) {
+                // The dataset is written after the engine loaded its copies
+                CirculationEngine engine = context.getBean(CirculationEngine.class);
+                hot.forEach(engine::copyChanged);
+                awaitKnown(borrowingService, dataset.users().get(0), hot);
+            }
+
+            drive(borrowingService, dataset.users(), hot, CLIENTS[CLIENTS.length - 1], WARMUP_SECONDS);
+            for (int clients : CLIENTS) {
+                Result result = drive(borrowingService, dataset.users(), hot, clients, MEASURE_SECONDS);
+                System.out.printf("%-8s %3d clients: %7.0f calls/s, %6.0f desk ops/s, %5.1f%% checkouts rejected, "
+                                + "p50 %6.2f ms, p99 %7.2f ms, %d errors%n",
+                        mode, clients, result.sortedNanos().length / (double) MEASURE_SECONDS,
+                        (result.checkouts() + result.returns()) / (double) MEASURE_SECONDS,
+                        100.0 * result.rejected() / Math.max(1, result.checkouts() + result.rejected()),
+                        result.percentile(0.5), result.percentile(0.99), result.errors());
+                if (result.errors() > 0) {
+                    failures.add(mode + " with " + clients + " clients: " + result.errors() + " failed calls");
+                }
+            }
+
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            if (engineEnabled) {
+                awaitStored(jdbc);
+            }
+            verifyInvariants(mode, jdbc);
+        }
+    }
+
+    /**
+     * Runs the clients for the given time; every client waits for its call before the next one.
+     */
+    private Result drive(BorrowingService borrowingService, List<User> users, List<Long> hot, int clients,
+                         long seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger checkouts = new AtomicInteger();
+        AtomicInteger returns = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<long[]>> workers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            for (int i = 0; i < clients; i++) {
+                Long userId = users.get(i % users.size()).getId();
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        List<Long> copy = List.of(hot.get(ThreadLocalRandom.current().nextInt(hot.size())));
+                        long start = System.nanoTime();
+                        boolean taken;
+                        try {
+                            borrowingService.checkOut(userId, copy, LocalDate.now());
+                            checkouts.incrementAndGet();
+                            taken = true;
+                        } catch (CirculationBatchException e) {
+                            rejected.incrementAndGet();
+                            taken = false;
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count + 2 > latencies.length) {
+                            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                        if (!taken) {
+                            continue;
+                        }
+
+                        start = System.nanoTime();
+                        try {
+                            borrowingService.returnAll(copy, LocalDate.now());
+                            returns.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+
+            long[] all = new long[0];
+            for (Future<long[]> worker : workers) {
+                long[] latencies = worker.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            Arrays.sort(all);
+            return new Result(all, checkouts.get(), returns.get(), rejected.get(), errors.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits until the engine has picked up the hot copies, by checking each one out and back in.
+     */
+    private static void awaitKnown(BorrowingService borrowingService, User user, List<Long> hot) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+        for (Long copyId : hot) {
+            while (true) {
+                try {
+                    borrowingService.checkOut(user.getId(), List.of(copyId), LocalDate.now());
+                    borrowingService.returnAll(List.of(copyId), LocalDate.now());
+                    break;
+                } catch (CirculationBatchException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("The engine did not pick up copy " + copyId + ".", e);
+                    }
+                    Thread.sleep(50);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the engine has stored the return of every loan, and prints how long that took.
+     */
+    private void awaitStored(JdbcTemplate jdbc) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+        while (openLoans(jdbc) > 0) {
+            if (System.nanoTime() > deadline) {
+                failures.add("engine: the loans were not stored within " + DRAIN_SECONDS + " s");
+                return;
+            }
+            Thread.sleep(10);
+        }
+        System.out.printf("engine   all loans stored %d ms after the last call%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void verifyInvariants(String mode, JdbcTemplate jdbc) {
+        Integer doubleLoans = jdbc.queryForObject("SELECT COUNT(*) FROM (SELECT copy_id FROM BORROWING "
+                + "WHERE return_date IS NULL GROUP BY copy_id HAVING COUNT(*) > 1)", Integer.class);
+        if (doubleLoans != null && doubleLoans > 0) {
+            failures.add(mode + ": " + doubleLoans + " copies have more than one open borrowing");
+        }
+        int open = openLoans(jdbc);
+        if (open > 0) {
+            failures.add(mode + ": " + open + " loans were not returned");
+        }
+    }
+
+    private static int openLoans(JdbcTemplate jdbc) {
+        Integer open = jdbc.queryForObject("SELECT COUNT(*) FROM BORROWING WHERE return_date IS NULL", Integer.class);
+        return open == null ? 0 : open;
+    }
+
+    private record Result(long[] sortedNanos, int checkouts, int returns, int rejected, int errors) {
+
+        double percentile(double p) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.User;
+
+import java.util.List;
+
+/**
+ * The detached entities stored by {@link DatasetLoader}, used by the benchmarks to build their inputs.
+ *
+ * @param books all books
+ * @param availableCopies copies that can be borrowed
+ * @param users all users
+ */
+public record Dataset(List<Book> books, List<Copy> availableCopies, List<User> users) {
+}
@@ -0,0 +1,114 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.Publisher;
+import com.library.library_management.entities.User;
+import com.library.library_management.repository.BookRepository;
+import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.repository.PublisherRepository;
+import com.library.library_management.repository.UserRepository;
+import com.library.library_management.services.BookAvailabilityService;
+import com.library.library_management.services.UserEmailFilter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Fills an empty database with a deterministic catalog.
+ *
+ * <p>Rows are written through the repositories in batches rather than through the services, so
+ * loading stays fast for large sizes. The availability counters are created afterwards in one statement,
+ * and the email filter is rebuilt to include the loaded users.</p>
+ */
+class DatasetLoader {
+
+    static final int COPIES_PER_BOOK = 3;
+
+    private static final int BOOKS_PER_PUBLISHER = 100;
+
+    private static final int BOOKS_PER_USER = 10;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final CopyStatus[] STATUSES = {
+            CopyStatus.Available, CopyStatus.Available, CopyStatus.Borrowed,
+            CopyStatus.Available, CopyStatus.Reserved, CopyStatus.Available, CopyStatus.Lost
+    };
+
+    private final PublisherRepository publisherRepository;
+
+    private final BookRepository bookRepository;
+
+    private final CopyRepository copyRepository;
+
+    private final UserRepository userRepository;
+
+    private final BookAvailabilityService availabilityService;
+
+    private final UserEmailFilter emailFilter;
+
+    private final TransactionTemplate transaction;
+
+    DatasetLoader(ApplicationContext context) {
+        this.publisherRepository = context.getBean(PublisherRepository.class);
+        this.bookRepository = context.getBean(BookRepository.class);
+        this.copyRepository = context.getBean(CopyRepository.class);
+        this.userRepository = context.getBean(UserRepository.class);
+        this.availabilityService = context.getBean(BookAvailabilityService.class);
+        this.emailFilter = context.getBean(UserEmailFilter.class);
+        this.transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    Dataset load(int size) {
+        List<Publisher> publishers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, size / BOOKS_PER_PUBLISHER); i++) {
+            publishers.add(new Publisher("Publisher " + i, "Street " + i, "+4800000" + i));
+        }
+        saveInBatches(publishers, publisherRepository::saveAll);
+
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new Book("Title " + i, "Author " + (i % 500), publishers.get(i % publishers.size()),
+                    1900 + i % 125, String.format("978%010d", i)));
+        }
+        saveInBatches(books, bookRepository::saveAll);
+
+        List<Copy> copies = new ArrayList<>(size * COPIES_PER_BOOK);
+        List<Copy> availableCopies = new ArrayList<>();
+        int n = 0;
+        for (Book book : books) {
+            for (int number = 1; number <= COPIES_PER_BOOK; number++) {
+                CopyStatus status = STATUSES[n++ % STATUSES.length];
+                Copy copy = new Copy(book, number, status);
+                copies.add(copy);
+                if (status == CopyStatus.Available) {
+                    availableCopies.add(copy);
+                }
+            }
+        }
+        saveInBatches(copies, copyRepository::saveAll);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, size / BOOKS_PER_USER); i++) {
+            users.add(new User("User " + i, "user" + i + "@example.com", "+4811111" + i, "Street " + i));
+        }
+        saveInBatches(users, userRepository::saveAll);
+
+        availabilityService.createMissing();
+        emailFilter.rebuild();
+        return new Dataset(List.copyOf(books), List.copyOf(availableCopies), List.copyOf(users));
+    }
+
+    private <T> void saveInBatches(List<T> entities, Consumer<List<T>> saveAll) {
+        for (int from = 0; from < entities.size(); from += BATCH_SIZE) {
+            List<T> batch = entities.subList(from, Math.min(entities.size(), from + BATCH_SIZE));
+            transaction.executeWithoutResult(status -> saveAll.accept(batch));
+        }
+    }
+}
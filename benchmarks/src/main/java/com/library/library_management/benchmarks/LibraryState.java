@@ -0,0 +1,57 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.LibraryManagementApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application context shared by all benchmarks of a trial.
+ *
+ * <p>Every dataset size gets its own in-memory H2 database, loaded by {@link DatasetLoader} before
+ * the first warmup iteration.</p>
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    /**
+     * Number of books in the catalog. Every book has {@link DatasetLoader#COPIES_PER_BOOK} copies.
+     */
+    @Param({"1000", "10000"})
+    public int datasetSize;
+
+    private ConfigurableApplicationContext context;
+
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("bench")
+                // As an argument: builder properties are only defaults and lose to application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + datasetSize + ";DB_CLOSE_DELAY=-1");
+        dataset = new DatasetLoader(context).load(datasetSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+}
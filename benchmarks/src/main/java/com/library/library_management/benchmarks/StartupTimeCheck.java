@@ -0,0 +1,168 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.LibraryManagementApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from process start to the first served request, for the default startup and the
+ * fast-startup build of the {@code prod} profile.
+ *
+ * <p>Every mode starts the packaged application as a separate JVM and polls {@code /books} until it
+ * answers with 200. The default mode recreates the schema on every start; the prod modes start
+ * against a database that was migrated and filled with the benchmark catalog beforehand, first
+ * without and then with the Spring AOT bean definitions and the class-data-sharing archive. Every
+ * mode is started once unmeasured and then {@value #RUNS} times, the median and the fastest run
+ * are printed.</p>
+ *
+ * <p>The application runs on the JDK that runs the check, which is printed first. Results are only
+ * comparable on the same JDK and CPU count. The class-data-sharing archive in particular only maps into
+ * the JVM build that recorded it, so {@code mvn -Pprod package} has to run on that JDK as well; the
+ * archive is required with {@code -Xshare:on}, which fails the start instead of silently measuring a
+ * run without it.</p>
+ *
+ * <p>Needs the output of {@code mvn -Pprod package} in {@code ../target} ({@code -Dbench.app} points
+ * elsewhere). Run with {@code mvn -f benchmarks/pom.xml verify -Pbench
+ * -Dbench.main=com.library.library_management.benchmarks.StartupTimeCheck}.</p>
+ */
+public class StartupTimeCheck {
+
+    private static final int RUNS = 5;
+
+    private static final String JAR = "library_management-0.0.1-SNAPSHOT-exec.jar";
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private final Path target;
+
+    private final Path work;
+
+    private StartupTimeCheck(Path target, Path work) {
+        this.target = target;
+        this.work = work;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path target = Path.of(System.getProperty("bench.app", "../target")).toAbsolutePath().normalize();
+        Path extracted = target.resolve("app").resolve(JAR);
+        Path archive = target.resolve("app").resolve("application.jsa");
+        if (!Files.exists(extracted) || !Files.exists(archive)) {
+            throw new IllegalStateException("No fast-startup build in " + target + ", run mvn -Pprod package first");
+        }
+        System.out.printf("JDK %s (%s), %d CPUs%n", Runtime.version(), System.getProperty("java.vm.vendor"),
+                Runtime.getRuntime().availableProcessors());
+        String datasetSize = System.getProperty("bench.datasetSize", "");
+        int size = datasetSize.isBlank() ? 10_000 : Integer.parseInt(datasetSize.split(",")[0].trim());
+
+        Path work = Files.createTempDirectory("startup-check");
+        StartupTimeCheck check = new StartupTimeCheck(target, work);
+        String prodDatabase = "jdbc:h2:file:" + work.resolve("prod").resolve("Library");
+        check.prepare(prodDatabase, size);
+
+        check.measure("default", List.of(), target.resolve(JAR),
+                "jdbc:h2:file:" + work.resolve("default").resolve("Library"));
+        check.measure("prod", List.of("-Dspring.profiles.active=prod"), extracted, prodDatabase);
+        check.measure("prod+aot", List.of("-Dspring.profiles.active=prod", "-Dspring.aot.enabled=true"),
+                extracted, prodDatabase);
+        check.measure("prod+aot+cds", List.of("-Dspring.profiles.active=prod", "-Dspring.aot.enabled=true",
+                "-Xshare:on", "-XX:SharedArchiveFile=" + archive), extracted, prodDatabase);
+    }
+
+    /**
+     * Migrates the prod database and fills it with the benchmark catalog.
+     */
+    private void prepare(String url, int size) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("prod");
+        try (ConfigurableApplicationContext context = builder.run("--spring.datasource.url=" + url,
+                "--library.startup.warmup=false", "--logging.level.root=WARN", "--spring.main.banner-mode=off")) {
+            new DatasetLoader(context).load(size);
+        }
+        System.out.printf("prod database: %d books%n", size);
+    }
+
+    private void measure(String mode, List<String> options, Path jar, String url) throws Exception {
+        run(mode, options, jar, url);
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = run(mode, options, jar, url);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-13s time to first request: median %5d ms, fastest %5d ms%n",
+                mode, millis[RUNS / 2], millis[0]);
+    }
+
+    /**
+     * Starts the application, waits for the first successful request and stops it again.
+     *
+     * @return the milliseconds from the process start to the first 200 response
+     */
+    private long run(String mode, List<String> options, Path jar, String url) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=" + url);
+        File log = work.resolve(mode + ".log").toFile();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(target.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books"))
+                    .timeout(Duration.ofSeconds(10))
+                    .build();
+            long deadline = start + START_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(mode + " did not answer within " + START_TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
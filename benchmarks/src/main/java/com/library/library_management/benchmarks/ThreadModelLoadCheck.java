@@ -0,0 +1,220 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.LibraryManagementApplication;
+import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.User;
+import com.library.library_management.services.BorrowingService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load comparison of the platform-thread and the virtual-thread execution modes.
+ *
+ * <p>For every mode the application is started with a real Tomcat on a random port, loaded with
+ * the benchmark catalog and a share of open borrowings, and driven by a fixed number of concurrent
+ * clients that request the admin and patron list pages and the streamed copy export in a random
+ * mix. Each client sends its next request as soon as the previous one completes. Throughput,
+ * p50/p99 latency and errors are printed per mode and client count, after a warmup run that is not
+ * reported.</p>
+ *
+ * <p>During the virtual-thread runs a JFR stream records {@code jdk.VirtualThreadPinned} events,
+ * which are emitted when a virtual thread blocks while holding a monitor (e.g. in {@code synchronized}
+ * driver code) and so cannot release its carrier thread. The pinning frames are printed with their count.</p>
+ *
+ * <p>Run with {@code mvn -f benchmarks/pom.xml verify -Pbench
+ * -Dbench.main=com.library.library_management.benchmarks.ThreadModelLoadCheck}.</p>
+ */
+public class ThreadModelLoadCheck {
+
+    private static final int[] CLIENTS = {50, 400};
+
+    private static final long WARMUP_SECONDS = 10;
+
+    private static final int POOL_SIZE = 20;
+
+    private static final long MEASURE_SECONDS = 15;
+
+    /**
+     * Every n-th copy of the catalog is checked out before the runs, so the borrowing list has rows.
+     */
+    private static final int BORROWED_EVERY = 10;
+
+    private static final String[] PATHS = {
+            "/books", "/copies", "/borrowings", "/librarians", "/persons",
+            "/user/books", "/user/available-books", "/export/copies?format=CSV"
+    };
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        String datasetSize = System.getProperty("bench.datasetSize", "");
+        int size = datasetSize.isBlank() ? 1000 : Integer.parseInt(datasetSize.split(",")[0].trim());
+
+        ThreadModelLoadCheck check = new ThreadModelLoadCheck();
+        check.run("platform", size, false);
+        check.run("virtual", size, true);
+        if (!check.failures.isEmpty()) {
+            check.failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+    }
+
+    private void run(String mode, int size, boolean virtual) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.SERVLET);
+        builder.profiles(virtual ? new String[]{"bench", "virtual-threads"} : new String[]{"bench"});
+
+        // Same pool in both modes, so only the thread model differs
+        try (ConfigurableApplicationContext context = builder.run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE)) {
+            Dataset dataset = new DatasetLoader(context).load(size);
+            openBorrowings(context.getBean(BorrowingService.class), dataset);
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            Map<String, LongAdder> pinned = new ConcurrentHashMap<>();
+            try (RecordingStream recording = new RecordingStream()) {
+                recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+                recording.onEvent("jdk.VirtualThreadPinned",
+                        event -> pinned.computeIfAbsent(pinnedFrame(event), frame -> new LongAdder()).increment());
+                recording.startAsync();
+
+                drive(base, CLIENTS[CLIENTS.length - 1], WARMUP_SECONDS);
+                for (int clients : CLIENTS) {
+                    Result result = drive(base, clients, MEASURE_SECONDS);
+                    System.out.printf("%-8s %4d clients: %7.0f req/s, p50 %6.1f ms, p99 %7.1f ms, %d errors%n",
+                            mode, clients, result.count() / (double) MEASURE_SECONDS,
+                            result.percentile(0.5), result.percentile(0.99), result.errors());
+                    if (result.errors() > 0) {
+                        failures.add(mode + " with " + clients + " clients: " + result.errors() + " failed requests");
+                    }
+                }
+            }
+            if (virtual) {
+                if (pinned.isEmpty()) {
+                    System.out.println("virtual  no pinned virtual threads over 1 ms");
+                }
+                pinned.forEach((frame, count) ->
+                        System.out.printf("virtual  pinned %d times at %s%n", count.sum(), frame));
+            }
+        }
+    }
+
+    /**
+     * Runs the clients for the given time; every client waits for its response before the next request.
+     */
+    private Result drive(String base, int clients, long seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<long[]>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        String path = PATHS[ThreadLocalRandom.current().nextInt(PATHS.length)];
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        return new Result(all, errors.get());
+    }
+
+    private static void openBorrowings(BorrowingService borrowingService, Dataset dataset) {
+        List<Copy> copies = dataset.availableCopies();
+        List<User> users = dataset.users();
+        for (int i = 0; i < copies.size(); i += BORROWED_EVERY) {
+            borrowingService.insert(new Borrowing(users.get(i % users.size()), copies.get(i), LocalDate.now(), null));
+        }
+    }
+
+    /**
+     * The first frame outside the JDK, which is the code that held the monitor.
+     */
+    private static String pinnedFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "(JDK only)";
+    }
+
+    private record Result(long[] sortedNanos, int errors) {
+
+        int count() {
+            return sortedNanos.length;
+        }
+
+        double percentile(double p) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.library_management.benchmarks;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.User;
+import com.library.library_management.services.CopyService;
+import com.library.library_management.services.UniqueConstraints;
+import com.library.library_management.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validated writes of the copy and user services.
+ *
+ * <p>The services no longer look up duplicates before saving: the unique constraints reject them
+ * when {@link UniqueConstraints#write} flushes the save. Each benchmark therefore runs a whole
+ * service write, validation, statement and flush included, for a value that passes the
+ * constraint. An inserted copy is deleted again outside the measured section, so the dataset does
+ * not grow during long runs.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private CopyService copyService;
+
+    private UserService userService;
+
+    private List<Book> books;
+
+    private List<User> users;
+
+    private int next;
+
+    private Long insertedCopyId;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) {
+        copyService = state.getBean(CopyService.class);
+        userService = state.getBean(UserService.class);
+        books = state.getDataset().books();
+        users = state.getDataset().users();
+    }
+
+    @Benchmark
+    public Copy insertCopy() {
+        // The number after the loaded copies of the book, so the insert passes the unique constraint
+        Copy copy = copyService.insert(new Copy(books.get(next++ % books.size()), DatasetLoader.COPIES_PER_BOOK + 1,
+                CopyStatus.Available));
+        insertedCopyId = copy.getId();
+        return copy;
+    }
+
+    @Benchmark
+    public User updateUser() {
+        // A stored user edited in the form; the phone number changes so that every save issues an update
+        User user = users.get(next++ % users.size());
+        user.setPhoneNumber(user.getPhoneNumber().endsWith("0") ? "+48999999991" : "+48999999990");
+        userService.update(user);
+        return user;
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeInsertedCopy() {
+        if (insertedCopyId != null) {
+            copyService.delete(insertedCopyId);
+            insertedCopyId = null;
+        }
+    }
+}
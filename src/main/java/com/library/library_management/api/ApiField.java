@@ -0,0 +1,29 @@
+package com.library.library_management.api;
+
+import java.util.List;
+
+/**
+ * A field of an API resource and the JPQL expression it is read with.
+ *
+ * @param name       the name in the {@code fields} and {@code sort} parameters and in the response
+ * @param expression the JPQL select expression
+ * @param joins      the joins the expression needs; they are only added when the field is read
+ * @param sortType   the value type when the resource can be sorted by the field, otherwise {@code null}
+ */
+record ApiField(String name, String expression, List<String> joins, Class<?> sortType) {
+
+    static ApiField field(String name, String expression, String... joins) {
+        return new ApiField(name, expression, List.of(joins), null);
+    }
+
+    /**
+     * A field that the resource can be sorted by; it must be non-null for the keyset predicate.
+     */
+    static ApiField sortable(String name, String expression, Class<?> type, String... joins) {
+        return new ApiField(name, expression, List.of(joins), type);
+    }
+
+    boolean isSortable() {
+        return sortType != null;
+    }
+}
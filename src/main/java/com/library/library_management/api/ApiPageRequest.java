@@ -0,0 +1,42 @@
+package com.library.library_management.api;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Query parameters of a collection of the JSON API.
+ *
+ * <p>Bound from the query string ({@code ?fields=id,title&sort=title&direction=desc&size=100&cursor=...}).
+ * Missing values fall back to all fields sorted by the id in ascending order, {@value #DEFAULT_SIZE} rows
+ * per page. Machine clients poll larger pages than the list views, so the size is capped at
+ * {@value #MAX_SIZE} rather than at the {@code PageQuery} limit.</p>
+ *
+ * @param fields    comma-separated names of the fields to return, or {@code null} for all of them
+ * @param sort      the field to sort by, or {@code null} for the id
+ * @param direction the sort direction, {@code asc} or {@code desc}
+ * @param size      the maximum number of rows in the page
+ * @param cursor    the {@code nextCursor} of the previous page, or {@code null} for the first page
+ */
+public record ApiPageRequest(String fields, String sort, String direction, Integer size, String cursor) {
+
+    public static final int DEFAULT_SIZE = 50;
+
+    public static final int MAX_SIZE = 1000;
+
+    public ApiPageRequest {
+        if (cursor != null && cursor.isBlank()) {
+            cursor = null;
+        }
+        if (sort != null && sort.isBlank()) {
+            sort = null;
+        }
+        direction = Sort.Direction.fromOptionalString(direction).orElse(Sort.Direction.ASC).name().toLowerCase();
+        if (size == null || size <= 0) {
+            size = DEFAULT_SIZE;
+        }
+        size = Math.min(size, MAX_SIZE);
+    }
+
+    boolean descending() {
+        return "desc".equals(direction);
+    }
+}
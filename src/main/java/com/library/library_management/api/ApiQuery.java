@@ -0,0 +1,19 @@
+package com.library.library_management.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A validated page query of the JSON API, ready to be run and written to a response.
+ */
+@FunctionalInterface
+public interface ApiQuery {
+
+    /**
+     * Runs the query and writes the page as {@code {"data":[...],"nextCursor":...}}; the cursor is
+     * {@code null} on the last page.
+     *
+     * @param output the response body
+     */
+    void write(OutputStream output) throws IOException;
+}
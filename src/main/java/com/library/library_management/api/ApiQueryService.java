@@ -0,0 +1,202 @@
+package com.library.library_management.api;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.services.ServiceMetrics;
+import com.library.library_management.services.paging.KeysetCursor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Reads the pages of the JSON API.
+ *
+ * <p>Every page is a single JPQL query that selects only the requested fields, plus the sort key and
+ * the id for the cursor, and joins only the tables those fields come from; no entity is loaded. Pages
+ * are keyset-paginated on the sort key and the id, like the list views, and read one row past the page
+ * to tell whether another one follows. The JPQL is assembled from the whitelisted expressions of the
+ * {@link ApiResource} only, request values are always bound as parameters.</p>
+ *
+ * <p>{@link #prepare} checks the request before anything is written, so invalid parameters still get
+ * a proper error response; the rows are then written with Jackson's streaming generator as they come
+ * from the result set.</p>
+ */
+@Service
+@Timed(ServiceMetrics.SERVICE)
+public class ApiQueryService {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder().build();
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ApiQueryService(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Validates a page request and builds its query.
+     *
+     * @param resource   the collection to read
+     * @param request    the page parameters
+     * @param parameters values of the named parameters of the resource's condition
+     * @return the query, to be written to the response
+     * @throws IllegalArgumentException if a field, the sort key or the cursor is invalid
+     */
+    public ApiQuery prepare(ApiResource resource, ApiPageRequest request, Map<String, Object> parameters) {
+        List<ApiField> fields = resource.select(request.fields());
+        ApiField sort = resource.sortField(request.sort());
+        ApiField id = resource.id();
+        Map<String, Object> after = request.cursor() == null ? null : decode(request.cursor(), sort, id);
+
+        // The requested fields come first, the keys are only read for the cursor
+        Map<String, ApiField> read = new LinkedHashMap<>();
+        fields.forEach(field -> read.put(field.name(), field));
+        read.putIfAbsent(sort.name(), sort);
+        read.putIfAbsent(id.name(), id);
+        List<ApiField> columns = List.copyOf(read.values());
+
+        Set<String> joins = new LinkedHashSet<>();
+        columns.forEach(field -> joins.addAll(field.joins()));
+
+        List<String> conditions = new ArrayList<>();
+        if (resource.condition() != null) {
+            conditions.add(resource.condition());
+        }
+        String comparison = request.descending() ? " < " : " > ";
+        if (after != null && sort == id) {
+            conditions.add(id.expression() + comparison + ":afterId");
+        } else if (after != null) {
+            conditions.add("(" + sort.expression() + comparison + ":afterSort OR (" + sort.expression()
+                    + " = :afterSort AND " + id.expression() + comparison + ":afterId))");
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        jpql.append(String.join(", ", columns.stream().map(ApiField::expression).toList()));
+        jpql.append(" FROM ").append(resource.from());
+        joins.forEach(join -> jpql.append(' ').append(join));
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        String direction = request.descending() ? " DESC" : " ASC";
+        jpql.append(" ORDER BY ").append(sort.expression()).append(direction);
+        if (sort != id) {
+            jpql.append(", ").append(id.expression()).append(direction);
+        }
+
+        Map<String, Object> bindings = new LinkedHashMap<>(parameters);
+        if (after != null) {
+            bindings.put("afterId", after.get(id.name()));
+            if (sort != id) {
+                bindings.put("afterSort", after.get(sort.name()));
+            }
+        }
+        int size = request.size();
+        int sortIndex = columns.indexOf(sort);
+        int idIndex = columns.indexOf(id);
+        return output -> write(output, jpql.toString(), bindings, size, fields.size(), columns, sortIndex, idIndex);
+    }
+
+    private void write(OutputStream output, String jpql, Map<String, Object> bindings, int size, int fieldCount,
+                       List<ApiField> columns, int sortIndex, int idIndex) throws IOException {
+        try {
+            // The result stream's cursor only lives as long as the transaction
+            readOnlyTransaction.executeWithoutResult(status -> {
+                TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class)
+                        .setMaxResults(size + 1)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, size + 1)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true);
+                bindings.forEach(query::setParameter);
+                try (Stream<Object[]> rows = query.getResultStream();
+                     JsonGenerator generator = FACTORY.createGenerator(output, JsonEncoding.UTF8)
+                             .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                    generator.writeStartObject();
+                    generator.writeArrayFieldStart("data");
+                    Object[] last = null;
+                    String nextCursor = null;
+                    Iterator<Object[]> iterator = rows.iterator();
+                    for (int count = 0; iterator.hasNext(); count++) {
+                        Object[] row = iterator.next();
+                        if (count == size) {
+                            nextCursor = cursor(columns, sortIndex, idIndex, last);
+                            break;
+                        }
+                        generator.writeStartObject();
+                        for (int i = 0; i < fieldCount; i++) {
+                            generator.writeFieldName(columns.get(i).name());
+                            writeValue(generator, row[i]);
+                        }
+                        generator.writeEndObject();
+                        last = row;
+                    }
+                    generator.writeEndArray();
+                    generator.writeStringField("nextCursor", nextCursor);
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Long number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Integer number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Boolean flag) {
+            generator.writeBoolean(flag);
+        } else if (value instanceof CopyStatus copyStatus) {
+            generator.writeString(copyStatus.getName());
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    private static String cursor(List<ApiField> columns, int sortIndex, int idIndex, Object[] last) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(columns.get(sortIndex).name(), last[sortIndex]);
+        keys.put(columns.get(idIndex).name(), last[idIndex]);
+        return KeysetCursor.encode(ScrollPosition.forward(keys));
+    }
+
+    /**
+     * Reads the keys of a cursor, which must have been issued for the same sort key.
+     */
+    private static Map<String, Object> decode(String cursor, ApiField sort, ApiField id) {
+        Map<String, Object> keys = KeysetCursor.decode(cursor).getKeys();
+        if (keys.size() != (sort == id ? 1 : 2)
+                || !sort.sortType().isInstance(keys.get(sort.name()))
+                || !id.sortType().isInstance(keys.get(id.name()))) {
+            throw new IllegalArgumentException("Invalid page cursor.");
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,64 @@
+package com.library.library_management.api;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A collection of the JSON API: the entity it is read from, its fields and the condition that always
+ * applies to it.
+ *
+ * @param from      the JPQL {@code FROM} clause with the root alias
+ * @param id        the field that identifies a row and breaks ties in the sort order
+ * @param condition a JPQL condition with named parameters, or {@code null}
+ * @param fields    the fields by name, in response order
+ */
+public record ApiResource(String from, ApiField id, String condition, Map<String, ApiField> fields) {
+
+    static ApiResource of(String from, String condition, ApiField id, ApiField... fields) {
+        Map<String, ApiField> byName = new LinkedHashMap<>();
+        byName.put(id.name(), id);
+        for (ApiField field : fields) {
+            byName.put(field.name(), field);
+        }
+        return new ApiResource(from, id, condition, byName);
+    }
+
+    /**
+     * The same collection restricted by another condition.
+     */
+    ApiResource where(String condition) {
+        return new ApiResource(from, id, condition, fields);
+    }
+
+    /**
+     * Resolves the {@code fields} parameter; without one, all fields are read.
+     *
+     * @throws IllegalArgumentException if a requested field does not exist
+     */
+    List<ApiField> select(String requested) {
+        if (requested == null || requested.isBlank()) {
+            return List.copyOf(fields.values());
+        }
+        Map<String, ApiField> selected = new LinkedHashMap<>();
+        for (String name : requested.split(",")) {
+            ApiField field = fields.get(name.trim());
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + name.trim() + "'.");
+            }
+            selected.put(field.name(), field);
+        }
+        return List.copyOf(selected.values());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the resource cannot be sorted by the field
+     */
+    ApiField sortField(String name) {
+        ApiField field = name == null ? id : fields.get(name);
+        if (field == null || !field.isSortable()) {
+            throw new IllegalArgumentException("Sorting by '" + name + "' is not supported.");
+        }
+        return field;
+    }
+}
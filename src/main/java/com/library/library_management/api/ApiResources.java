@@ -0,0 +1,67 @@
+package com.library.library_management.api;
+
+import java.time.LocalDate;
+
+import static com.library.library_management.api.ApiField.field;
+import static com.library.library_management.api.ApiField.sortable;
+
+/**
+ * The collections of the {@code /api/v1} JSON API.
+ *
+ * <p>Every sortable field is backed by a non-null column. Joins are only made for the fields that
+ * need them, so a client asking for {@code fields=id,title} reads the book table alone.</p>
+ */
+public final class ApiResources {
+
+    public static final ApiResource BOOKS = ApiResource.of("Book b", null,
+            sortable("id", "b.id", Long.class),
+            sortable("title", "b.title", String.class),
+            sortable("author", "b.author", String.class),
+            sortable("publicationYear", "b.publicationYear", Integer.class),
+            sortable("isbn", "b.isbn", String.class),
+            field("publisherId", "b.publisher.id"),
+            field("publisherName", "p.name", "LEFT JOIN b.publisher p"));
+
+    public static final ApiResource COPIES = ApiResource.of("Copy c", null,
+            sortable("id", "c.id", Long.class),
+            field("bookId", "c.book.id"),
+            field("bookTitle", "bk.title", "JOIN c.book bk"),
+            sortable("copyNumber", "c.copyNumber", Integer.class),
+            field("status", "c.status"));
+
+    /**
+     * The copies of the book given by the {@code bookId} parameter.
+     */
+    public static final ApiResource BOOK_COPIES = COPIES.where("c.book.id = :bookId");
+
+    /**
+     * Books with at least one copy on the shelf, with the copy counts.
+     */
+    public static final ApiResource AVAILABILITY = ApiResource.of("BookAvailability a", "a.available > 0",
+            sortable("bookId", "a.bookId", Long.class),
+            sortable("title", "b.title", String.class, "JOIN a.book b"),
+            field("author", "b.author", "JOIN a.book b"),
+            field("isbn", "b.isbn", "JOIN a.book b"),
+            field("available", "a.available"),
+            field("total", "a.total"),
+            field("borrowed", "a.borrowed"),
+            field("reserved", "a.reserved"),
+            field("lost", "a.lost"));
+
+    /**
+     * The loans of the patron given by the {@code userId} parameter.
+     */
+    public static final ApiResource USER_BORROWINGS = ApiResource.of("Borrowing br", "br.user.id = :userId",
+            sortable("id", "br.id", Long.class),
+            sortable("borrowDate", "br.borrowDate", LocalDate.class),
+            field("dueDate", "br.dueDate"),
+            field("returnDate", "br.returnDate"),
+            field("overdue", "br.overdue"),
+            field("copyId", "br.copy.id"),
+            field("copyNumber", "cp.copyNumber", "LEFT JOIN br.copy cp"),
+            field("bookId", "cp.book.id", "LEFT JOIN br.copy cp"),
+            field("bookTitle", "bk.title", "LEFT JOIN br.copy cp", "LEFT JOIN cp.book bk"));
+
+    private ApiResources() {
+    }
+}
@@ -0,0 +1,19 @@
+package com.library.library_management.archive;
+
+import java.time.LocalDate;
+
+/**
+ * A returned loan as it is kept in the archive, with the IDs of its user and copy instead of the
+ * entities.
+ *
+ * @param id         the ID the loan had in the database
+ * @param userId     the ID of the user, or {@code null} if the loan had none
+ * @param copyId     the ID of the copy, or {@code null} if the loan had none
+ * @param borrowDate the day the copy was borrowed
+ * @param dueDate    the last day of the loan, or {@code null} for loans made before due dates were recorded
+ * @param returnDate the day the copy was returned
+ * @param overdue    whether the copy was returned after the due date
+ */
+public record ArchivedBorrowing(Long id, Long userId, Long copyId, LocalDate borrowDate, LocalDate dueDate,
+                                LocalDate returnDate, boolean overdue) {
+}
@@ -0,0 +1,256 @@
+package com.library.library_management.archive;
+
+import com.library.library_management.archive.BorrowingSegment.Cursor;
+import com.library.library_management.archive.BorrowingSegment.Header;
+import com.library.library_management.config.ArchiveProperties;
+import com.library.library_management.entities.ArchiveSegment;
+import com.library.library_management.repository.ArchiveSegmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Returned loans moved out of the {@code BORROWING} table, kept as {@link BorrowingSegment} files in
+ * {@code library.archive.directory}.
+ *
+ * <p>Segments are written once and never changed. A new segment is written under a pending name and
+ * forced to disk; the archive job then deletes its loans from the database and publishes the segment
+ * by renaming it. The delete transaction also inserts an {@link ArchiveSegment} row with the number of
+ * the segment. When the application stops in between, the pending segment is resolved on the next
+ * start by that row: if it exists the delete committed and the segment is published, otherwise the
+ * file is dropped. A loan is thus either in the database or in one
+ * published segment, never in both and never in neither.</p>
+ *
+ * <p>The headers of the published segments, with the IDs of the users in them, stay in memory, so the
+ * history of a patron only opens the segments that hold loans of that patron.</p>
+ */
+@Component
+public class BorrowingArchive implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingArchive.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.(seg|pending)");
+
+    private static final Comparator<ArchivedBorrowing> ID_ORDER = Comparator.comparing(ArchivedBorrowing::id);
+
+    private static final Comparator<ArchivedBorrowing> HISTORY_ORDER =
+            Comparator.comparing(ArchivedBorrowing::returnDate).thenComparing(ArchivedBorrowing::id).reversed();
+
+    private final Path directory;
+
+    private final ArchiveSegmentRepository segmentRepository;
+
+    private final Lock lock = new ReentrantLock();
+
+    private volatile List<Header> segments = List.of();
+
+    public BorrowingArchive(ArchiveProperties properties, ArchiveSegmentRepository segmentRepository) {
+        this.directory = properties.getDirectory();
+        this.segmentRepository = segmentRepository;
+    }
+
+    /**
+     * Resolves the segments left pending by the last run and reads the headers of all published ones.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            recover();
+            List<Header> loaded = new ArrayList<>();
+            for (Path path : files(BorrowingSegment.SUFFIX)) {
+                loaded.add(BorrowingSegment.readHeader(path));
+            }
+            segments = List.copyOf(loaded);
+            log.info("Loaded {} archive segments with {} loans", loaded.size(),
+                    loaded.stream().mapToLong(Header::rows).sum());
+        } catch (IOException e) {
+            throw new IllegalStateException("The loan archive in " + directory + " cannot be read.", e);
+        }
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Writes the loans in ID order to a new pending segment that is not read until it is published.
+     *
+     * @return the pending segment
+     */
+    public Path write(List<ArchivedBorrowing> rows) throws IOException {
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+            Path pending = directory.resolve(String.format("segment-%09d%s", nextNumber(), BorrowingSegment.PENDING_SUFFIX));
+            BorrowingSegment.write(pending, rows.stream().sorted(ID_ORDER).toList());
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that the loans of a pending segment are deleted, in the transaction that deletes them, so
+     * {@link #recover()} publishes the segment exactly when that transaction committed.
+     */
+    public void deleted(Path pending, int loans) {
+        segmentRepository.save(new ArchiveSegment(number(pending), loans));
+    }
+
+    /**
+     * Publishes a pending segment once its loans are deleted from the database.
+     */
+    public void publish(Path pending) throws IOException {
+        lock.lock();
+        try {
+            String name = pending.getFileName().toString();
+            Path target = pending.resolveSibling(name.substring(0, name.length() - BorrowingSegment.PENDING_SUFFIX.length())
+                    + BorrowingSegment.SUFFIX);
+            Files.move(pending, target, StandardCopyOption.ATOMIC_MOVE);
+            List<Header> published = new ArrayList<>(segments);
+            published.add(BorrowingSegment.readHeader(target));
+            segments = List.copyOf(published);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the pending segments whose delete committed and drops the others, including any cut
+     * short while being written.
+     */
+    public void recover() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (Path pending : files(BorrowingSegment.PENDING_SUFFIX)) {
+                Header header;
+                try {
+                    header = BorrowingSegment.readHeader(pending);
+                } catch (IOException e) {
+                    // Written before the delete, so the loans of an incomplete file are still in the database
+                    log.warn("Dropping the incomplete archive segment {}", pending, e);
+                    Files.delete(pending);
+                    continue;
+                }
+                if (segmentRepository.existsById(number(pending))) {
+                    log.info("Publishing the archive segment {} with {} loans, whose loans were deleted",
+                            pending, header.rows());
+                    publish(pending);
+                } else {
+                    log.info("Dropping the archive segment {}, whose loans were not deleted", pending);
+                    Files.delete(pending);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The archived loans of a user returned before the given position, the latest return first.
+     *
+     * @param returnDate the return date of the position
+     * @param id         the ID of the position, which breaks ties between loans returned the same day
+     * @param limit      the most loans returned
+     */
+    public List<ArchivedBorrowing> findReturnedByUser(long userId, LocalDate returnDate, long id, int limit) {
+        List<ArchivedBorrowing> found = new ArrayList<>();
+        for (Header header : segments) {
+            if (!header.containsUser(userId) || header.minReturnDate().isAfter(returnDate)) {
+                continue;
+            }
+            try (Cursor cursor = BorrowingSegment.open(header)) {
+                while (cursor.hasNext()) {
+                    ArchivedBorrowing loan = cursor.next();
+                    if (loan.userId() != null && loan.userId() == userId && (loan.returnDate().isBefore(returnDate)
+                            || loan.returnDate().equals(returnDate) && loan.id() < id)) {
+                        found.add(loan);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        found.sort(HISTORY_ORDER);
+        return found.size() > limit ? found.subList(0, limit) : found;
+    }
+
+    /**
+     * All archived loans in ID order. The segments are merged as they are read, holding one decoded
+     * loan of each; the stream must be closed.
+     */
+    public Stream<ArchivedBorrowing> stream() {
+        List<Cursor> cursors = new ArrayList<>();
+        try {
+            for (Header header : segments) {
+                cursors.add(BorrowingSegment.open(header));
+            }
+        } catch (IOException e) {
+            cursors.forEach(Cursor::close);
+            throw new UncheckedIOException(e);
+        }
+        Iterator<ArchivedBorrowing> merged = SortedMerge.merge(cursors, ID_ORDER);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> cursors.forEach(Cursor::close));
+    }
+
+    /**
+     * One above the highest segment number in the directory or in the database, so a number whose
+     * row was left behind by a removed segment file is not used again.
+     */
+    private long nextNumber() throws IOException {
+        long last = segmentRepository.findMaxSegment();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    last = Math.max(last, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        return last + 1;
+    }
+
+    private static long number(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(segment + " is not an archive segment.");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                return matcher.matches() && suffix.equals("." + matcher.group(2));
+            }).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.library_management.archive;
+
+import com.library.library_management.config.ArchiveProperties;
+import com.library.library_management.repository.BorrowingRepository;
+import com.library.library_management.services.CatalogVersion;
+import com.library.library_management.services.ServiceMetrics;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Moves returned loans older than {@code library.archive.min-age} from the database to the
+ * {@link BorrowingArchive}, so the {@code BORROWING} table only grows by the loans of the recent past.
+ *
+ * <p>Enabled with {@code library.archive.enabled=true}. A run reads the loans returned longest ago, at most
+ * {@code library.archive.segment-size} at a time, writes them to
+ * a pending segment, deletes them in one transaction and publishes the segment. The delete repeats the
+ * age condition: when a loan's return date was edited after it was read, the counts differ, the batch
+ * rolls back and its pending segment is dropped, to be read again on the next run.</p>
+ */
+@Service
+@Timed(ServiceMetrics.SERVICE)
+@ConditionalOnProperty("library.archive.enabled")
+public class BorrowingArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingArchiver.class);
+
+    /**
+     * The most IDs bound to one delete statement.
+     */
+    private static final int DELETE_CHUNK = 1_000;
+
+    private final BorrowingRepository borrowingRepository;
+
+    private final BorrowingArchive archive;
+
+    private final ArchiveProperties properties;
+
+    private final CatalogVersion catalogVersion;
+
+    private final TransactionTemplate transaction;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BorrowingArchiver(BorrowingRepository borrowingRepository, BorrowingArchive archive,
+                             ArchiveProperties properties, CatalogVersion catalogVersion,
+                             PlatformTransactionManager transactionManager) {
+        this.borrowingRepository = borrowingRepository;
+        this.archive = archive;
+        this.properties = properties;
+        this.catalogVersion = catalogVersion;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Archives every loan returned before the configured age, one segment at a time.
+     *
+     * @return the number of loans archived
+     */
+    @Scheduled(fixedDelayString = "${library.archive.interval:1d}")
+    public int archive() {
+        LocalDate before = LocalDate.now().minus(properties.getMinAge());
+        int archived = 0;
+        try {
+            archive.recover();
+            List<ArchivedBorrowing> loans;
+            do {
+                loans = readOnlyTransaction.execute(status ->
+                        borrowingRepository.findArchivable(before, Limit.of(properties.getSegmentSize())));
+                if (loans.isEmpty()) {
+                    break;
+                }
+                Path pending = archive.write(loans);
+                try {
+                    delete(loans, before, pending);
+                } catch (RuntimeException e) {
+                    // Drops the segment if the delete rolled back, publishes it if it committed after all
+                    archive.recover();
+                    throw e;
+                }
+                archive.publish(pending);
+                archived += loans.size();
+            } while (loans.size() == properties.getSegmentSize());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (archived > 0) {
+            log.info("Archived {} loans returned before {}", archived, before);
+        }
+        return archived;
+    }
+
+    private void delete(List<ArchivedBorrowing> loans, LocalDate before, Path pending) {
+        transaction.executeWithoutResult(status -> {
+            int deleted = 0;
+            for (int from = 0; from < loans.size(); from += DELETE_CHUNK) {
+                List<Long> ids = loans.subList(from, Math.min(loans.size(), from + DELETE_CHUNK)).stream()
+                        .map(ArchivedBorrowing::id).toList();
+                deleted += borrowingRepository.deleteArchived(ids, before);
+            }
+            if (deleted != loans.size()) {
+                throw new IllegalStateException("Loans changed while they were archived; the batch is retried later.");
+            }
+            archive.deleted(pending, loans.size());
+            catalogVersion.changed();
+        });
+    }
+}
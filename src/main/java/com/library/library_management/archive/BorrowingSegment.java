@@ -0,0 +1,418 @@
+package com.library.library_management.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An immutable file of archived loans, stored column by column.
+ *
+ * <p>The file starts with a fixed-size header holding the number of rows, the ranges of their IDs and
+ * return dates, and the offset and length of every column. The columns follow, each compressed on its
+ * own with Deflate. Rows are sorted by ID, and every column is encoded so that it compresses well:</p>
+ * <ul>
+ *     <li>{@code id}: the difference to the previous ID</li>
+ *     <li>{@code user_id} and {@code copy_id}: a dictionary of the distinct IDs, sorted and stored as
+ *     differences, followed by the position of every row's ID in it, where 0 stands for none</li>
+ *     <li>{@code return_date}: the difference in days to the return date of the previous row</li>
+ *     <li>{@code borrow_date}: the days from the borrow date to the return date</li>
+ *     <li>{@code due_date}: the days from the borrow date to the due date plus one, where 0 stands for none</li>
+ *     <li>{@code overdue}: one bit per row</li>
+ * </ul>
+ * <p>Numbers are written as variable-length integers, signed ones zigzag-encoded. Reading decodes the
+ * columns side by side as a stream, so a scan keeps a segment compressed in memory and decodes one row
+ * at a time.</p>
+ */
+final class BorrowingSegment {
+
+    static final String SUFFIX = ".seg";
+
+    static final String PENDING_SUFFIX = ".pending";
+
+    private static final int MAGIC = 0x4C425331;
+
+    private static final int VERSION = 1;
+
+    private static final int COLUMNS = 7;
+
+    private static final int ID = 0;
+
+    private static final int USER = 1;
+
+    private static final int COPY = 2;
+
+    private static final int RETURN_DATE = 3;
+
+    private static final int BORROW_DATE = 4;
+
+    private static final int DUE_DATE = 5;
+
+    private static final int OVERDUE = 6;
+
+    private static final int HEADER_SIZE = 4 * Integer.BYTES + 4 * Long.BYTES + COLUMNS * (Long.BYTES + Integer.BYTES);
+
+    private BorrowingSegment() {
+    }
+
+    /**
+     * What is known about a segment without reading its rows.
+     *
+     * @param path    the segment file
+     * @param rows    the number of rows
+     * @param minId   the lowest ID
+     * @param maxId   the highest ID
+     * @param minReturnDate the earliest return date
+     * @param maxReturnDate the latest return date
+     * @param users   the sorted IDs of the users with loans in the segment
+     * @param offsets the offset of every column in the file
+     * @param lengths the compressed length of every column
+     */
+    record Header(Path path, int rows, long minId, long maxId, LocalDate minReturnDate, LocalDate maxReturnDate,
+                  long[] users, long[] offsets, int[] lengths) {
+
+        boolean containsUser(long userId) {
+            return Arrays.binarySearch(users, userId) >= 0;
+        }
+
+        Header movedTo(Path target) {
+            return new Header(target, rows, minId, maxId, minReturnDate, maxReturnDate, users, offsets, lengths);
+        }
+    }
+
+    /**
+     * Writes the rows, sorted by ID, to a new file and forces it to disk.
+     */
+    static void write(Path path, List<ArchivedBorrowing> rows) throws IOException {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("A segment must hold at least one row.");
+        }
+        long[] users = dictionary(rows.stream().map(ArchivedBorrowing::userId).toList());
+        long[] copies = dictionary(rows.stream().map(ArchivedBorrowing::copyId).toList());
+
+        ColumnWriter[] columns = new ColumnWriter[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ColumnWriter();
+        }
+        writeDictionary(columns[USER], users);
+        writeDictionary(columns[COPY], copies);
+
+        long previousId = 0;
+        long previousReturn = 0;
+        long minReturn = Long.MAX_VALUE;
+        long maxReturn = Long.MIN_VALUE;
+        int bits = 0;
+        int bitCount = 0;
+        for (ArchivedBorrowing row : rows) {
+            if (row.id() <= previousId) {
+                throw new IllegalArgumentException("The rows of a segment must be sorted by ID.");
+            }
+            columns[ID].writeUnsigned(row.id() - previousId);
+            previousId = row.id();
+            columns[USER].writeUnsigned(positionOf(users, row.userId()));
+            columns[COPY].writeUnsigned(positionOf(copies, row.copyId()));
+
+            long returned = row.returnDate().toEpochDay();
+            long borrowed = row.borrowDate().toEpochDay();
+            columns[RETURN_DATE].writeSigned(returned - previousReturn);
+            previousReturn = returned;
+            minReturn = Math.min(minReturn, returned);
+            maxReturn = Math.max(maxReturn, returned);
+            columns[BORROW_DATE].writeSigned(returned - borrowed);
+            columns[DUE_DATE].writeUnsigned(row.dueDate() == null ? 0 : zigzag(row.dueDate().toEpochDay() - borrowed) + 1);
+
+            bits |= (row.overdue() ? 1 : 0) << bitCount;
+            if (++bitCount == Byte.SIZE) {
+                columns[OVERDUE].writeByte(bits);
+                bits = 0;
+                bitCount = 0;
+            }
+        }
+        if (bitCount > 0) {
+            columns[OVERDUE].writeByte(bits);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows.size());
+            out.writeInt(COLUMNS);
+            out.writeLong(rows.get(0).id());
+            out.writeLong(previousId);
+            out.writeLong(minReturn);
+            out.writeLong(maxReturn);
+            long offset = HEADER_SIZE;
+            byte[][] compressed = new byte[COLUMNS][];
+            for (int i = 0; i < COLUMNS; i++) {
+                compressed[i] = columns[i].finish();
+                out.writeLong(offset);
+                out.writeInt(compressed[i].length);
+                offset += compressed[i].length;
+            }
+            for (byte[] column : compressed) {
+                out.write(column);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads the header of a segment and the dictionary of its users.
+     */
+    static Header readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(path + " is not an archive segment of a known version.");
+            }
+            int rows = header.getInt();
+            if (header.getInt() != COLUMNS) {
+                throw new IOException(path + " has an unexpected number of columns.");
+            }
+            long minId = header.getLong();
+            long maxId = header.getLong();
+            LocalDate minReturn = LocalDate.ofEpochDay(header.getLong());
+            LocalDate maxReturn = LocalDate.ofEpochDay(header.getLong());
+            long[] offsets = new long[COLUMNS];
+            int[] lengths = new int[COLUMNS];
+            for (int i = 0; i < COLUMNS; i++) {
+                offsets[i] = header.getLong();
+                lengths[i] = header.getInt();
+            }
+
+            ByteBuffer users = ByteBuffer.allocate(lengths[USER]);
+            readFully(channel, users, offsets[USER]);
+            try (ColumnReader reader = new ColumnReader(users.array(), 0, lengths[USER])) {
+                return new Header(path, rows, minId, maxId, minReturn, maxReturn, reader.readDictionary(),
+                        offsets, lengths);
+            }
+        }
+    }
+
+    /**
+     * Opens the rows of a segment for reading in ID order. The cursor closes itself after the last row.
+     */
+    static Cursor open(Header header) throws IOException {
+        return new Cursor(header, Files.readAllBytes(header.path()));
+    }
+
+    /**
+     * Reads the rows of a segment column by column in ID order.
+     */
+    static final class Cursor implements Iterator<ArchivedBorrowing>, Closeable {
+
+        private final ColumnReader[] columns = new ColumnReader[COLUMNS];
+
+        private final long[] users;
+
+        private final long[] copies;
+
+        private final int rows;
+
+        private int row;
+
+        private long id;
+
+        private long returned;
+
+        private int bits;
+
+        private Cursor(Header header, byte[] file) throws IOException {
+            for (int i = 0; i < COLUMNS; i++) {
+                columns[i] = new ColumnReader(file, (int) header.offsets()[i], header.lengths()[i]);
+            }
+            this.users = columns[USER].readDictionary();
+            this.copies = columns[COPY].readDictionary();
+            this.rows = header.rows();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return row < rows;
+        }
+
+        @Override
+        public ArchivedBorrowing next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                id += columns[ID].readUnsigned();
+                Long userId = idAt(users, columns[USER].readUnsigned());
+                Long copyId = idAt(copies, columns[COPY].readUnsigned());
+                returned += columns[RETURN_DATE].readSigned();
+                long borrowed = returned - columns[BORROW_DATE].readSigned();
+                long due = columns[DUE_DATE].readUnsigned();
+                if (row % Byte.SIZE == 0) {
+                    bits = columns[OVERDUE].readByte();
+                }
+                boolean overdue = (bits >>> (row % Byte.SIZE) & 1) == 1;
+                ArchivedBorrowing next = new ArchivedBorrowing(id, userId, copyId, LocalDate.ofEpochDay(borrowed),
+                        due == 0 ? null : LocalDate.ofEpochDay(borrowed + unzigzag(due - 1)),
+                        LocalDate.ofEpochDay(returned), overdue);
+                if (++row == rows) {
+                    close();
+                }
+                return next;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (ColumnReader column : columns) {
+                column.close();
+            }
+        }
+
+        private static Long idAt(long[] dictionary, long position) {
+            return position == 0 ? null : dictionary[(int) position - 1];
+        }
+    }
+
+    private static long[] dictionary(List<Long> ids) {
+        return ids.stream().filter(Objects::nonNull).mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    private static void writeDictionary(ColumnWriter column, long[] dictionary) throws IOException {
+        column.writeUnsigned(dictionary.length);
+        long previous = 0;
+        for (long value : dictionary) {
+            column.writeSigned(value - previous);
+            previous = value;
+        }
+    }
+
+    private static long positionOf(long[] dictionary, Long id) {
+        return id == null ? 0 : Arrays.binarySearch(dictionary, id) + 1;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("The archive segment is truncated.");
+            }
+        }
+    }
+
+    private static final class ColumnWriter {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        private final OutputStream out = new BufferedOutputStream(new DeflaterOutputStream(bytes, deflater, 8192));
+
+        void writeUnsigned(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeSigned(long value) throws IOException {
+            writeUnsigned(zigzag(value));
+        }
+
+        void writeByte(int value) throws IOException {
+            out.write(value);
+        }
+
+        byte[] finish() throws IOException {
+            out.close();
+            deflater.end();
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class ColumnReader implements Closeable {
+
+        private final InputStream in;
+
+        ColumnReader(byte[] file, int offset, int length) {
+            this.in = new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(file, offset, length),
+                    new Inflater(), 8192));
+        }
+
+        long readUnsigned() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                int next = readByte();
+                value |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed number in an archive segment.");
+        }
+
+        long readSigned() throws IOException {
+            return unzigzag(readUnsigned());
+        }
+
+        int readByte() throws IOException {
+            int next = in.read();
+            if (next < 0) {
+                throw new EOFException("The archive segment is truncated.");
+            }
+            return next;
+        }
+
+        long[] readDictionary() throws IOException {
+            long[] dictionary = new long[(int) readUnsigned()];
+            long previous = 0;
+            for (int i = 0; i < dictionary.length; i++) {
+                previous += readSigned();
+                dictionary[i] = previous;
+            }
+            return dictionary;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.library_management.archive;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges iterators that are each sorted into one sorted iterator, holding only the next element of
+ * every source.
+ */
+public final class SortedMerge {
+
+    private SortedMerge() {
+    }
+
+    /**
+     * @param sources iterators, each sorted by {@code order}
+     * @param order   the order of the sources and of the merged iterator
+     * @param <T>     the element type
+     * @return the elements of all sources in {@code order}
+     */
+    public static <T> Iterator<T> merge(List<? extends Iterator<? extends T>> sources, Comparator<? super T> order) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (left, right) -> order.compare(left.value, right.value));
+        for (Iterator<? extends T> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head<>(source.next(), source));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.source.hasNext()) {
+                    heads.add(new Head<>(head.source.next(), head.source));
+                }
+                return head.value;
+            }
+        };
+    }
+
+    private record Head<T>(T value, Iterator<? extends T> source) {
+    }
+}
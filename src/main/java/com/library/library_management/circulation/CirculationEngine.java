@@ -0,0 +1,586 @@
+package com.library.library_management.circulation;
+
+import com.library.library_management.circulation.CirculationEvent.Type;
+import com.library.library_management.config.CirculationEngineProperties;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.services.CirculationBatchException;
+import com.library.library_management.services.ServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides desk checkouts and returns in memory and logs them, leaving the database writes to the
+ * {@link CirculationProjector}. Enabled with {@code library.circulation.engine.enabled=true}.
+ *
+ * <p>The copies are split into shards by ID. Each shard keeps the status, borrower or holder and
+ * borrow date of its copies in a {@link CopyStateTable} and is changed by its own thread only, so a
+ * checkout takes no lock and reads nothing from the database: the shard checks the copies, appends a
+ * record per copy to its {@link CirculationLog}, updates the table and hands the events to the
+ * projector, and the desk is answered once the log is on disk. Concurrent checkouts of the same copy
+ * are ordered by the shard, so the loser is rejected right away instead of retrying a transaction.
+ * A batch whose copies fall to several shards is queued on all of them in the same order as every
+ * other such batch; the first shard runs it once all of them reached it, while the others wait. It
+ * forces the logs of the other shards, then writes the commit record of the batch to its own log and
+ * forces that, so the batch stays all-or-nothing in memory and after a crash. If a log cannot be
+ * forced, the batch is undone in every table before the desk hears of the failure.</p>
+ *
+ * <p>The tables follow the database rather than replace it. A returned copy is {@link CopyStateTable#RETURNING}
+ * until the projector stored the return, since only then is it known whether a hold gets the copy.
+ * After every transaction the projector reads the stored state of the copies it changed, and of the
+ * copies {@link #copyChanged changed} elsewhere, such as in the copy form or by a hold, and the shard
+ * takes it over unless the copy has a newer logged event that is not stored yet. The projector
+ * drops an event the stored copy no longer allows, e.g. a checkout of a copy marked as lost in the
+ * form at the same moment.</p>
+ */
+@Component
+public class CirculationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationEngine.class);
+
+    private final CirculationEngineProperties properties;
+
+    private final BlockingQueue<CirculationEvent> events = new LinkedBlockingQueue<>();
+
+    private final Set<Long> changedCopies = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Queues the batches that span several shards, so every shard sees them in the same order.
+     */
+    private final Lock spanningLock = new ReentrantLock();
+
+    private volatile CirculationShard[] shards;
+
+    private volatile boolean stopping;
+
+    public CirculationEngine(CirculationEngineProperties properties, ServiceMetrics metrics) {
+        this.properties = properties;
+        metrics.circulationBacklog(events, BlockingQueue::size);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Checks out copies to a patron, all or none.
+     *
+     * @param copyIds the IDs of the copies, in the order they were scanned
+     * @throws CirculationBatchException if a copy is unknown, listed twice, or neither available nor
+     *                                   reserved for the patron
+     */
+    public void checkOut(long userId, List<Long> copyIds, LocalDate borrowDate, LocalDate dueDate) {
+        run(new Batch(Type.CHECKOUT, copyIds, userId, borrowDate, dueDate));
+    }
+
+    /**
+     * Returns copies, all or none.
+     *
+     * @param copyIds the IDs of the copies, in the order they were scanned
+     * @throws CirculationBatchException if a copy is listed twice, is not on loan, or was borrowed
+     *                                   after the return date
+     */
+    public void returnAll(List<Long> copyIds, LocalDate returnDate) {
+        run(new Batch(Type.RETURN, copyIds, 0, returnDate, null));
+    }
+
+    /**
+     * Has the stored state of a copy read again once the surrounding transaction commits, for changes
+     * of copies that do not go through the engine.
+     */
+    public void copyChanged(Long copyId) {
+        if (!properties.isEnabled() || copyId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changedCopies.add(copyId);
+                }
+            });
+        } else {
+            changedCopies.add(copyId);
+        }
+    }
+
+    /**
+     * Reads the logged events the database does not have yet, by shard in log order.
+     *
+     * @param positions the last stored sequence number by shard
+     */
+    List<CirculationEvent> unstoredEvents(Map<Integer, Long> positions) throws IOException {
+        List<CirculationLog.Logged> records = new ArrayList<>();
+        Map<Integer, Set<Long>> commits = new HashMap<>();
+        for (Path path : CirculationLog.files(properties.getDirectory())) {
+            for (CirculationLog.Logged record : CirculationLog.read(path)) {
+                if (record.event() == null) {
+                    commits.computeIfAbsent(record.shard(), shard -> new HashSet<>()).add(record.sequence());
+                } else {
+                    records.add(record);
+                }
+            }
+        }
+        List<CirculationEvent> unstored = new ArrayList<>();
+        int uncommitted = 0;
+        for (CirculationLog.Logged record : records) {
+            if (record.sequence() <= positions.getOrDefault(record.shard(), 0L)) {
+                continue;
+            }
+            // A stored later event of the commit shard means the commit was written before it
+            if (record.commitShard() == CirculationLog.NO_COMMIT
+                    || commits.getOrDefault(record.commitShard(), Set.of()).contains(record.commitSequence())
+                    || record.commitSequence() <= positions.getOrDefault(record.commitShard(), 0L)) {
+                unstored.add(record.event());
+            } else {
+                uncommitted++;
+            }
+        }
+        if (uncommitted > 0) {
+            log.warn("Skipped {} logged checkouts and returns of batches that were not committed", uncommitted);
+        }
+        return unstored;
+    }
+
+    /**
+     * Fills the shards with the stored copies and starts them, each with a new log continuing after
+     * its stored position. The old log files must all be stored, and are deleted.
+     */
+    void start(List<CopyCirculation> copies, Map<Integer, Long> positions) throws IOException {
+        for (Path path : CirculationLog.files(properties.getDirectory())) {
+            Files.delete(path);
+        }
+        int count = properties.getShards();
+        if (count < 1) {
+            throw new IllegalArgumentException("The circulation engine needs at least one shard.");
+        }
+        CopyStateTable[] tables = new CopyStateTable[count];
+        for (int i = 0; i < count; i++) {
+            tables[i] = new CopyStateTable(copies.size() / count);
+        }
+        for (CopyCirculation copy : copies) {
+            load(tables[shardOf(copy.copyId(), count)], copy);
+        }
+        CirculationShard[] started = new CirculationShard[count];
+        for (int i = 0; i < count; i++) {
+            CirculationLog wal = new CirculationLog(properties.getDirectory(), i, positions.getOrDefault(i, 0L) + 1,
+                    properties.getLogSize().toBytes(), properties.getProjectionBatchSize(), properties.isForceWrites());
+            started[i] = new CirculationShard(i, tables[i], wal, events);
+            started[i].start();
+        }
+        shards = started;
+        stopping = false;
+        log.info("Started the circulation engine with {} copies in {} shards", copies.size(), count);
+    }
+
+    /**
+     * Stops taking checkouts and returns and waits until the shards logged the ones already queued.
+     */
+    void stop() throws InterruptedException {
+        spanningLock.lock();
+        try {
+            stopping = true;
+        } finally {
+            spanningLock.unlock();
+        }
+        CirculationShard[] current = shards;
+        if (current != null) {
+            for (CirculationShard shard : current) {
+                shard.stop();
+            }
+        }
+    }
+
+    /**
+     * Waits up to the timeout for the next logged event to store.
+     *
+     * @return the event, or {@code null} if there was none
+     */
+    CirculationEvent pollEvent(long timeout, TimeUnit unit) throws InterruptedException {
+        return events.poll(timeout, unit);
+    }
+
+    void drainEvents(Collection<CirculationEvent> into, int max) {
+        events.drainTo(into, max);
+    }
+
+    /**
+     * Takes the IDs of the copies changed outside the engine since the last call.
+     */
+    Set<Long> takeChangedCopies() {
+        Set<Long> taken = new HashSet<>();
+        for (Long copyId : changedCopies) {
+            if (changedCopies.remove(copyId)) {
+                taken.add(copyId);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Hands the stored state of copies to their shards.
+     *
+     * @param sequences the sequence number of the last stored event of each copy the projector changed;
+     *                  the other copies were changed elsewhere
+     * @param stored    the stored copies
+     * @param missing   the IDs of copies no longer stored
+     */
+    void settle(Map<Long, Long> sequences, List<CopyCirculation> stored, Collection<Long> missing) {
+        CirculationShard[] current = shards;
+        if (current == null) {
+            return;
+        }
+        Map<Integer, List<Settled>> byShard = new TreeMap<>();
+        for (CopyCirculation copy : stored) {
+            byShard.computeIfAbsent(shardOf(copy.copyId(), current.length), shard -> new ArrayList<>())
+                    .add(new Settled(copy.copyId(), copy, sequences.getOrDefault(copy.copyId(), 0L)));
+        }
+        for (Long copyId : missing) {
+            byShard.computeIfAbsent(shardOf(copyId, current.length), shard -> new ArrayList<>())
+                    .add(new Settled(copyId, null, sequences.getOrDefault(copyId, 0L)));
+        }
+        byShard.forEach((shard, settled) -> current[shard].submit(new CirculationShard.Task() {
+            @Override
+            void run(CirculationShard owner) {
+                settled.forEach(copy -> copy.apply(owner.table()));
+            }
+        }));
+    }
+
+    /**
+     * Lets a shard delete its log files up to the given position.
+     */
+    void stored(int shard, long sequence) {
+        CirculationShard[] current = shards;
+        if (current == null || shard >= current.length) {
+            return;
+        }
+        current[shard].submit(new CirculationShard.Task() {
+            @Override
+            void run(CirculationShard owner) throws IOException {
+                owner.wal().stored(sequence);
+            }
+        });
+    }
+
+    /**
+     * Queues the batch on its shards and waits for it. A batch queued while the engine stops is failed
+     * by its shard rather than left waiting; a spanning batch checks {@link #stopping} under the lock
+     * the engine stops under, so it is queued on all of its shards or on none.
+     */
+    private void run(Batch batch) {
+        CirculationShard[] current = shards;
+        if (current == null) {
+            throw new IllegalStateException("The circulation desk is not running, please try again in a moment.");
+        }
+        Map<Integer, CirculationShard> involved = new TreeMap<>();
+        for (Long copyId : batch.copyIds) {
+            int index = shardOf(copyId, current.length);
+            involved.put(index, current[index]);
+        }
+        batch.shards = involved;
+        batch.arrived = new CountDownLatch(involved.size());
+        CirculationShard runner = involved.values().iterator().next();
+        if (involved.size() == 1) {
+            runner.submit(batch.part(true));
+        } else {
+            spanningLock.lock();
+            try {
+                if (stopping) {
+                    throw new IllegalStateException("The circulation desk is not running, please try again in a moment.");
+                }
+                for (CirculationShard shard : involved.values()) {
+                    shard.submit(batch.part(shard == runner));
+                }
+            } finally {
+                spanningLock.unlock();
+            }
+        }
+        Map<Long, String> errors;
+        try {
+            errors = batch.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalStateException rejected) {
+                throw rejected;
+            }
+            throw new IllegalStateException("The circulation log could not be written.", e.getCause());
+        }
+        if (!errors.isEmpty()) {
+            throw new CirculationBatchException(errors);
+        }
+    }
+
+    private static void load(CopyStateTable table, CopyCirculation copy) {
+        CopyStatus status = copy.status();
+        long user = status == CopyStatus.Borrowed && copy.borrowerId() != null ? copy.borrowerId()
+                : status == CopyStatus.Reserved && copy.holderId() != null ? copy.holderId() : 0;
+        int day = status == CopyStatus.Borrowed && copy.borrowDate() != null
+                ? (int) copy.borrowDate().toEpochDay() : CopyStateTable.NO_DAY;
+        table.put(copy.copyId(), (byte) status.getCode(), user, day);
+    }
+
+    /**
+     * Captures the state of a copy, to be restored if the change about to be made is undone.
+     */
+    private static Runnable undoOf(CopyStateTable table, long copyId) {
+        int slot = table.find(copyId);
+        if (slot < 0) {
+            return () -> table.remove(copyId);
+        }
+        byte status = table.status(slot);
+        long user = table.user(slot);
+        int day = table.day(slot);
+        long pending = table.pending(slot);
+        return () -> {
+            table.put(copyId, status, user, day);
+            table.pending(table.find(copyId), pending);
+        };
+    }
+
+    private static int shardOf(long copyId, int count) {
+        return (int) Math.floorMod(copyId * 0x9E3779B97F4A7C15L >>> 32, (long) count);
+    }
+
+    /**
+     * The stored state of a copy, taken over by the table unless the copy has a newer unstored event.
+     *
+     * @param copy     the stored copy, or {@code null} if it was deleted
+     * @param sequence the sequence number of the event the projector stored for the copy, or {@code 0}
+     *                 for a copy changed elsewhere
+     */
+    private record Settled(long copyId, CopyCirculation copy, long sequence) {
+
+        void apply(CopyStateTable table) {
+            int slot = table.find(copyId);
+            if (slot >= 0 && table.pending(slot) != 0 && table.pending(slot) > sequence) {
+                return;
+            }
+            if (copy == null) {
+                table.remove(copyId);
+            } else {
+                load(table, copy);
+                table.pending(table.find(copyId), 0);
+            }
+        }
+    }
+
+    /**
+     * A checkout or return of several copies, run by the first of its shards.
+     */
+    private final class Batch {
+
+        private final Type type;
+
+        private final List<Long> copyIds;
+
+        private final long userId;
+
+        private final LocalDate date;
+
+        private final LocalDate dueDate;
+
+        private final int count;
+
+        private final CompletableFuture<Map<Long, String>> result = new CompletableFuture<>();
+
+        /**
+         * The shards of the copies by index, the first of which runs the batch.
+         */
+        private Map<Integer, CirculationShard> shards;
+
+        private CountDownLatch arrived;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Batch(Type type, List<Long> copyIds, long userId, LocalDate date, LocalDate dueDate) {
+            this.type = type;
+            this.copyIds = copyIds;
+            this.userId = userId;
+            this.date = date;
+            this.dueDate = dueDate;
+            this.count = properties.getShards();
+        }
+
+        private CirculationShard.Task part(boolean runner) {
+            return new CirculationShard.Task() {
+                private Map<Long, String> errors;
+
+                @Override
+                void run(CirculationShard shard) throws Exception {
+                    arrived.countDown();
+                    if (!runner) {
+                        // The runner uses the table and log of this shard meanwhile
+                        done.await();
+                        return;
+                    }
+                    try {
+                        arrived.await();
+                        errors = execute();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+
+                @Override
+                void completed() {
+                    if (runner) {
+                        result.complete(errors);
+                    }
+                }
+
+                @Override
+                void failed(Exception e) {
+                    if (runner) {
+                        result.completeExceptionally(e);
+                    }
+                }
+            };
+        }
+
+        private Map<Long, String> execute() throws IOException {
+            for (CirculationShard shard : shards.values()) {
+                shard.checkAlive();
+            }
+            Map<Long, String> errors = new LinkedHashMap<>();
+            Set<Long> seen = new HashSet<>();
+            Map<CirculationShard, Integer> records = new LinkedHashMap<>();
+            for (Long copyId : copyIds) {
+                CirculationShard shard = shardOf(copyId);
+                if (!seen.add(copyId)) {
+                    errors.putIfAbsent(copyId, "The copy is listed more than once.");
+                    continue;
+                }
+                String error = type == Type.CHECKOUT ? checkOut(shard.table(), copyId) : checkIn(shard.table(), copyId);
+                if (error != null) {
+                    errors.put(copyId, error);
+                }
+                records.merge(shard, 1, Integer::sum);
+            }
+            if (!errors.isEmpty()) {
+                return errors;
+            }
+
+            CirculationShard runner = shards.values().iterator().next();
+            boolean committed = copyIds.size() > 1;
+            if (committed) {
+                records.merge(runner, 1, Integer::sum);
+            }
+            for (Map.Entry<CirculationShard, Integer> entry : records.entrySet()) {
+                CirculationShard shard = entry.getKey();
+                if (!shard.wal().fits(entry.getValue())) {
+                    // Forced before the file is sealed, so what the seal writes is known to be on disk
+                    shard.sync(null);
+                }
+                shard.wal().reserve(entry.getValue());
+            }
+            int commitShard = committed ? runner.index() : CirculationLog.NO_COMMIT;
+            long commitSequence = committed ? runner.wal().nextSequence() + records.get(runner) - 1 : 0;
+
+            boolean spanning = shards.size() > 1;
+            List<Runnable> undo = new ArrayList<>();
+            List<CirculationEvent> logged = new ArrayList<>();
+            int day = (int) date.toEpochDay();
+            for (Long copyId : copyIds) {
+                CirculationShard shard = shardOf(copyId);
+                long sequence = shard.wal().append(type, copyId, userId, date, dueDate, commitShard, commitSequence);
+                CopyStateTable table = shard.table();
+                Runnable undoChange = undoOf(table, copyId);
+                if (type == Type.CHECKOUT) {
+                    table.put(copyId, (byte) CopyStatus.Borrowed.getCode(), userId, day);
+                } else {
+                    table.put(copyId, CopyStateTable.RETURNING, 0, CopyStateTable.NO_DAY);
+                }
+                table.pending(table.find(copyId), sequence);
+                CirculationEvent event = new CirculationEvent(shard.index(), sequence, type, copyId, userId, date, dueDate);
+                if (spanning) {
+                    undo.add(undoChange);
+                    logged.add(event);
+                } else {
+                    shard.logged(undoChange, event);
+                }
+            }
+            if (!spanning) {
+                if (committed) {
+                    runner.wal().appendCommit();
+                }
+                // Forced and published by the shard together with the other tasks of its batch
+                return errors;
+            }
+
+            // The other shards wait for this batch, so their logs are forced here rather than by them
+            Runnable rollback = () -> {
+                for (int i = undo.size() - 1; i >= 0; i--) {
+                    undo.get(i).run();
+                }
+            };
+            for (CirculationShard shard : records.keySet()) {
+                if (shard != runner) {
+                    shard.sync(rollback);
+                }
+            }
+            runner.wal().appendCommit();
+            runner.sync(rollback);
+            events.addAll(logged);
+            return errors;
+        }
+
+        private CirculationShard shardOf(long copyId) {
+            return shards.get(CirculationEngine.shardOf(copyId, count));
+        }
+
+        private String checkOut(CopyStateTable table, long copyId) {
+            int slot = table.find(copyId);
+            if (slot < 0) {
+                return "The copy was not found.";
+            }
+            byte status = table.status(slot);
+            if (status == CopyStatus.Available.getCode()) {
+                return null;
+            }
+            if (status == CopyStatus.Reserved.getCode()) {
+                return table.user(slot) == userId ? null : "The copy is held for another patron.";
+            }
+            if (status == CopyStateTable.RETURNING) {
+                return "The copy is being returned, please try again in a moment.";
+            }
+            return "The copy is " + CopyStatus.fromCode((char) status).getName().toLowerCase(Locale.ROOT) + ".";
+        }
+
+        private String checkIn(CopyStateTable table, long copyId) {
+            int slot = table.find(copyId);
+            if (slot < 0 || table.status(slot) != CopyStatus.Borrowed.getCode()) {
+                return "The copy is not on loan.";
+            }
+            if (table.day(slot) != CopyStateTable.NO_DAY && date.toEpochDay() < table.day(slot)) {
+                return "The copy was borrowed after the return date.";
+            }
+            return null;
+        }
+    }
+}
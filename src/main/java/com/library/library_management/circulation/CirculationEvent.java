@@ -0,0 +1,22 @@
+package com.library.library_management.circulation;
+
+import java.time.LocalDate;
+
+/**
+ * A checkout or return accepted by the {@link CirculationEngine}, as it is logged and then stored.
+ *
+ * @param shard    the shard that logged the event
+ * @param sequence the position of the event in the log of the shard, starting at 1
+ * @param type     whether the copy was borrowed or returned
+ * @param copyId   the ID of the copy
+ * @param userId   the ID of the borrowing user, or {@code 0} for a return
+ * @param date     the borrow date of a checkout or the return date of a return
+ * @param dueDate  the due date of a checkout, or {@code null} for a return
+ */
+record CirculationEvent(int shard, long sequence, Type type, long copyId, long userId, LocalDate date, LocalDate dueDate) {
+
+    enum Type {
+        CHECKOUT,
+        RETURN
+    }
+}
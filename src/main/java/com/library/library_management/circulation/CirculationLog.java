@@ -0,0 +1,318 @@
+package com.library.library_management.circulation;
+
+import com.library.library_management.circulation.CirculationEvent.Type;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * The write-ahead log of one shard of the {@link CirculationEngine}: an append-only sequence of
+ * fixed-size records in memory-mapped files.
+ *
+ * <p>A file is mapped at its full size when it is created, so an append is a write to memory and a
+ * group of appends reaches the disk with one {@link #sync()}. The file starts with a header naming the
+ * shard and the sequence number of its first record; every record holds its own sequence number and a
+ * CRC-32C checksum. The unwritten rest of a file is zeros, so reading stops at the first record that
+ * does not carry the next sequence number or whose checksum does not match, which also cuts off a
+ * record torn by a crash. A full file is replaced by a new one and deleted once all its records are
+ * stored. Not thread-safe: a log is only written by the thread of its shard, or by the thread running
+ * a batch of several shards while that shard waits for it.</p>
+ *
+ * <p>A checkout or return of several copies is followed by a commit record, written after all of its
+ * copy records are on disk, and every copy record of it names the shard and sequence number of that
+ * commit record. Reading the logs after a crash skips the records whose commit record is missing, so
+ * a batch is replayed whole or not at all. A single copy record needs no commit record.</p>
+ */
+final class CirculationLog implements Closeable {
+
+    static final int RECORD_SIZE = 56;
+
+    /**
+     * The commit shard of a copy record that is its own commit.
+     */
+    static final int NO_COMMIT = -1;
+
+    private static final int MAGIC = 0x4C43574C;
+
+    private static final int VERSION = 2;
+
+    private static final int COMMIT = 0xFF;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int CHECKED_SIZE = RECORD_SIZE - Integer.BYTES;
+
+    private static final Pattern FILE_NAME = Pattern.compile("shard-\\d+-\\d+\\.wal");
+
+    private final Path directory;
+
+    private final int shard;
+
+    private final int capacity;
+
+    private final boolean force;
+
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    private final CRC32C checksum = new CRC32C();
+
+    /**
+     * The full files, with the sequence number of their last record.
+     */
+    private final Deque<Sealed> sealed = new ArrayDeque<>();
+
+    private Path path;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private int written;
+
+    /**
+     * The number of records of the current file known to be on disk.
+     */
+    private int synced;
+
+    private long nextSequence;
+
+    private boolean dirty;
+
+    /**
+     * Starts a new file for the shard.
+     *
+     * @param nextSequence the sequence number of the first record
+     * @param fileSize     the size of one file, which must hold at least {@code minRecords} records
+     * @param force        whether {@link #sync()} forces the records to disk
+     */
+    CirculationLog(Path directory, int shard, long nextSequence, long fileSize, int minRecords, boolean force) throws IOException {
+        long records = (fileSize - HEADER_SIZE) / RECORD_SIZE;
+        if (records < minRecords) {
+            throw new IllegalArgumentException("A circulation log file must hold at least " + minRecords + " records.");
+        }
+        this.directory = directory;
+        this.shard = shard;
+        this.capacity = (int) Math.min(records, (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE);
+        this.force = force;
+        this.nextSequence = nextSequence;
+        Files.createDirectories(directory);
+        open();
+    }
+
+    /**
+     * @return whether the current file has room for the given number of records
+     */
+    boolean fits(int records) {
+        return written + records <= capacity;
+    }
+
+    /**
+     * Makes room for the given number of records in the current file, starting a new file if needed,
+     * so the records of one checkout or return are never split across files.
+     */
+    void reserve(int records) throws IOException {
+        if (records > capacity) {
+            throw new IllegalArgumentException("At most " + (capacity - 1) + " copies can be processed at once.");
+        }
+        if (!fits(records)) {
+            seal();
+            open();
+        }
+    }
+
+    /**
+     * @return the sequence number the next record gets
+     */
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Appends a copy record to the current file, which must have room for it.
+     *
+     * @param commitShard    the shard of the commit record of the batch, or {@link #NO_COMMIT}
+     * @param commitSequence the sequence number of the commit record of the batch
+     * @return the sequence number of the record
+     */
+    long append(Type type, long copyId, long userId, LocalDate date, LocalDate dueDate, int commitShard, long commitSequence) {
+        return write(type.ordinal(), copyId, userId, (int) date.toEpochDay(),
+                dueDate == null ? CopyStateTable.NO_DAY : (int) dueDate.toEpochDay(), commitShard, commitSequence);
+    }
+
+    /**
+     * Appends the commit record of a batch to the current file, which must have room for it.
+     *
+     * @return the sequence number of the record
+     */
+    long appendCommit() {
+        return write(COMMIT, 0, 0, CopyStateTable.NO_DAY, CopyStateTable.NO_DAY, NO_COMMIT, 0);
+    }
+
+    /**
+     * Forces the records appended since the last call to disk, if the log is configured to.
+     *
+     * @throws java.io.UncheckedIOException if they could not be written
+     */
+    void sync() {
+        if (dirty && force) {
+            buffer.force();
+        }
+        dirty = false;
+        synced = written;
+    }
+
+    /**
+     * Erases the records appended since the last successful {@link #sync()}, after it failed, so they
+     * are not replayed should the pages still reach the disk later.
+     */
+    void discard() {
+        int from = HEADER_SIZE + synced * RECORD_SIZE;
+        int to = HEADER_SIZE + written * RECORD_SIZE;
+        for (int position = from; position < to; position++) {
+            buffer.put(position, (byte) 0);
+        }
+        nextSequence -= written - synced;
+        written = synced;
+        dirty = false;
+    }
+
+    /**
+     * Deletes the full files whose records are all stored.
+     *
+     * @param sequence the sequence number of the last stored record
+     */
+    void stored(long sequence) throws IOException {
+        while (!sealed.isEmpty() && sealed.peekFirst().lastSequence() <= sequence) {
+            Files.deleteIfExists(sealed.removeFirst().path());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    /**
+     * The log files in the directory, in the order of their first records per shard.
+     */
+    static List<Path> files(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> FILE_NAME.matcher(path.getFileName().toString()).matches()).sorted().toList();
+        }
+    }
+
+    /**
+     * Reads the complete records of a log file.
+     */
+    static List<Logged> read(Path path) throws IOException {
+        List<Logged> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getInt(12) != RECORD_SIZE) {
+                throw new IOException(path + " is not a circulation log.");
+            }
+            int shard = header.getInt(8);
+            long expected = header.getLong(16);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            CRC32C checksum = new CRC32C();
+            Type[] types = Type.values();
+            for (long position = HEADER_SIZE; ; position += RECORD_SIZE, expected++) {
+                record.clear();
+                if (channel.read(record, position) < RECORD_SIZE) {
+                    break;
+                }
+                checksum.reset();
+                checksum.update(record.array(), 0, CHECKED_SIZE);
+                int type = record.getInt(32);
+                if (record.getLong(0) != expected || record.getInt(CHECKED_SIZE) != (int) checksum.getValue()
+                        || (type != COMMIT && (type < 0 || type >= types.length))) {
+                    break;
+                }
+                if (type == COMMIT) {
+                    records.add(new Logged(shard, expected, null, NO_COMMIT, 0));
+                    continue;
+                }
+                int dueDay = record.getInt(28);
+                CirculationEvent event = new CirculationEvent(shard, expected, types[type], record.getLong(8), record.getLong(16),
+                        LocalDate.ofEpochDay(record.getInt(24)), dueDay == CopyStateTable.NO_DAY ? null : LocalDate.ofEpochDay(dueDay));
+                records.add(new Logged(shard, expected, event, record.getInt(36), record.getLong(40)));
+            }
+        }
+        return records;
+    }
+
+    private long write(int type, long copyId, long userId, int day, int dueDay, int commitShard, long commitSequence) {
+        long sequence = nextSequence++;
+        record.clear();
+        record.putLong(sequence)
+                .putLong(copyId)
+                .putLong(userId)
+                .putInt(day)
+                .putInt(dueDay)
+                .putInt(type)
+                .putInt(commitShard)
+                .putLong(commitSequence)
+                .putInt(0);
+        checksum.reset();
+        checksum.update(record.array(), 0, CHECKED_SIZE);
+        record.putInt((int) checksum.getValue());
+        buffer.put(HEADER_SIZE + written * RECORD_SIZE, record.array(), 0, RECORD_SIZE);
+        written++;
+        dirty = true;
+        return sequence;
+    }
+
+    private void open() throws IOException {
+        path = directory.resolve(String.format("shard-%03d-%019d.wal", shard, nextSequence));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        buffer.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(8, shard)
+                .putInt(12, RECORD_SIZE)
+                .putLong(16, nextSequence);
+        written = 0;
+        synced = 0;
+        dirty = true;
+    }
+
+    private void seal() throws IOException {
+        sync();
+        channel.close();
+        // The mapping is released when the buffer is collected
+        sealed.addLast(new Sealed(path, nextSequence - 1));
+    }
+
+    private record Sealed(Path path, long lastSequence) {
+    }
+
+    /**
+     * A record read from a log file.
+     *
+     * @param event          the checkout or return, or {@code null} for a commit record
+     * @param commitShard    the shard of the commit record of the batch, or {@link #NO_COMMIT} if the
+     *                       record needs none
+     * @param commitSequence the sequence number of the commit record of the batch
+     */
+    record Logged(int shard, long sequence, CirculationEvent event, int commitShard, long commitSequence) {
+    }
+}
@@ -0,0 +1,377 @@
+package com.library.library_management.circulation;
+
+import com.library.library_management.circulation.CirculationEvent.Type;
+import com.library.library_management.config.CirculationEngineProperties;
+import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.CirculationPosition;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.User;
+import com.library.library_management.repository.BorrowingRepository;
+import com.library.library_management.repository.CirculationPositionRepository;
+import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.services.CatalogVersion;
+import com.library.library_management.services.CopyService;
+import com.library.library_management.services.HoldService;
+import com.library.library_management.services.OverdueService;
+import com.library.library_management.services.ServiceMetrics;
+import com.library.library_management.services.UserService;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the checkouts and returns decided by the {@link CirculationEngine} in the database, in the
+ * order they were logged, and starts the engine.
+ *
+ * <p>The events are stored in batches of up to {@code library.circulation.engine.projection-batch-size},
+ * each in one transaction together with the {@link CirculationPosition} of its shards, so a stored
+ * event is never stored twice. A checkout or return is stored the way {@code BorrowingService} stores
+ * it: the copy changes status through {@link CopyService}, a return serves the next hold and a
+ * checkout collects the patron's hold. An event the stored copy no longer allows, because the copy
+ * was changed elsewhere in the meantime, is dropped, logged and counted as a conflict. If a batch
+ * fails as a whole, its events are stored one by one up to the first that fails. That event and the
+ * ones after it are kept and retried with a growing delay, and no newer events are taken meanwhile,
+ * so a position never moves past an event that is not stored and its log file is kept.</p>
+ *
+ * <p>On startup the events logged after the stored positions are stored first, then the old log files
+ * are deleted and the engine is filled from the database, which takes the place of a snapshot. The
+ * state of the copies is read from the primary database even with read replicas configured, since
+ * a lagging replica would hand the engine copies as they were before their last checkout.</p>
+ */
+@Component
+@ConditionalOnProperty("library.circulation.engine.enabled")
+public class CirculationProjector {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationProjector.class);
+
+    /**
+     * The most IDs bound to one query reading the stored state of copies.
+     */
+    private static final int READ_CHUNK = 1_000;
+
+    private static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(1);
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final CirculationEngine engine;
+
+    private final CirculationEngineProperties properties;
+
+    private final CopyRepository copyRepository;
+
+    private final BorrowingRepository borrowingRepository;
+
+    private final CirculationPositionRepository positionRepository;
+
+    private final CopyService copyService;
+
+    private final HoldService holdService;
+
+    private final UserService userService;
+
+    private final OverdueService overdueService;
+
+    private final CatalogVersion catalogVersion;
+
+    private final TransactionTemplate transaction;
+
+    private final Counter checkoutConflicts;
+
+    private final Counter returnConflicts;
+
+    private volatile Thread thread;
+
+    private volatile boolean running;
+
+    /**
+     * Cut short a retry delay when the application shuts down.
+     */
+    private final CountDownLatch stopping = new CountDownLatch(1);
+
+    /**
+     * The events taken from the engine and not stored yet, oldest first. Only used by the projector
+     * thread, and on shutdown once it ended.
+     */
+    private final List<CirculationEvent> pending = new ArrayList<>();
+
+    /**
+     * The copies whose stored state is still to be handed to the engine, with the sequence number of
+     * their last stored event, or {@code 0} for copies changed elsewhere. Only used like {@link #pending}.
+     */
+    private final Map<Long, Long> unsettled = new HashMap<>();
+
+    public CirculationProjector(CirculationEngine engine, CirculationEngineProperties properties,
+                                CopyRepository copyRepository, BorrowingRepository borrowingRepository,
+                                CirculationPositionRepository positionRepository, CopyService copyService,
+                                HoldService holdService, UserService userService, OverdueService overdueService,
+                                CatalogVersion catalogVersion, PlatformTransactionManager transactionManager,
+                                ServiceMetrics metrics) {
+        this.engine = engine;
+        this.properties = properties;
+        this.copyRepository = copyRepository;
+        this.borrowingRepository = borrowingRepository;
+        this.positionRepository = positionRepository;
+        this.copyService = copyService;
+        this.holdService = holdService;
+        this.userService = userService;
+        this.overdueService = overdueService;
+        this.catalogVersion = catalogVersion;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.checkoutConflicts = metrics.circulationConflicts("checkout");
+        this.returnConflicts = metrics.circulationConflicts("return");
+    }
+
+    /**
+     * Stores what the log holds beyond the stored positions, fills the engine from the database and
+     * starts storing new events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            Map<Integer, Long> positions = positions();
+            List<CirculationEvent> unstored = engine.unstoredEvents(positions);
+            for (int from = 0; from < unstored.size(); from += properties.getProjectionBatchSize()) {
+                List<CirculationEvent> batch = unstored.subList(from, Math.min(unstored.size(), from + properties.getProjectionBatchSize()));
+                if (store(batch) < batch.size()) {
+                    throw new IllegalStateException("The circulation log could not be stored, see the log for the cause.");
+                }
+            }
+            if (!unstored.isEmpty()) {
+                log.info("Stored {} checkouts and returns replayed from the circulation log", unstored.size());
+                positions = positions();
+            }
+            List<CopyCirculation> copies = transaction.execute(status -> copyRepository.findCirculation());
+            engine.start(copies, positions);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Thread projector = new Thread(this::loop, "circulation-projector");
+        projector.setDaemon(true);
+        thread = projector;
+        running = true;
+        projector.start();
+    }
+
+    /**
+     * Stops the engine and stores the events it logged before the application shuts down. Events that
+     * cannot be stored now stay in the log and are stored on the next start.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread projector = thread;
+        engine.stop();
+        // Not interrupted, which would close the database files under a running transaction
+        running = false;
+        stopping.countDown();
+        if (projector != null) {
+            projector.join();
+        }
+        engine.drainEvents(pending, Integer.MAX_VALUE);
+        if (!pending.isEmpty() && store(pending) < pending.size()) {
+            log.warn("Left circulation events in the log to be stored on the next start");
+        }
+    }
+
+    private void loop() {
+        Duration delay = MIN_RETRY_DELAY;
+        while (running) {
+            try {
+                if (pending.isEmpty()) {
+                    CirculationEvent first = engine.pollEvent(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        settle(Map.of());
+                        continue;
+                    }
+                    pending.add(first);
+                    engine.drainEvents(pending, properties.getProjectionBatchSize() - 1);
+                }
+                int stored = store(pending);
+                pending.subList(0, stored).clear();
+                if (pending.isEmpty()) {
+                    delay = MIN_RETRY_DELAY;
+                } else {
+                    log.error("Could not store {} circulation events, retrying in {}", pending.size(), delay);
+                    stopping.await(delay.toMillis(), TimeUnit.MILLISECONDS);
+                    delay = delay.multipliedBy(2).compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay.multipliedBy(2);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Could not read the stored state of {} copies, retrying later", unsettled.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Stores the events in order and hands the stored state of their copies back to the engine.
+     *
+     * @return the number of events stored, from the first; the others are still to be stored
+     */
+    private int store(List<CirculationEvent> events) {
+        int stored = events.size();
+        try {
+            transaction.execute(status -> project(events)).forEach(type -> conflicts(type).increment());
+        } catch (RuntimeException e) {
+            log.warn("Could not store {} circulation events together, storing them one by one", events.size(), e);
+            stored = 0;
+            for (CirculationEvent event : events) {
+                try {
+                    transaction.execute(status -> project(List.of(event))).forEach(type -> conflicts(type).increment());
+                    stored++;
+                } catch (RuntimeException single) {
+                    log.error("Could not store the {} of copy {} at sequence {} of shard {}", event.type(),
+                            event.copyId(), event.sequence(), event.shard(), single);
+                    break;
+                }
+            }
+        }
+        Map<Long, Long> sequences = new HashMap<>();
+        Map<Integer, Long> positions = new HashMap<>();
+        for (CirculationEvent event : events.subList(0, stored)) {
+            sequences.merge(event.copyId(), event.sequence(), Math::max);
+            positions.merge(event.shard(), event.sequence(), Math::max);
+        }
+        try {
+            settle(sequences);
+        } catch (RuntimeException e) {
+            log.error("Could not read the stored state of {} copies, retrying later", unsettled.size(), e);
+        }
+        positions.forEach(engine::stored);
+        return stored;
+    }
+
+    /**
+     * @return the types of the dropped events
+     */
+    private List<Type> project(List<CirculationEvent> events) {
+        Set<Long> copyIds = new HashSet<>();
+        events.forEach(event -> copyIds.add(event.copyId()));
+        Map<Long, Copy> copies = new HashMap<>();
+        copyService.getAllById(copyIds).forEach(copy -> copies.put(copy.getId(), copy));
+        Map<Long, Borrowing> open = new HashMap<>();
+        borrowingRepository.findOpenByCopyIdIn(copyIds).forEach(borrowing -> open.put(borrowing.getCopy().getId(), borrowing));
+        Map<Long, User> users = new HashMap<>();
+        userService.getAllById(events.stream().filter(event -> event.type() == Type.CHECKOUT)
+                .map(CirculationEvent::userId).distinct().toList()).forEach(user -> users.put(user.getId(), user));
+        List<Type> dropped = new ArrayList<>();
+
+        for (CirculationEvent event : events) {
+            Copy copy = copies.get(event.copyId());
+            Borrowing loan = open.get(event.copyId());
+            String conflict;
+            if (event.type() == Type.CHECKOUT) {
+                conflict = checkOut(event, copy, loan, users);
+                if (conflict == null) {
+                    Borrowing borrowing = new Borrowing();
+                    borrowing.setUser(users.get(event.userId()));
+                    borrowing.setCopy(copy);
+                    borrowing.setBorrowDate(event.date());
+                    borrowing.setDueDate(event.dueDate() != null ? event.dueDate() : overdueService.dueDateFor(event.date()));
+                    copyService.changeStatus(copy, CopyStatus.Borrowed);
+                    Borrowing saved = borrowingRepository.save(borrowing);
+                    overdueService.loanChanged(saved);
+                    open.put(event.copyId(), saved);
+                }
+            } else {
+                conflict = loan == null ? "it is not on loan"
+                        : event.date().isBefore(loan.getBorrowDate()) ? "it was borrowed after the return date" : null;
+                if (conflict == null) {
+                    loan.setReturnDate(event.date());
+                    holdService.copyReturned(loan.getCopy());
+                    open.remove(event.copyId());
+                }
+            }
+            if (conflict != null) {
+                log.warn("Dropped the {} of copy {} at sequence {} of shard {}, as {}", event.type(), event.copyId(),
+                        event.sequence(), event.shard(), conflict);
+                dropped.add(event.type());
+            }
+        }
+        savePositions(events);
+        catalogVersion.changed();
+        return dropped;
+    }
+
+    /**
+     * @return why the stored copy cannot be checked out to the patron, or {@code null} if it can
+     */
+    private String checkOut(CirculationEvent event, Copy copy, Borrowing loan, Map<Long, User> users) {
+        if (!users.containsKey(event.userId())) {
+            return "the patron was deleted";
+        }
+        if (copy == null) {
+            return "the copy was deleted";
+        }
+        if (loan != null) {
+            return "the copy is on loan";
+        }
+        if (copy.getStatus() != CopyStatus.Available && !holdService.collect(copy, event.userId())) {
+            return "the copy is " + copy.getStatus().getName().toLowerCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    private void savePositions(List<CirculationEvent> events) {
+        Map<Integer, Long> last = new HashMap<>();
+        events.forEach(event -> last.merge(event.shard(), event.sequence(), Math::max));
+        last.forEach((shard, sequence) -> {
+            CirculationPosition position = positionRepository.findById(shard).orElseGet(() -> new CirculationPosition(shard));
+            position.setLastSequence(Math.max(position.getLastSequence(), sequence));
+            positionRepository.save(position);
+        });
+    }
+
+    /**
+     * Reads the stored state of the given copies, of the copies changed elsewhere and of the ones a
+     * previous call failed to read, and hands it to the engine.
+     */
+    private void settle(Map<Long, Long> sequences) {
+        sequences.forEach((copyId, sequence) -> unsettled.merge(copyId, sequence, Math::max));
+        engine.takeChangedCopies().forEach(copyId -> unsettled.putIfAbsent(copyId, 0L));
+        if (unsettled.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(unsettled.keySet());
+        List<Long> all = new ArrayList<>(ids);
+        List<CopyCirculation> stored = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += READ_CHUNK) {
+            List<Long> chunk = all.subList(from, Math.min(all.size(), from + READ_CHUNK));
+            stored.addAll(transaction.execute(status -> copyRepository.findCirculationByIdIn(chunk)));
+        }
+        stored.forEach(copy -> ids.remove(copy.copyId()));
+        engine.settle(Map.copyOf(unsettled), stored, ids);
+        unsettled.clear();
+    }
+
+    private Map<Integer, Long> positions() {
+        Map<Integer, Long> positions = new HashMap<>();
+        transaction.executeWithoutResult(status -> positionRepository.findAll()
+                .forEach(position -> positions.put(position.getShard(), position.getLastSequence())));
+        return positions;
+    }
+
+    private Counter conflicts(Type type) {
+        return type == Type.CHECKOUT ? checkoutConflicts : returnConflicts;
+    }
+}
@@ -0,0 +1,278 @@
+package com.library.library_management.circulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * One shard of the {@link CirculationEngine}: the copies whose ID falls to it, with their
+ * {@link CopyStateTable} and {@link CirculationLog}, and the only thread that touches either.
+ *
+ * <p>The thread takes the queued tasks in batches. It runs every task of a batch, forces the log once
+ * for all of them and only then completes them, so concurrent checkouts share one write to disk. The
+ * events of the tasks are handed to the projector only once their records are on disk.</p>
+ *
+ * <p>If the log cannot be forced, the changes of the tasks since the last successful force are undone
+ * in the table, their records are erased, their events dropped and the tasks failed, so a checkout
+ * reported as failed is neither applied nor stored. The shard then takes no more checkouts or returns
+ * until the application is restarted, since its log can no longer be trusted.</p>
+ */
+final class CirculationShard {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationShard.class);
+
+    /**
+     * The most tasks whose log records are forced together.
+     */
+    private static final int MAX_BATCH = 256;
+
+    private static final Task STOP = new Task() {
+        @Override
+        void run(CirculationShard shard) {
+        }
+    };
+
+    private final int index;
+
+    private final CopyStateTable table;
+
+    private final CirculationLog wal;
+
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+
+    private final Thread thread;
+
+    /**
+     * Where the events go once their records are on disk.
+     */
+    private final Collection<CirculationEvent> published;
+
+    /**
+     * The tasks run since the last force of the log, to be completed or failed by the next one.
+     */
+    private final List<Task> unsynced = new ArrayList<>();
+
+    /**
+     * The events logged since the last force of the log.
+     */
+    private final List<CirculationEvent> events = new ArrayList<>();
+
+    /**
+     * Restores the table as it was before the changes logged since the last force, in the order
+     * they were made.
+     */
+    private final List<Runnable> undo = new ArrayList<>();
+
+    private volatile Exception failure;
+
+    /**
+     * Set once {@link #STOP} is queued, after which tasks are failed instead of queued.
+     */
+    private boolean stopped;
+
+    CirculationShard(int index, CopyStateTable table, CirculationLog wal, Collection<CirculationEvent> published) {
+        this.index = index;
+        this.table = table;
+        this.wal = wal;
+        this.published = published;
+        this.thread = new Thread(this::loop, "circulation-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    int index() {
+        return index;
+    }
+
+    /**
+     * The state table, only to be used by a task running for this shard.
+     */
+    CopyStateTable table() {
+        return table;
+    }
+
+    /**
+     * The log, only to be used by a task running for this shard.
+     */
+    CirculationLog wal() {
+        return wal;
+    }
+
+    /**
+     * @throws IllegalStateException if the log of the shard failed
+     */
+    void checkAlive() {
+        if (failure != null) {
+            throw new IllegalStateException("The circulation log of shard " + index
+                    + " could not be written, the application must be restarted.", failure);
+        }
+    }
+
+    /**
+     * Records a change of the table made by a task of this shard, to be undone with the other changes
+     * since the last force if the log cannot be forced, and the event to publish once it is.
+     */
+    void logged(Runnable undoChange, CirculationEvent event) {
+        undo.add(undoChange);
+        if (event != null) {
+            events.add(event);
+        }
+    }
+
+    /**
+     * Forces the log, then publishes the events and completes the tasks logged so far. If it fails,
+     * runs the given rollback of changes made after those tasks, then undoes their changes and fails
+     * them, and the shard stops taking work.
+     *
+     * <p>Called by the thread of the shard, or by the thread running a batch of several shards while
+     * this shard waits for it.</p>
+     */
+    void sync(Runnable rollback) {
+        checkAlive();
+        try {
+            wal.sync();
+        } catch (RuntimeException e) {
+            if (rollback != null) {
+                rollback.run();
+            }
+            fail(e);
+            throw e;
+        }
+        published.addAll(events);
+        events.clear();
+        undo.clear();
+        unsynced.forEach(Task::complete);
+        unsynced.clear();
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a task, or fails it right away if the shard is stopping.
+     */
+    void submit(Task task) {
+        synchronized (this) {
+            if (!stopped) {
+                queue.add(task);
+                return;
+            }
+        }
+        task.fail(notRunning());
+    }
+
+    /**
+     * Runs the tasks queued so far, closes the log and ends the thread.
+     */
+    void stop() throws InterruptedException {
+        synchronized (this) {
+            if (!stopped) {
+                stopped = true;
+                queue.add(STOP);
+            }
+        }
+        thread.join();
+    }
+
+    private void loop() {
+        List<Task> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            batch.clear();
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            boolean stop = false;
+            for (Task task : batch) {
+                if (stop) {
+                    // Cannot happen while submit checks the flag, but a task must never be left waiting
+                    task.fail(notRunning());
+                    continue;
+                }
+                if (task == STOP) {
+                    stop = true;
+                    continue;
+                }
+                try {
+                    task.run(this);
+                    unsynced.add(task);
+                } catch (Exception e) {
+                    task.fail(e);
+                }
+            }
+            if (failure != null) {
+                unsynced.forEach(task -> task.fail(failure));
+                unsynced.clear();
+            } else {
+                try {
+                    sync(null);
+                } catch (RuntimeException e) {
+                    // Already failed the tasks
+                }
+            }
+            if (stop) {
+                try {
+                    wal.close();
+                } catch (IOException e) {
+                    log.warn("The circulation log of shard {} could not be closed", index, e);
+                }
+                return;
+            }
+        }
+    }
+
+    private static IllegalStateException notRunning() {
+        return new IllegalStateException("The circulation desk is not running, please try again in a moment.");
+    }
+
+    private void fail(Exception e) {
+        log.error("The circulation log of shard {} could not be forced to disk, the shard stops", index, e);
+        failure = e;
+        for (int i = undo.size() - 1; i >= 0; i--) {
+            undo.get(i).run();
+        }
+        undo.clear();
+        events.clear();
+        wal.discard();
+        unsynced.forEach(task -> task.fail(e));
+        unsynced.clear();
+    }
+
+    /**
+     * Work run by the thread of a shard. A task is completed after the log records it appended are
+     * forced to disk; a task that failed is not completed.
+     */
+    abstract static class Task {
+
+        private Exception failure;
+
+        abstract void run(CirculationShard shard) throws Exception;
+
+        void completed() {
+        }
+
+        void failed(Exception e) {
+        }
+
+        private void fail(Exception e) {
+            if (failure == null) {
+                failure = e;
+                failed(e);
+            }
+        }
+
+        private void complete() {
+            if (failure == null) {
+                completed();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.library_management.circulation;
+
+import com.library.library_management.entities.CopyStatus;
+
+import java.time.LocalDate;
+
+/**
+ * The stored circulation state of a copy, as the {@link CirculationEngine} keeps it in memory.
+ *
+ * @param copyId     the ID of the copy
+ * @param status     the status of the copy
+ * @param borrowerId the user of the open loan of the copy, or {@code null} if it is not on loan
+ * @param borrowDate the borrow date of the open loan, or {@code null} if it is not on loan
+ * @param holderId   the user of the ready hold the copy is reserved for, or {@code null} if there is none
+ */
+public record CopyCirculation(Long copyId, CopyStatus status, Long borrowerId, LocalDate borrowDate, Long holderId) {
+}
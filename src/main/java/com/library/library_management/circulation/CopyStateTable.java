@@ -0,0 +1,167 @@
+package com.library.library_management.circulation;
+
+import java.util.Arrays;
+
+/**
+ * The circulation state of the copies of one shard, in parallel primitive arrays indexed by an open
+ * addressing hash of the copy ID, so a lookup touches no objects and the table holds no boxed keys.
+ *
+ * <p>Per copy the table keeps its status as the {@link com.library.library_management.entities.CopyStatus#getCode()
+ * code} of a {@code CopyStatus} or {@link #RETURNING}, the user it is lent to or reserved for, the
+ * epoch day it was borrowed, and the sequence number of its last logged checkout or return that is
+ * not yet stored, or {@code 0}. Slots are probed linearly and freed by shifting the following entries
+ * back, so no tombstones build up. Not thread-safe: a table is only used by the thread of its shard.</p>
+ */
+final class CopyStateTable {
+
+    /**
+     * The status of a copy whose return is logged but not stored yet, which decides whether it goes
+     * back on the shelf or to a waiting hold.
+     */
+    static final byte RETURNING = 'r';
+
+    /**
+     * The borrow day of a copy that is not on loan, or whose loan was not made by the engine.
+     */
+    static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+
+    private byte[] statuses;
+
+    private long[] users;
+
+    private int[] days;
+
+    private long[] pending;
+
+    private int size;
+
+    CopyStateTable(int expected) {
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expected) * 2 - 1) << 1));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the slot of the copy, or {@code -1} if the table has no state for it
+     */
+    int find(long copyId) {
+        int mask = keys.length - 1;
+        for (int slot = slot(copyId, mask); ; slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == copyId) {
+                return slot;
+            }
+            if (key == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Stores the state of a copy, adding it if the table has none.
+     */
+    void put(long copyId, byte status, long user, int day) {
+        int slot = find(copyId);
+        if (slot < 0) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            slot = slot(copyId, mask);
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = copyId;
+            pending[slot] = 0;
+            size++;
+        }
+        statuses[slot] = status;
+        users[slot] = user;
+        days[slot] = day;
+    }
+
+    void remove(long copyId) {
+        int slot = find(copyId);
+        if (slot < 0) {
+            return;
+        }
+        int mask = keys.length - 1;
+        // Moves back every following entry of the run that could not be found past the freed slot
+        for (int next = (slot + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                statuses[slot] = statuses[next];
+                users[slot] = users[next];
+                days[slot] = days[next];
+                pending[slot] = pending[next];
+                slot = next;
+            }
+        }
+        keys[slot] = 0;
+        size--;
+    }
+
+    byte status(int slot) {
+        return statuses[slot];
+    }
+
+    long user(int slot) {
+        return users[slot];
+    }
+
+    int day(int slot) {
+        return days[slot];
+    }
+
+    long pending(int slot) {
+        return pending[slot];
+    }
+
+    void pending(int slot, long sequence) {
+        pending[slot] = sequence;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        byte[] oldStatuses = statuses;
+        long[] oldUsers = users;
+        int[] oldDays = days;
+        long[] oldPending = pending;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                statuses[slot] = oldStatuses[i];
+                users[slot] = oldUsers[i];
+                days[slot] = oldDays[i];
+                pending[slot] = oldPending[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        statuses = new byte[capacity];
+        users = new long[capacity];
+        days = new int[capacity];
+        Arrays.fill(days, NO_DAY);
+        pending = new long[capacity];
+    }
+
+    private static int slot(long copyId, int mask) {
+        long hash = copyId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,81 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Period;
+
+/**
+ * Settings of the archive of returned loans.
+ *
+ * <p>Bound from {@code library.archive.*}.</p>
+ */
+@ConfigurationProperties("library.archive")
+public class ArchiveProperties {
+
+    /**
+     * Whether returned loans are moved to the archive. Loans archived before stay readable either way.
+     */
+    private boolean enabled;
+
+    /**
+     * The directory of the archive segment files.
+     */
+    private Path directory = Path.of("database", "archive");
+
+    /**
+     * How long after its return date a loan stays in the database.
+     */
+    private Period minAge = Period.ofYears(2);
+
+    /**
+     * The most loans written to one segment file.
+     */
+    private int segmentSize = 100_000;
+
+    /**
+     * How often loans old enough are moved to the archive.
+     */
+    private Duration interval = Duration.ofDays(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public Period getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Period minAge) {
+        this.minAge = minAge;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+}
@@ -0,0 +1,59 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size and expiry settings of the Hibernate second-level cache regions.
+ *
+ * <p>Bound from {@code library.cache.regions.<region>.*}. Every region referenced by an entity,
+ * a collection or the query cache has to be listed here, otherwise Hibernate fails on startup.</p>
+ */
+@ConfigurationProperties("library.cache")
+public class CacheRegionProperties {
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * Settings of a single cache region.
+     */
+    public static class Region {
+
+        /**
+         * The maximum number of entries kept in the region.
+         */
+        private long maxSize = 1_000;
+
+        /**
+         * How long an entry stays cached after it was written, or {@code null} to never expire.
+         */
+        private Duration ttl;
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the loan, hold and circulation engine settings and the scheduled circulation jobs: overdue
+ * detection and the expiry of ready holds whose pickup deadline passed.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({LoanProperties.class, HoldProperties.class, CirculationEngineProperties.class})
+public class CirculationConfig {
+}
@@ -0,0 +1,95 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Settings of the in-memory circulation engine.
+ *
+ * <p>Bound from {@code library.circulation.engine.*}.</p>
+ */
+@ConfigurationProperties("library.circulation.engine")
+public class CirculationEngineProperties {
+
+    /**
+     * Whether desk checkouts and returns are decided in memory and stored afterwards. Otherwise they
+     * are stored in the request, as every other change.
+     */
+    private boolean enabled;
+
+    /**
+     * The directory of the write-ahead log files.
+     */
+    private Path directory = Path.of("database", "circulation");
+
+    /**
+     * The number of shards, each owning the copies whose ID falls to it and writing its own log.
+     */
+    private int shards = 4;
+
+    /**
+     * The size of one log file; a full file is replaced by a new one and deleted once it is stored.
+     */
+    private DataSize logSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Whether every group of log records is forced to disk before the desk is answered. Without it,
+     * checkouts survive a crash of the application but not one of the machine.
+     */
+    private boolean forceWrites = true;
+
+    /**
+     * The most checkouts and returns stored in one transaction.
+     */
+    private int projectionBatchSize = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public DataSize getLogSize() {
+        return logSize;
+    }
+
+    public void setLogSize(DataSize logSize) {
+        this.logSize = logSize;
+    }
+
+    public boolean isForceWrites() {
+        return forceWrites;
+    }
+
+    public void setForceWrites(boolean forceWrites) {
+        this.forceWrites = forceWrites;
+    }
+
+    public int getProjectionBatchSize() {
+        return projectionBatchSize;
+    }
+
+    public void setProjectionBatchSize(int projectionBatchSize) {
+        this.projectionBatchSize = projectionBatchSize;
+    }
+}
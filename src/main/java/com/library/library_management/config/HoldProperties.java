@@ -0,0 +1,40 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the hold queues.
+ *
+ * <p>Bound from {@code library.holds.*}.</p>
+ */
+@ConfigurationProperties("library.holds")
+public class HoldProperties {
+
+    /**
+     * How long a returned copy stays reserved for the patron whose hold it was assigned to.
+     */
+    private Duration pickupPeriod = Duration.ofDays(3);
+
+    /**
+     * How often ready holds are checked for a passed pickup deadline.
+     */
+    private Duration expiryCheckInterval = Duration.ofMinutes(1);
+
+    public Duration getPickupPeriod() {
+        return pickupPeriod;
+    }
+
+    public void setPickupPeriod(Duration pickupPeriod) {
+        this.pickupPeriod = pickupPeriod;
+    }
+
+    public Duration getExpiryCheckInterval() {
+        return expiryCheckInterval;
+    }
+
+    public void setExpiryCheckInterval(Duration expiryCheckInterval) {
+        this.expiryCheckInterval = expiryCheckInterval;
+    }
+}
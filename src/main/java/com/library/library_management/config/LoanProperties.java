@@ -0,0 +1,67 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.Period;
+
+/**
+ * Settings of loans and their overdue detection.
+ *
+ * <p>Bound from {@code library.loans.*}.</p>
+ */
+@ConfigurationProperties("library.loans")
+public class LoanProperties {
+
+    /**
+     * The loan period, from the borrow date to the due date of a new loan.
+     */
+    private Period loanPeriod = Period.ofDays(21);
+
+    /**
+     * How long after the due date the copy of a loan that is still not returned is marked as lost.
+     */
+    private Period lostAfter = Period.ofDays(60);
+
+    /**
+     * How many days ahead the overdue scheduler keeps upcoming due dates in memory.
+     */
+    private int wheelDays = 64;
+
+    /**
+     * How often the overdue scheduler checks whether the day changed.
+     */
+    private Duration overdueCheckInterval = Duration.ofMinutes(10);
+
+    public Period getLoanPeriod() {
+        return loanPeriod;
+    }
+
+    public void setLoanPeriod(Period loanPeriod) {
+        this.loanPeriod = loanPeriod;
+    }
+
+    public Period getLostAfter() {
+        return lostAfter;
+    }
+
+    public void setLostAfter(Period lostAfter) {
+        this.lostAfter = lostAfter;
+    }
+
+    public int getWheelDays() {
+        return wheelDays;
+    }
+
+    public void setWheelDays(int wheelDays) {
+        this.wheelDays = wheelDays;
+    }
+
+    public Duration getOverdueCheckInterval() {
+        return overdueCheckInterval;
+    }
+
+    public void setOverdueCheckInterval(Duration overdueCheckInterval) {
+        this.overdueCheckInterval = overdueCheckInterval;
+    }
+}
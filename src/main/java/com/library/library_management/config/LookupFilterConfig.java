@@ -0,0 +1,13 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the settings of the lookup filters. Their periodic check runs on the scheduler enabled by
+ * {@link CirculationConfig}.
+ */
+@Configuration
+@EnableConfigurationProperties(LookupFilterProperties.class)
+public class LookupFilterConfig {
+}
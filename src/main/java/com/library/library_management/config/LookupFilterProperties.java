@@ -0,0 +1,41 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory filters that answer lookups of values that do not exist without a query.
+ *
+ * <p>Bound from {@code library.lookup-filter.*}.</p>
+ */
+@ConfigurationProperties("library.lookup-filter")
+public class LookupFilterProperties {
+
+    /**
+     * The rate of lookups of missing values that still go to the database, right after a rebuild.
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * How often the filters are checked and rebuilt once they have drifted to twice the configured
+     * rate, from values added beyond their size or changed since the last rebuild.
+     */
+    private Duration checkInterval = Duration.ofMinutes(10);
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+}
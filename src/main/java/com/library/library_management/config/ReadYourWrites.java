@@ -0,0 +1,92 @@
+package com.library.library_management.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Keeps a client on the primary for a short time after it wrote, so the page it loads next
+ * already shows its change even if the replica has not caught up yet.
+ *
+ * <p>When a read-write transaction commits on a request thread, the rest of the request is pinned
+ * to the primary and the response carries a cookie with the end of the window; requests that send
+ * the cookie back before then are pinned as well. The usual post/redirect/get of a checkout form
+ * therefore reads the checkout from the primary. A zero window turns pinning off.</p>
+ */
+public class ReadYourWrites extends OncePerRequestFilter implements TransactionExecutionListener {
+
+    static final String COOKIE = "LIBRARY_PRIMARY_UNTIL";
+
+    private final Duration window;
+
+    private final ThreadLocal<HttpServletResponse> response = new ThreadLocal<>();
+
+    private final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+    public ReadYourWrites(Duration window) {
+        this.window = window;
+    }
+
+    /**
+     * Checks if reads of the current thread have to go to the primary.
+     */
+    public boolean isPinned() {
+        return Boolean.TRUE.equals(pinned.get());
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        HttpServletResponse current = response.get();
+        // Outside a request, e.g. on a scheduler thread, there is nobody to pin
+        if (current == null || commitFailure != null || transaction.isReadOnly() || window.isZero()) {
+            return;
+        }
+        pinned.set(true);
+        if (!current.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            current.addCookie(cookie);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        this.response.set(response);
+        if (wroteRecently(request)) {
+            pinned.set(true);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            this.response.remove();
+            pinned.remove();
+        }
+    }
+
+    private static boolean wroteRecently(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
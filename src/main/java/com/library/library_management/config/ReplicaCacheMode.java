@@ -0,0 +1,59 @@
+package com.library.library_management.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps what transactions read from the replica out of the second-level and query caches.
+ *
+ * <p>A replica may lag behind the primary, and an entity or query result it returns would stay in
+ * the shared caches until it is evicted, so every later read on the primary would see the old state
+ * as well. A transaction that {@link ReplicaRoutingDataSource} sends to the replica therefore uses
+ * {@link CacheStoreMode#BYPASS}: it still reads from the caches, but does not put anything into
+ * them. The store mode is set as a property of the entity manager, which {@code find} reads as well
+ * as queries, and the previous one is restored when the transaction completes, since with
+ * open-in-view the entity manager outlives it.</p>
+ */
+public class ReplicaCacheMode implements TransactionExecutionListener {
+
+    private static final String STORE_MODE = AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaCacheMode(EntityManagerFactory entityManagerFactory, ReadYourWrites readYourWrites) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        // The same condition as the routing, which is decided later when the first statement runs
+        if (beginFailure != null || !transaction.isNewTransaction() || !transaction.isReadOnly()
+                || readYourWrites.isPinned() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager == null) {
+            return;
+        }
+        Object previous = entityManager.getProperties().getOrDefault(STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (entityManager.isOpen()) {
+                    entityManager.setProperty(STORE_MODE, previous);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.library.library_management.config;
+
+import com.library.library_management.config.ReplicaRoutingDataSource.Route;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Splits database access between the primary and a read replica.
+ *
+ * <p>Active when {@code library.datasource.replica.url} is set. The primary pool is built from the
+ * usual {@code spring.datasource.*} settings and the replica pool from
+ * {@code library.datasource.replica.*}. Transactions marked {@code readOnly} read from the replica;
+ * everything else, including lazy loading while a view renders, uses the primary. For
+ * {@code library.datasource.read-your-writes} after a write, the client's reads stay on the primary,
+ * see {@link ReadYourWrites}. What is read from the replica is not put into the second-level and query
+ * caches, see {@link ReplicaCacheMode}.</p>
+ *
+ * <p>Hibernate is switched to acquiring a connection per transaction and releasing it at the end,
+ * instead of holding the first one for the whole request, so every transaction of a request is
+ * routed on its own.</p>
+ */
+@Configuration
+@ConditionalOnProperty("library.datasource.replica.url")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("library.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(ReplicaRoutingProperties properties) {
+        return properties.getReplica().initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(ReplicaRoutingProperties properties) {
+        return new ReadYourWrites(properties.getReadYourWrites());
+    }
+
+    @Bean
+    public ReplicaCacheMode replicaCacheMode(EntityManagerFactory entityManagerFactory, ReadYourWrites readYourWrites) {
+        return new ReplicaCacheMode(entityManagerFactory, readYourWrites);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica, ReadYourWrites readYourWrites) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(readYourWrites);
+        routing.setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer connectionPerTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.library_management.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to the replica and all others to the primary.
+ *
+ * <p>The route is decided when a connection is requested, so the data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} and Hibernate must
+ * acquire the connection at the first statement, once the transaction's read-only flag is set.
+ * While {@link ReadYourWrites} pins the current request to the primary, read-only transactions go
+ * there as well.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingDataSource(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !readYourWrites.isPinned()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,45 @@
+package com.library.library_management.config;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+import java.time.Duration;
+
+/**
+ * Settings of the primary/replica routing.
+ *
+ * <p>Bound from {@code library.datasource.*}. The replica's pool settings are bound from
+ * {@code library.datasource.replica.hikari.*} onto the pool itself.</p>
+ */
+@ConfigurationProperties("library.datasource")
+public class ReplicaRoutingProperties {
+
+    /**
+     * Connection settings of the replica, as {@code spring.datasource.*} for the primary.
+     */
+    @NestedConfigurationProperty
+    private DataSourceProperties replica = new DataSourceProperties();
+
+    /**
+     * How long a client reads from the primary after one of its requests wrote, or zero to always
+     * read from the replica.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    public DataSourceProperties getReplica() {
+        return replica;
+    }
+
+    public void setReplica(DataSourceProperties replica) {
+        this.replica = replica;
+    }
+
+    public Duration getReadYourWrites() {
+        return readYourWrites;
+    }
+
+    public void setReadYourWrites(Duration readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.library_management.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+
+/**
+ * Configures the local Caffeine cache behind Hibernate's second-level and query cache.
+ *
+ * <p>The JCache regions are created programmatically from {@link CacheRegionProperties}, so each
+ * entity gets its own size bound and time-to-live from {@code application.properties}, and the
+ * resulting {@link CacheManager} is handed to Hibernate's JCache region factory.</p>
+ */
+@Configuration
+@EnableConfigurationProperties(CacheRegionProperties.class)
+public class SecondLevelCacheConfig {
+
+    private static final URI CACHE_MANAGER_URI = URI.create("library-second-level-cache");
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(CacheRegionProperties properties) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(CACHE_MANAGER_URI, getClass().getClassLoader());
+
+        properties.getRegions().forEach((name, region) -> {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(region.getMaxSize()));
+            if (region.getTtl() != null && !region.getTtl().isZero()) {
+                configuration.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+            }
+            configuration.setStatisticsEnabled(true);
+            if (cacheManager.getCache(name) == null) {
+                cacheManager.createCache(name, configuration);
+            }
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.library_management.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting hit and miss counts of the Hibernate second-level cache.
+ *
+ * <p>Available at {@code /actuator/cachestats} once it is exposed through
+ * {@code management.endpoints.web.exposure.include}.</p>
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class SecondLevelCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, Map.of(
+                        "hits", region.getHitCount(),
+                        "misses", region.getMissCount(),
+                        "puts", region.getPutCount()));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        result.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        result.put("regions", regions);
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package com.library.library_management.config;
+
+import com.library.library_management.controllers.CatalogConditionalGetInterceptor;
+import com.library.library_management.services.CatalogVersion;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the conditional GET handling for the pages that only show catalog and circulation data.
+ *
+ * <p>Only pages whose content is fully covered by {@link CatalogVersion} may be listed here; forms
+ * and pages of a single patron are rendered on every request. With {@link ReplicaRoutingConfig}
+ * active, a request reads its pages from the replica unless {@link ReadYourWrites} pins it to the
+ * primary.</p>
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CatalogVersion catalogVersion;
+
+    private final ReadYourWrites readYourWrites;
+
+    public WebConfig(CatalogVersion catalogVersion, ObjectProvider<ReadYourWrites> readYourWrites) {
+        this.catalogVersion = catalogVersion;
+        this.readYourWrites = readYourWrites.getIfAvailable();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new CatalogConditionalGetInterceptor(catalogVersion,
+                        () -> readYourWrites != null && !readYourWrites.isPinned()))
+                .addPathPatterns("/user/books", "/user/available-books",
+                        "/books", "/copies", "/borrowings", "/persons", "/librarians", "/publishers",
+                        "/api/v1/**");
+    }
+}
@@ -0,0 +1,95 @@
+package com.library.library_management.controllers;
+
+import com.library.library_management.services.CatalogVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Answers conditional GETs of the catalog and list pages from the {@link CatalogVersion}.
+ *
+ * <p>A request whose {@code If-None-Match} or {@code If-Modified-Since} still matches the current
+ * version gets a 304 before its controller runs, so neither the database nor the template engine is
+ * touched. A page that renders gets the ETag and Last-Modified of the version read before its
+ * controller ran, together with {@code Cache-Control: no-cache} so that browsers revalidate on every
+ * visit instead of guessing a lifetime. Error pages get no validators, so a failure is never
+ * confirmed with a 304 later.</p>
+ *
+ * <p>A page read from a replica gets no validators either: the version moves when the primary
+ * commits, and a lagging replica may still return the old rows, which would then be confirmed under
+ * the new tag until the next change. Such a request is still answered with 304 when the client's tag
+ * is current, since every tag was handed out with a page read from the primary.</p>
+ */
+public class CatalogConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final String VALIDATORS = CatalogConditionalGetInterceptor.class.getName() + ".validators";
+
+    private final CatalogVersion catalogVersion;
+
+    private final BooleanSupplier readsFromReplica;
+
+    /**
+     * @param readsFromReplica whether the pages of the current request are read from a replica
+     */
+    public CatalogConditionalGetInterceptor(CatalogVersion catalogVersion, BooleanSupplier readsFromReplica) {
+        this.catalogVersion = catalogVersion;
+        this.readsFromReplica = readsFromReplica;
+    }
+
+    /**
+     * The validators of a page that its handler writes itself, such as a streamed body, which is sent
+     * after {@code postHandle} would run. Empty if the page gets none.
+     */
+    public static HttpHeaders validators(HttpServletRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        if (request.getAttribute(VALIDATORS) instanceof Validators validators) {
+            headers.setETag(validators.etag());
+            headers.setLastModified(validators.lastModified());
+            headers.setCacheControl(CacheControl.noCache());
+        }
+        return headers;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        Validators validators = new Validators(catalogVersion.etag(), catalogVersion.lastModified());
+        // Without the response, the check leaves the headers to this class
+        if (new ServletWebRequest(request).checkNotModified(validators.etag(), validators.lastModified())) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            validators.addTo(response);
+            return false;
+        }
+        if (!readsFromReplica.getAsBoolean()) {
+            request.setAttribute(VALIDATORS, validators);
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (request.getAttribute(VALIDATORS) instanceof Validators validators) {
+            validators.addTo(response);
+        }
+    }
+
+    private record Validators(String etag, long lastModified) {
+
+        void addTo(HttpServletResponse response) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+    }
+}
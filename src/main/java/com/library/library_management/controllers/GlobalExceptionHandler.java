@@ -1,5 +1,6 @@
 package com.library.library_management.controllers;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -19,6 +20,12 @@ public class GlobalExceptionHandler {
         return "error/error-page";
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public String handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, Model model) {
+        model.addAttribute("errorMessage", "The record was changed by someone else. Reload it and try again.");
+        return "error/error-page";
+    }
+
     @ExceptionHandler(Exception.class)
     public String handleGenericException(Exception ex, Model model) {
         model.addAttribute("errorMessage", "An error occurred. Please try later.");
@@ -1,17 +1,18 @@
 package com.library.library_management.controllers.admin;
 
+import com.library.library_management.dto.BookRow;
 import com.library.library_management.entities.Book;
 import com.library.library_management.services.BookService;
 import com.library.library_management.services.PublisherService;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
 import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
-import org.springframework.ui.Model;
-
-import java.util.List;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
 
 @Controller
 @RequestMapping("/books")
@@ -27,9 +28,10 @@ public class BookController {
     }
 
     @GetMapping
-    public String showBooks(Model model) {
-        List<Book> books = bookService.getAll();
-        model.addAttribute("books", books);
+    public String showBooks(@ModelAttribute("pageQuery") PageQuery query, Model model) {
+        KeysetPage<BookRow> page = bookService.getPage(query);
+        model.addAttribute("page", page);
+        model.addAttribute("books", page.content());
         return "admin/views/view-book";
     }
 
@@ -1,14 +1,19 @@
 package com.library.library_management.controllers.admin;
 
+import com.library.library_management.dto.BorrowingRow;
 import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Copy;
 import com.library.library_management.entities.CopyStatus;
 import com.library.library_management.services.BorrowingService;
 import com.library.library_management.services.CopyService;
 import com.library.library_management.services.UserService;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
@@ -26,9 +31,10 @@ public class BorrowingController {
     }
 
     @GetMapping
-    public String showBorrowings(Model model) {
-        List<Borrowing> borrowings = borrowingService.getAll();
-        model.addAttribute("borrowings", borrowings);
+    public String showBorrowings(@ModelAttribute("pageQuery") PageQuery query, Model model) {
+        KeysetPage<BorrowingRow> page = borrowingService.getPage(query);
+        model.addAttribute("page", page);
+        model.addAttribute("borrowings", page.content());
         return "admin/views/view-borrowing";
     }
 
@@ -41,8 +47,11 @@ public class BorrowingController {
     @GetMapping("/add")
     public String showAddForm(Model model) {
         model.addAttribute("borrowing", new Borrowing());
-        model.addAttribute("persons", userService.getAll());
-        model.addAttribute("copies", copyService.getByStatus(CopyStatus.Available.getName()));
+        model.addAttribute("users", userService.getAll());
+        List<Copy> copies = new ArrayList<>(copyService.getByStatus(CopyStatus.Available));
+        // Copies held for a patron are checked out when the patron comes to collect them
+        copies.addAll(copyService.getByStatus(CopyStatus.Reserved));
+        model.addAttribute("copies", copies);
         return "admin/adds/add-borrowing";
     }
 
@@ -68,7 +77,7 @@ public class BorrowingController {
     @GetMapping("/update/{id}")
     public String showUpdateForm(@PathVariable("id") Long id, Model model) {
         model.addAttribute("borrowing", borrowingService.getById(id));
-        model.addAttribute("persons", userService.getAll());
+        model.addAttribute("users", userService.getAll());
         model.addAttribute("copies", copyService.getAll());
         model.addAttribute("statuses", CopyStatus.values());
         return "admin/updates/update-borrowing";
@@ -1,16 +1,17 @@
 package com.library.library_management.controllers.admin;
 
+import com.library.library_management.dto.CopyRow;
 import com.library.library_management.entities.Copy;
 import com.library.library_management.entities.CopyStatus;
 import com.library.library_management.repository.CopyRepository;
 import com.library.library_management.services.BookService;
 import com.library.library_management.services.CopyService;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @Controller
 @RequestMapping("/copies")
 public class CopyController {
@@ -27,9 +28,10 @@ public class CopyController {
     }
 
     @GetMapping
-    public String showCopies(Model model) {
-        List<Copy> copies = copyService.getAll();
-        model.addAttribute("copies", copies);
+    public String showCopies(@ModelAttribute("pageQuery") PageQuery query, Model model) {
+        KeysetPage<CopyRow> page = copyService.getPage(query);
+        model.addAttribute("page", page);
+        model.addAttribute("copies", page.content());
         return "admin/views/view-copy";
     }
 
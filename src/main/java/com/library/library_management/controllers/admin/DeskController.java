@@ -0,0 +1,93 @@
+package com.library.library_management.controllers.admin;
+
+import com.library.library_management.services.BorrowingService;
+import com.library.library_management.services.CirculationBatchException;
+import com.library.library_management.services.UserService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The circulation desk: checks out or returns all copies a patron brings at once.
+ *
+ * <p>The copy IDs are entered as a list, as a scanner types them. A rejected batch is shown again with
+ * the reason for every copy that failed, so the librarian can remove those and submit the rest.</p>
+ */
+@Controller
+@RequestMapping("/desk")
+public class DeskController {
+
+    private final BorrowingService borrowingService;
+
+    private final UserService userService;
+
+    public DeskController(BorrowingService borrowingService, UserService userService) {
+        this.borrowingService = borrowingService;
+        this.userService = userService;
+    }
+
+    @GetMapping
+    public String showDesk(Model model) {
+        return desk(model, null, "", LocalDate.now());
+    }
+
+    @PostMapping("/checkout")
+    public String checkOut(@RequestParam("userId") Long userId, @RequestParam("copyIds") String copyIds,
+                           @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                           Model model) {
+        try {
+            borrowingService.checkOut(userId, parseCopyIds(copyIds), date);
+        } catch (CirculationBatchException e) {
+            model.addAttribute("failure", e);
+            return desk(model, userId, copyIds, date);
+        }
+        return "redirect:/borrowings";
+    }
+
+    @PostMapping("/return")
+    public String returnAll(@RequestParam("copyIds") String copyIds,
+                            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                            Model model) {
+        try {
+            borrowingService.returnAll(parseCopyIds(copyIds), date);
+        } catch (CirculationBatchException e) {
+            model.addAttribute("failure", e);
+            return desk(model, null, copyIds, date);
+        }
+        return "redirect:/borrowings";
+    }
+
+    private String desk(Model model, Long userId, String copyIds, LocalDate date) {
+        model.addAttribute("users", userService.getAll());
+        model.addAttribute("userId", userId);
+        model.addAttribute("copyIds", copyIds);
+        model.addAttribute("date", date);
+        return "admin/desk";
+    }
+
+    /**
+     * Splits the entered copy IDs at whitespace and commas.
+     */
+    private static List<Long> parseCopyIds(String copyIds) {
+        List<Long> ids = new ArrayList<>();
+        for (String id : copyIds.trim().split("[\\s,]+")) {
+            if (id.isEmpty()) {
+                continue;
+            }
+            try {
+                ids.add(Long.valueOf(id));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + id + "' is not a copy ID.");
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.library_management.controllers.admin;
+
+import com.library.library_management.exports.CirculationExportService;
+import com.library.library_management.exports.ExportFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Streams exports as file downloads. The response is written on an async request thread while the rows
+ * are read, so nothing is buffered in between.
+ */
+@Controller
+@RequestMapping("/export")
+public class ExportController {
+
+    private final CirculationExportService exportService;
+
+    public ExportController(CirculationExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/borrowings")
+    public ResponseEntity<StreamingResponseBody> exportBorrowings(
+            @RequestParam(value = "format", defaultValue = "CSV") ExportFormat format) {
+        return download("borrowings", format, output -> exportService.exportBorrowings(format, output));
+    }
+
+    @GetMapping("/copies")
+    public ResponseEntity<StreamingResponseBody> exportCopies(
+            @RequestParam(value = "format", defaultValue = "CSV") ExportFormat format) {
+        return download("copies", format, output -> exportService.exportCopies(format, output));
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(String name, ExportFormat format, StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + "-" + LocalDate.now() + "." + format.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .body(body);
+    }
+}
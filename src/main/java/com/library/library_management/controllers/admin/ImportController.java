@@ -0,0 +1,44 @@
+package com.library.library_management.controllers.admin;
+
+import com.library.library_management.imports.CatalogFormat;
+import com.library.library_management.imports.CatalogImportService;
+import com.library.library_management.imports.CatalogRecordReader;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+@Controller
+@RequestMapping("/import")
+public class ImportController {
+
+    private final CatalogImportService importService;
+
+    public ImportController(CatalogImportService importService) {
+        this.importService = importService;
+    }
+
+    @GetMapping
+    public String showImportForm(Model model) {
+        model.addAttribute("formats", CatalogFormat.values());
+        return "admin/import";
+    }
+
+    @PostMapping
+    public String importCatalog(@RequestParam("file") MultipartFile file,
+                                @RequestParam("format") CatalogFormat format, Model model) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Choose a file to import.");
+        }
+        try (CatalogRecordReader reader = format.open(file.getInputStream())) {
+            model.addAttribute("report", importService.importCatalog(reader));
+        }
+        model.addAttribute("formats", CatalogFormat.values());
+        return "admin/import";
+    }
+}
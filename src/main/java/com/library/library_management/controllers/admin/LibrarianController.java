@@ -1,5 +1,6 @@
 package com.library.library_management.controllers.admin;
 
+import com.library.library_management.dto.LibrarianRow;
 import com.library.library_management.entities.Librarian;
 import com.library.library_management.entities.User;
 import com.library.library_management.services.LibrarianService;
@@ -25,7 +26,7 @@ public class LibrarianController {
     
     @GetMapping
     public String showLibrarians(Model model) {
-        List<Librarian> librarians = librarianService.getAll();
+        List<LibrarianRow> librarians = librarianService.getRows();
         model.addAttribute("librarians", librarians);
         return "admin/views/view-librarian";
     }
@@ -2,12 +2,12 @@ package com.library.library_management.controllers.admin;
 
 import com.library.library_management.entities.User;
 import com.library.library_management.services.UserService;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @Controller
 @RequestMapping("/persons")
 public class UserController {
@@ -19,9 +19,10 @@ public class UserController {
     }
 
     @GetMapping
-    public String showPersons(Model model) {
-        List<User> users = userService.getAll();
-        model.addAttribute("persons", users);
+    public String showPersons(@ModelAttribute("pageQuery") PageQuery query, Model model) {
+        KeysetPage<User> page = userService.getPage(query);
+        model.addAttribute("page", page);
+        model.addAttribute("persons", page.content());
         return "admin/views/view-person";
     }
 
@@ -0,0 +1,74 @@
+package com.library.library_management.controllers.api;
+
+import com.library.library_management.api.ApiPageRequest;
+import com.library.library_management.api.ApiQuery;
+import com.library.library_management.api.ApiQueryService;
+import com.library.library_management.api.ApiResource;
+import com.library.library_management.api.ApiResources;
+import com.library.library_management.controllers.CatalogConditionalGetInterceptor;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+/**
+ * Read-only JSON API over the catalog and the loans, for kiosks and the public catalog front end.
+ *
+ * <p>Every collection takes the {@link ApiPageRequest} parameters: {@code fields} to return only some
+ * fields, {@code sort}, {@code direction}, {@code size} and the {@code cursor} of the previous page.
+ * The pages are streamed to the client as they are read.</p>
+ *
+ * <p>Conditional requests are answered with 304 by the {@link CatalogConditionalGetInterceptor}. A
+ * streamed body is written after the interceptor's {@code postHandle} would run, so the validators the
+ * interceptor read before the handler ran are set here.</p>
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class CatalogApiController {
+
+    private final ApiQueryService apiQueryService;
+
+    public CatalogApiController(ApiQueryService apiQueryService) {
+        this.apiQueryService = apiQueryService;
+    }
+
+    @GetMapping("/books")
+    public ResponseEntity<StreamingResponseBody> books(ApiPageRequest request, HttpServletRequest servletRequest) {
+        return page(ApiResources.BOOKS, request, Map.of(), servletRequest);
+    }
+
+    @GetMapping("/copies")
+    public ResponseEntity<StreamingResponseBody> copies(@RequestParam(value = "bookId", required = false) Long bookId,
+                                                        ApiPageRequest request, HttpServletRequest servletRequest) {
+        return bookId == null
+                ? page(ApiResources.COPIES, request, Map.of(), servletRequest)
+                : page(ApiResources.BOOK_COPIES, request, Map.of("bookId", bookId), servletRequest);
+    }
+
+    @GetMapping("/availability")
+    public ResponseEntity<StreamingResponseBody> availability(ApiPageRequest request, HttpServletRequest servletRequest) {
+        return page(ApiResources.AVAILABILITY, request, Map.of(), servletRequest);
+    }
+
+    @GetMapping("/users/{id}/borrowings")
+    public ResponseEntity<StreamingResponseBody> borrowings(@PathVariable("id") Long id, ApiPageRequest request,
+                                                            HttpServletRequest servletRequest) {
+        return page(ApiResources.USER_BORROWINGS, request, Map.of("userId", id), servletRequest);
+    }
+
+    private ResponseEntity<StreamingResponseBody> page(ApiResource resource, ApiPageRequest request,
+                                                       Map<String, Object> parameters, HttpServletRequest servletRequest) {
+        ApiQuery query = apiQueryService.prepare(resource, request, parameters);
+        return ResponseEntity.ok()
+                .headers(CatalogConditionalGetInterceptor.validators(servletRequest))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(query::write);
+    }
+}
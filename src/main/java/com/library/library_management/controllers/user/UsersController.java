@@ -3,14 +3,24 @@ package com.library.library_management.controllers.user;
 
 import com.library.library_management.entities.Book;
 import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Hold;
+import com.library.library_management.search.CatalogSearchIndex;
+import com.library.library_management.search.SearchHit;
 import com.library.library_management.services.BookService;
 import com.library.library_management.services.BorrowingService;
+import com.library.library_management.services.HoldService;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,13 +28,22 @@ import java.util.Map;
 @RequestMapping("/user")
 public class UsersController {
 
+    private static final int SEARCH_LIMIT = 50;
+
     private final BorrowingService borrowingService;
 
     private final BookService bookService;
 
-    public UsersController(BorrowingService borrowingService, BookService bookService) {
+    private final CatalogSearchIndex catalogSearchIndex;
+
+    private final HoldService holdService;
+
+    public UsersController(BorrowingService borrowingService, BookService bookService, CatalogSearchIndex catalogSearchIndex,
+                           HoldService holdService) {
         this.borrowingService = borrowingService;
         this.bookService = bookService;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.holdService = holdService;
     }
 
     @GetMapping("/{id}")
@@ -34,9 +53,15 @@ public class UsersController {
     }
 
     @GetMapping("/books")
-    public String showAllBooks(Model model) {
-        List<Book> books = bookService.getAll();
-        model.addAttribute("books", books);
+    public String showAllBooks(@RequestParam(value = "q", required = false) String query, Model model) {
+        if (query != null && !query.isBlank()) {
+            List<SearchHit> hits = catalogSearchIndex.search(query, SEARCH_LIMIT);
+            model.addAttribute("query", query);
+            model.addAttribute("hits", hits);
+        } else {
+            List<Book> books = bookService.getAll();
+            model.addAttribute("books", books);
+        }
         return "user/views/view-book.html";
     }
 
@@ -49,12 +74,41 @@ public class UsersController {
    }
 
     @GetMapping("/{id}/borrowings")
-    public String showUsersBorrowings(@PathVariable("id") Long userId, Model model) {
-        List<Borrowing> borrowings = borrowingService.getByUserId(userId);
-        model.addAttribute("borrowings", borrowings);
+    public String showUsersBorrowings(@PathVariable("id") Long userId, @ModelAttribute("pageQuery") PageQuery query,
+                                      Model model) {
+        // The current loans in full on every page, the returned ones paged
+        List<Borrowing> current = borrowingService.getOpenByUserId(userId);
+        KeysetPage<Borrowing> page = borrowingService.getReturnedPage(userId, query);
+        model.addAttribute("current", current);
+        model.addAttribute("page", page);
+        model.addAttribute("returned", page.content());
         model.addAttribute("userId", userId);
         return "user/views/view-borrowings.html";
     }
+
+    @GetMapping("/{id}/holds")
+    public String showUsersHolds(@PathVariable("id") Long userId, Model model) {
+        List<Hold> holds = holdService.getByUserId(userId);
+        Map<Long, Integer> positions = new HashMap<>();
+        holds.forEach(hold -> positions.put(hold.getId(), holdService.getQueuePosition(hold)));
+        model.addAttribute("holds", holds);
+        model.addAttribute("positions", positions);
+        model.addAttribute("books", bookService.getAll());
+        model.addAttribute("userId", userId);
+        return "user/views/view-holds.html";
+    }
+
+    @PostMapping("/{id}/holds")
+    public String placeHold(@PathVariable("id") Long userId, @RequestParam("bookId") Long bookId) {
+        holdService.place(userId, bookId);
+        return "redirect:/user/" + userId + "/holds";
+    }
+
+    @PostMapping("/{id}/holds/{holdId}/cancel")
+    public String cancelHold(@PathVariable("id") Long userId, @PathVariable("holdId") Long holdId) {
+        holdService.cancel(userId, holdId);
+        return "redirect:/user/" + userId + "/holds";
+    }
 }
 
 
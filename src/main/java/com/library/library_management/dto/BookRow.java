@@ -0,0 +1,18 @@
+package com.library.library_management.dto;
+
+import com.library.library_management.entities.Book;
+
+/**
+ * A row of the admin book list.
+ */
+public record BookRow(Long id, String title, String author, Integer publicationYear, String isbn,
+                      String publisherName) {
+
+    /**
+     * Reads a book whose publisher was fetched with it.
+     */
+    public static BookRow of(Book book) {
+        return new BookRow(book.getId(), book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getIsbn(),
+                book.getPublisher() == null ? null : book.getPublisher().getName());
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.library_management.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A flat, read-only row of the circulation history export, selected directly by the query instead of
+ * loading {@code Borrowing} entities with their user, copy and book.
+ */
+public record BorrowingExportRow(Long id, LocalDate borrowDate, LocalDate returnDate,
+                                 Long userId, String userName, String userEmail,
+                                 Long copyId, Integer copyNumber,
+                                 Long bookId, String bookTitle, String isbn) {
+}
@@ -0,0 +1,23 @@
+package com.library.library_management.dto;
+
+import com.library.library_management.entities.Borrowing;
+
+import java.time.LocalDate;
+
+/**
+ * A row of the admin borrowing list.
+ */
+public record BorrowingRow(Long id, String userName, String bookTitle, Integer copyNumber, LocalDate borrowDate,
+                           LocalDate dueDate, LocalDate returnDate, boolean overdue) {
+
+    /**
+     * Reads a borrowing whose user, copy and book were fetched with it.
+     */
+    public static BorrowingRow of(Borrowing borrowing) {
+        return new BorrowingRow(borrowing.getId(),
+                borrowing.getUser() == null ? null : borrowing.getUser().getName(),
+                borrowing.getCopy() == null ? null : borrowing.getCopy().getBook().getTitle(),
+                borrowing.getCopy() == null ? null : borrowing.getCopy().getCopyNumber(),
+                borrowing.getBorrowDate(), borrowing.getDueDate(), borrowing.getReturnDate(), borrowing.isOverdue());
+    }
+}
@@ -0,0 +1,11 @@
+package com.library.library_management.dto;
+
+import com.library.library_management.entities.CopyStatus;
+
+/**
+ * A flat, read-only row of the copies export, selected directly by the query instead of loading
+ * {@code Copy} entities with their book.
+ */
+public record CopyExportRow(Long id, Integer copyNumber, CopyStatus status,
+                            Long bookId, String bookTitle, String author, String isbn) {
+}
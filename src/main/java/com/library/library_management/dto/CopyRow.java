@@ -0,0 +1,17 @@
+package com.library.library_management.dto;
+
+import com.library.library_management.entities.Copy;
+
+/**
+ * A row of the admin copy list.
+ */
+public record CopyRow(Long id, Long bookId, String bookTitle, Integer copyNumber, String status) {
+
+    /**
+     * Reads a copy whose book was fetched with it.
+     */
+    public static CopyRow of(Copy copy) {
+        return new CopyRow(copy.getId(), copy.getBook().getId(), copy.getBook().getTitle(), copy.getCopyNumber(),
+                copy.getStatus().getName());
+    }
+}
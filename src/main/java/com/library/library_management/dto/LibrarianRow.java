@@ -0,0 +1,9 @@
+package com.library.library_management.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A row of the admin librarian list, selected directly by the query.
+ */
+public record LibrarianRow(Long id, String userName, LocalDate employmentDate, String position) {
+}
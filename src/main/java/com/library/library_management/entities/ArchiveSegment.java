@@ -0,0 +1,51 @@
+package com.library.library_management.entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity class recording that the loans of an archive segment were deleted from the database.
+ *
+ * <p>The row is inserted in the transaction that deletes the loans of the segment, so it exists
+ * exactly when that delete committed. On startup, a segment file that is still pending is published
+ * if its row exists and dropped otherwise. It is mapped to the {@code ARCHIVE_SEGMENT} table.</p>
+ */
+@Entity
+@Table(name = "ARCHIVE_SEGMENT")
+public class ArchiveSegment {
+
+    /**
+     * The number of the segment, which is the primary key of this row.
+     */
+    @Id
+    private Long segment;
+
+    /**
+     * The number of loans in the segment.
+     */
+    @Column(nullable = false)
+    private int loans;
+
+    /**
+     * Default no-argument constructor for JPA.
+     */
+    public ArchiveSegment() {}
+
+    /**
+     * Constructs the record of a segment whose loans are being deleted.
+     *
+     * @param segment the number of the segment
+     * @param loans   the number of loans in the segment
+     */
+    public ArchiveSegment(Long segment, int loans) {
+        this.segment = segment;
+        this.loans = loans;
+    }
+
+    public Long getSegment() {
+        return segment;
+    }
+
+    public int getLoans() {
+        return loans;
+    }
+}
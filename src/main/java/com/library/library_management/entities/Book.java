@@ -2,6 +2,8 @@ package com.library.library_management.entities;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 import java.util.List;
@@ -18,17 +20,27 @@ import java.util.List;
  * management of books via persistence in the database.</p>
  */
 @Entity
-@Table(name = "BOOK")
+@Table(name = "BOOK",
+        uniqueConstraints = @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn"),
+        indexes = @Index(name = "idx_book_publisher", columnList = "publisher_id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
 public class Book {
 
+    /**
+     * The unique constraint on the ISBN, which rejects a second book with the same number.
+     */
+    public static final String ISBN_CONSTRAINT = "uk_book_isbn";
+
     /**
      * The unique identifier for the book.
      *
      * <p>This field is the primary key of the {@code BOOK} table in the database and is
-     * auto-generated using the {@link GenerationType#IDENTITY} strategy.</p>
+     * generated from the {@code BOOK_SEQ} sequence in blocks of 50, which lets inserts be batched.</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "BOOK_SEQ", allocationSize = 50)
     private Long id;
 
     /**
@@ -50,7 +62,7 @@ public class Book {
     private String author;
 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "publisher_id", nullable = false)
     @NotNull
     private Publisher publisher;
@@ -63,9 +75,9 @@ public class Book {
     /**
      * The International Standard Book Number (ISBN) of the book.
      *
-     * <p>This field is mandatory, unique, and is mapped to a non-null, unique column in the database.</p>
+     * <p>This field is mandatory and is mapped to a non-null column, unique through {@link #ISBN_CONSTRAINT}.</p>
      */
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     @NotBlank
     @Pattern(regexp = "^(97(8|9))?\\d{9}(\\d|X)$", message = "Invalid ISBN format")
     private String isbn;
@@ -77,6 +89,7 @@ public class Book {
      * where the {@link Copy} entities are mapped by the {@code book} field.</p>
      */
     @OneToMany(mappedBy = "book")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book-copies")
     private List<Copy> copies;
 
     /**
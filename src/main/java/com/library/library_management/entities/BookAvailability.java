@@ -0,0 +1,119 @@
+package com.library.library_management.entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity class holding the materialized copy counters of a book.
+ *
+ * <p>The {@code BookAvailability} row of a book counts its copies per {@link CopyStatus}. It is kept
+ * up to date by the services in the same transaction that changes a copy, so the catalog can list
+ * available books with a single indexed read instead of loading and counting every copy.
+ * It is mapped to the {@code BOOK_AVAILABILITY} table and shares its primary key with {@link Book}.</p>
+ */
+@Entity
+@Table(name = "BOOK_AVAILABILITY", indexes = @Index(name = "idx_book_availability_available", columnList = "available"))
+public class BookAvailability {
+
+    /**
+     * The identifier of the book, which is also the primary key of this row.
+     */
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    /**
+     * The {@link Book} these counters belong to.
+     */
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    /**
+     * The total number of copies of the book.
+     */
+    @Column(nullable = false)
+    private int total;
+
+    /**
+     * The number of copies that can be borrowed right now.
+     */
+    @Column(nullable = false)
+    private int available;
+
+    /**
+     * The number of copies currently checked out.
+     */
+    @Column(nullable = false)
+    private int borrowed;
+
+    /**
+     * The number of copies held for a user.
+     */
+    @Column(nullable = false)
+    private int reserved;
+
+    /**
+     * The number of copies reported as lost.
+     */
+    @Column(nullable = false)
+    private int lost;
+
+    /**
+     * Default no-argument constructor for JPA.
+     */
+    public BookAvailability() {}
+
+    /**
+     * Constructs empty counters for the given book.
+     *
+     * @param book the {@link Book} the counters belong to
+     */
+    public BookAvailability(Book book) {
+        this.book = book;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public int getBorrowed() {
+        return borrowed;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+
+    public int getLost() {
+        return lost;
+    }
+
+    /**
+     * Adds a number of copies with the given status to the counters.
+     *
+     * @param status the status of the copies
+     * @param count  the number of copies, negative to remove them
+     */
+    public void add(CopyStatus status, int count) {
+        total += count;
+        switch (status) {
+            case Available -> available += count;
+            case Borrowed -> borrowed += count;
+            case Reserved -> reserved += count;
+            case Lost -> lost += count;
+        }
+    }
+}
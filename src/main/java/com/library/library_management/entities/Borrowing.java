@@ -5,18 +5,24 @@ import jakarta.validation.constraints.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "BORROWING")
+@Table(name = "BORROWING", indexes = {
+        // Open loans of a user by equality on both columns, returned ones newest first in index order
+        @Index(name = "idx_borrowing_user_return", columnList = "user_id, return_date DESC, id DESC"),
+        @Index(name = "idx_borrowing_copy", columnList = "copy_id"),
+        @Index(name = "idx_borrowing_open_due", columnList = "return_date, due_date")
+})
 public class Borrowing {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "borrowing_seq")
+    @SequenceGenerator(name = "borrowing_seq", sequenceName = "BORROWING_SEQ", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "copy_id")
     private Copy copy;
 
@@ -25,6 +31,18 @@ public class Borrowing {
 
     private LocalDate returnDate;
 
+    /**
+     * The last day of the loan. Open loans are found by it through {@code idx_borrowing_open_due},
+     * whose leading {@code return_date} column keeps returned loans out of the range.
+     */
+    private LocalDate dueDate;
+
+    /**
+     * Set once the loan is past its due date without being returned.
+     */
+    @Column(nullable = false)
+    private boolean overdue;
+
     public Borrowing() {}
 
     public Borrowing(User user, Copy copy, LocalDate borrowDate, LocalDate returnDate) {
@@ -123,4 +141,40 @@ public class Borrowing {
     public void setReturnDate(LocalDate returnDate) {
         this.returnDate = returnDate;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the last day of the loan.
+     *
+     * @return the due date, or {@code null} for loans made before due dates were recorded
+     */
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    /**
+     * Sets the last day of the loan.
+     *
+     * @param dueDate the new due date
+     */
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    /**
+     * Checks if the loan was flagged as overdue.
+     *
+     * @return {@code true} if the copy was not returned by the due date
+     */
+    public boolean isOverdue() {
+        return overdue;
+    }
+
+    /**
+     * Sets whether the loan is overdue.
+     *
+     * @param overdue the new overdue flag
+     */
+    public void setOverdue(boolean overdue) {
+        this.overdue = overdue;
+    }
+}
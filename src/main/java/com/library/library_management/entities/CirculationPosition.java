@@ -0,0 +1,54 @@
+package com.library.library_management.entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity class holding how far the circulation engine's write-ahead log of a shard is stored.
+ *
+ * <p>The {@code CirculationPosition} of a shard is the sequence number of the last log record whose
+ * checkout or return is stored in the {@code BORROWING} and {@code COPY} tables. It is written in the
+ * same transaction as those changes, so after a restart the engine replays exactly the records after
+ * it. It is mapped to the {@code CIRCULATION_POSITION} table.</p>
+ */
+@Entity
+@Table(name = "CIRCULATION_POSITION")
+public class CirculationPosition {
+
+    /**
+     * The index of the shard, which is the primary key of this row.
+     */
+    @Id
+    private Integer shard;
+
+    /**
+     * The sequence number of the last stored log record of the shard.
+     */
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    /**
+     * Default no-argument constructor for JPA.
+     */
+    public CirculationPosition() {}
+
+    /**
+     * Constructs the position of a shard of which nothing is stored yet.
+     *
+     * @param shard the index of the shard
+     */
+    public CirculationPosition(Integer shard) {
+        this.shard = shard;
+    }
+
+    public Integer getShard() {
+        return shard;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
@@ -1,6 +1,8 @@
 package com.library.library_management.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entity class representing a specific copy of a book in the library management system.
@@ -13,17 +15,28 @@ import jakarta.persistence.*;
  * marking it as borrowed, reserved, or available.</p>
  */
 @Entity
-@Table(name = "COPY")
+@Table(name = "COPY",
+        uniqueConstraints = @UniqueConstraint(name = Copy.NUMBER_CONSTRAINT, columnNames = {"book_id", "copy_number"}),
+        indexes = @Index(name = "idx_copy_status_book", columnList = "status, book_id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "copy")
 public class Copy {
 
+    /**
+     * The unique constraint on the book and the copy number. Its index also serves the lookups of
+     * the copies of a book.
+     */
+    public static final String NUMBER_CONSTRAINT = "uk_copy_book_number";
+
     /**
      * The unique identifier for a copy.
      *
-     * <p>This field is the primary key of the {@code COPY} table and is auto-generated using
-     * the {@link GenerationType#IDENTITY} strategy.</p>
+     * <p>This field is the primary key of the {@code COPY} table and is generated
+     * from the {@code COPY_SEQ} sequence in blocks of 50, which lets inserts be batched.</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "copy_seq")
+    @SequenceGenerator(name = "copy_seq", sequenceName = "COPY_SEQ", allocationSize = 50)
     private Long id;
 
     /**
@@ -32,7 +45,7 @@ public class Copy {
      * <p>This field forms a many-to-one relationship with the {@link Book} entity.
      * It is mandatory and is represented in the database by the {@code book_id} foreign key column.</p>
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
@@ -40,7 +53,8 @@ public class Copy {
      * A unique number identifying this specific copy of the book.
      *
      * <p>This field represents the individual identifier of a copy within the scope of its associated book
-     * (e.g., "Copy 1", "Copy 2", ...). It is mandatory and mapped to a non-null column in the database.</p>
+     * (e.g., "Copy 1", "Copy 2", ...). It is mandatory and mapped to a non-null column in the database,
+     * unique per book through {@link #NUMBER_CONSTRAINT}.</p>
      */
     @Column(nullable = false)
     private Integer copyNumber;
@@ -49,10 +63,22 @@ public class Copy {
      * The current status of the copy.
      *
      * <p>This field indicates whether the copy is available, borrowed, reserved, or lost.
-     * It is mandatory and represented as a string in the database.</p>
+     * It is mandatory and stored as the one-character {@link CopyStatus#getCode() code} of the
+     * status. Together with {@code book_id} it leads the {@code idx_copy_status_book} index, so
+     * lookups by status, alone or per book, are index range scans.</p>
      */
-    @Column(nullable = false)
-    private String status;
+    @Convert(converter = CopyStatusConverter.class)
+    @Column(nullable = false, length = 1)
+    private CopyStatus status;
+
+    /**
+     * The optimistic lock version of the copy.
+     *
+     * <p>Incremented by every update, so two concurrent checkouts of the same copy cannot both
+     * commit: the second update matches no row and fails with an optimistic locking exception.</p>
+     */
+    @Version
+    private long version;
 
     /**
      * Default no-argument constructor for JPA.
@@ -66,7 +92,7 @@ public class Copy {
      * @param copyNumber the unique number identifying this specific copy within the book
      * @param status the initial status of the copy (e.g., available, borrowed, reserved, or lost)
      */
-    public Copy(Book book, Integer copyNumber, String status) {
+    public Copy(Book book, Integer copyNumber, CopyStatus status) {
         this.book = book;
         this.copyNumber = copyNumber;
         this.status = status;
@@ -133,7 +159,7 @@ public class Copy {
      *
      * @return the current status of the copy
      */
-    public String getStatus() {
+    public CopyStatus getStatus() {
         return status;
     }
 
@@ -142,17 +168,35 @@ public class Copy {
      *
      * @param status the new status (e.g., available, borrowed, reserved, or lost)
      */
-    public void setStatus(String status) {
+    public void setStatus(CopyStatus status) {
         this.status = status;
     }
 
+    /**
+     * Gets the optimistic lock version of the copy.
+     *
+     * @return the version the copy was read with
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the copy, e.g. when it is bound from a form.
+     *
+     * @param version the version the copy was read with
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Checks if the copy is currently available.
      *
      * @return {@code true} if the copy is available, {@code false} otherwise
      */
     public boolean isAvailable() {
-        return this.status.equals(CopyStatus.Available.getName());
+        return this.status == CopyStatus.Available;
     }
 
     /**
@@ -161,7 +205,7 @@ public class Copy {
      * <p>Updates the status of the copy to "available."</p>
      */
     public void markAsAvailable() {
-        this.status = CopyStatus.Available.getName();
+        this.status = CopyStatus.Available;
     }
 
     /**
@@ -170,7 +214,7 @@ public class Copy {
      * <p>Updates the status of the copy to "borrowed."</p>
      */
     public void markAsBorrowed() {
-        this.status = CopyStatus.Borrowed.getName();
+        this.status = CopyStatus.Borrowed;
     }
 
     /**
@@ -179,7 +223,7 @@ public class Copy {
      * <p>Updates the status of the copy to "reserved."</p>
      */
     public void markAsReserved() {
-        this.status = CopyStatus.Reserved.getName();
+        this.status = CopyStatus.Reserved;
     }
 
     /**
@@ -188,6 +232,6 @@ public class Copy {
      * <p>Updates the status of the copy to "lost."</p>
      */
     public void markAsLost() {
-        this.status = CopyStatus.Lost.getName();
+        this.status = CopyStatus.Lost;
     }
 }
\ No newline at end of file
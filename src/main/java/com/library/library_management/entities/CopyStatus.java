@@ -13,22 +13,22 @@ public enum CopyStatus {
     /**
      * Status indicating that the copy is available for borrowing.
      */
-    Available("Available"),
+    Available("Available", 'A'),
 
     /**
      * Status indicating that the copy has been borrowed and is currently checked out.
      */
-    Borrowed("Borrowed"),
+    Borrowed("Borrowed", 'B'),
 
     /**
      * Status indicating that the copy has been reserved by a user but is not yet borrowed.
      */
-    Reserved("Reserved"),
+    Reserved("Reserved", 'R'),
 
     /**
      * Status indicating that the copy has been reported as lost.
      */
-    Lost("Lost");
+    Lost("Lost", 'L');
 
     /**
      * A human-readable representation of the status.
@@ -38,15 +38,25 @@ public enum CopyStatus {
      */
     private final String name;
 
+    /**
+     * The one-character code stored in the {@code status} column of the {@code COPY} table.
+     *
+     * <p>Codes are fixed per status and never reused, so stored rows stay valid when statuses are
+     * added or reordered.</p>
+     */
+    private final char code;
+
     /**
      * Constructor for {@code CopyStatus}.
      *
      * <p>Initializes a {@code CopyStatus} with the given name.</p>
      *
      * @param name the human-readable name of the status
+     * @param code the code stored in the database
      */
-    CopyStatus(String name) {
+    CopyStatus(String name, char code) {
         this.name = name;
+        this.code = code;
     }
 
     /**
@@ -60,4 +70,45 @@ public enum CopyStatus {
     public String getName() {
         return name;
     }
+
+    /**
+     * Retrieves the code the status is stored as.
+     *
+     * @return the one-character code of the status
+     */
+    public char getCode() {
+        return code;
+    }
+
+    /**
+     * Resolves a status from its stored code.
+     *
+     * @param code the code of the status, as returned by {@link #getCode()}
+     * @return the matching status
+     * @throws IllegalArgumentException if no status has the given code
+     */
+    public static CopyStatus fromCode(char code) {
+        for (CopyStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown copy status code: " + code);
+    }
+
+    /**
+     * Resolves a status from its human-readable name.
+     *
+     * @param name the name of the status, as returned by {@link #getName()}
+     * @return the matching status
+     * @throws IllegalArgumentException if no status has the given name
+     */
+    public static CopyStatus fromName(String name) {
+        for (CopyStatus status : values()) {
+            if (status.name.equals(name)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown copy status: " + name);
+    }
 }
\ No newline at end of file
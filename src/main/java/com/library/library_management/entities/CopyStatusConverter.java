@@ -0,0 +1,24 @@
+package com.library.library_management.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link CopyStatus} as its one-character {@link CopyStatus#getCode() code}.
+ *
+ * <p>A single character keeps the {@code status} column and the {@code (status, book_id)} index
+ * compact, and unlike the enum ordinal it does not change when statuses are reordered.</p>
+ */
+@Converter
+public class CopyStatusConverter implements AttributeConverter<CopyStatus, Character> {
+
+    @Override
+    public Character convertToDatabaseColumn(CopyStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public CopyStatus convertToEntityAttribute(Character code) {
+        return code == null ? null : CopyStatus.fromCode(code);
+    }
+}
@@ -0,0 +1,156 @@
+package com.library.library_management.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing a patron's hold on a book.
+ *
+ * <p>Holds of a book are served first come, first served: when a copy of the book is returned, it is
+ * {@link CopyStatus#Reserved reserved} for the oldest waiting hold instead of going back on the
+ * shelf, and the patron has until {@link #expiresAt} to collect it. It is mapped to the
+ * {@code BOOK_HOLD} table.</p>
+ */
+@Entity
+@Table(name = "BOOK_HOLD", indexes = {
+        @Index(name = "idx_book_hold_book_status", columnList = "book_id, status"),
+        @Index(name = "idx_book_hold_user", columnList = "user_id"),
+        @Index(name = "idx_book_hold_copy", columnList = "copy_id"),
+        @Index(name = "idx_book_hold_status_expires", columnList = "status, expires_at")
+})
+public class Hold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_hold_seq")
+    @SequenceGenerator(name = "book_hold_seq", sequenceName = "BOOK_HOLD_SEQ", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The {@link Book} the patron is waiting for.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    /**
+     * The patron who placed the hold.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 9)
+    private HoldStatus status;
+
+    /**
+     * When the hold was placed. Holds of a book are served in the order of their IDs, which follows
+     * this time.
+     */
+    @Column(nullable = false)
+    private LocalDateTime placedAt;
+
+    /**
+     * The copy reserved for the patron, set once the hold is ready.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "copy_id")
+    private Copy copy;
+
+    /**
+     * The pickup deadline of a ready hold.
+     */
+    private LocalDateTime expiresAt;
+
+    /**
+     * The optimistic lock version, so a cancellation cannot race the assignment of a copy.
+     */
+    @Version
+    private long version;
+
+    public Hold() {}
+
+    public Hold(Book book, User user, LocalDateTime placedAt) {
+        this.book = book;
+        this.user = user;
+        this.placedAt = placedAt;
+        this.status = HoldStatus.Waiting;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public void setBook(Book book) {
+        this.book = book;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(HoldStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getPlacedAt() {
+        return placedAt;
+    }
+
+    public void setPlacedAt(LocalDateTime placedAt) {
+        this.placedAt = placedAt;
+    }
+
+    public Copy getCopy() {
+        return copy;
+    }
+
+    public void setCopy(Copy copy) {
+        this.copy = copy;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Reserves the copy for this hold until the given deadline.
+     *
+     * @param copy the returned copy
+     * @param expiresAt the pickup deadline
+     */
+    public void markAsReady(Copy copy, LocalDateTime expiresAt) {
+        this.copy = copy;
+        this.expiresAt = expiresAt;
+        this.status = HoldStatus.Ready;
+    }
+}
@@ -0,0 +1,45 @@
+package com.library.library_management.entities;
+
+/**
+ * Enumeration representing the lifecycle of a {@link Hold} placed by a patron on a book.
+ *
+ * <p>A hold waits in the book's queue until a copy is returned, is then ready for pickup with the
+ * copy {@link CopyStatus#Reserved reserved} for the patron, and ends when the patron collects the
+ * copy, lets the pickup period run out, or cancels it.</p>
+ */
+public enum HoldStatus {
+
+    /**
+     * The hold is queued for the next returned copy of the book.
+     */
+    Waiting,
+
+    /**
+     * A copy is reserved for the patron until the pickup deadline.
+     */
+    Ready,
+
+    /**
+     * The patron checked out the reserved copy.
+     */
+    Collected,
+
+    /**
+     * The pickup deadline passed before the patron collected the copy.
+     */
+    Expired,
+
+    /**
+     * The patron withdrew the hold.
+     */
+    Cancelled;
+
+    /**
+     * Checks if the hold still waits for a copy or holds one.
+     *
+     * @return {@code true} for {@link #Waiting} and {@link #Ready}
+     */
+    public boolean isActive() {
+        return this == Waiting || this == Ready;
+    }
+}
@@ -15,21 +15,29 @@ import java.time.LocalDate;
  * details like name, contact information, and other general data.</p>
  */
 @Entity
+@Table(name = "LIBRARIAN", uniqueConstraints = @UniqueConstraint(name = Librarian.USER_CONSTRAINT, columnNames = "user_id"))
 public class Librarian {
 
+    /**
+     * The unique constraint on the user, which keeps a user from being a librarian twice.
+     */
+    public static final String USER_CONSTRAINT = "uk_librarian_user";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "librarian_seq")
+    @SequenceGenerator(name = "librarian_seq", sequenceName = "LIBRARIAN_SEQ", allocationSize = 50)
     private Long id;
 
     /**
      * The {@link User} entity associated with this librarian.
      *
      * <p>This field defines a one-to-one relationship with the {@link User} entity. It is
-     * mandatory and enforces uniqueness in the database using the {@code person_id} foreign
-     * key column.</p>
+     * mandatory and unique through {@link #USER_CONSTRAINT} on the {@code user_id} foreign
+     * key column. It is mapped as many-to-one because Hibernate replaces the constraint of a
+     * one-to-one with an unnamed one, which could not be told apart from other violations.</p>
      */
-    @OneToOne
-    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     /**
@@ -1,6 +1,8 @@
 package com.library.library_management.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Set;
 
 /**
@@ -13,16 +15,19 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "PUBLISHER")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "publisher")
 public class Publisher {
 
     /**
      * The unique identifier of the publisher.
      *
-     * <p>This field is the primary key of the {@code PUBLISHER} table and is auto-generated using
-     * the {@link GenerationType#IDENTITY} strategy.</p>
+     * <p>This field is the primary key of the {@code PUBLISHER} table and is generated
+     * from the {@code PUBLISHER_SEQ} sequence in blocks of 50, which lets inserts be batched.</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "publisher_seq")
+    @SequenceGenerator(name = "publisher_seq", sequenceName = "PUBLISHER_SEQ", allocationSize = 50)
     @Column(name = "ID", nullable = false)
     private Long id;
 
@@ -58,6 +63,7 @@ public class Publisher {
      * a reference to its publisher, and this collection represents all books associated with the publisher.</p>
      */
     @OneToMany(mappedBy = "publisher")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "publisher-books")
     private Set<Book> books;
 
     /**
@@ -18,17 +18,25 @@ import java.util.List;
  * associated with the person and whether the person has a librarian role.</p>
  */
 @Entity
-@Table(name = "USERS")
+@Table(name = "USERS",
+        uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+        indexes = @Index(name = "idx_users_phone_number", columnList = "phone_number"))
 public class User {
 
+    /**
+     * The unique constraint on the email, which rejects a second user with the same address.
+     */
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     /**
      * The unique identifier for the person.
      *
-     * <p>This field is the primary key of the {@code PERSON} table and is auto-generated
-     * using the {@link GenerationType#IDENTITY} strategy.</p>
+     * <p>This field is the primary key of the {@code PERSON} table and is generated
+     * from the {@code USERS_SEQ} sequence in blocks of 50, which lets inserts be batched.</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "USERS_SEQ", allocationSize = 50)
     private Long id;
 
     /**
@@ -44,13 +52,13 @@ private String name;
     /**
      * The unique email address of the person.
      *
-     * <p>This field is non-null and enforces uniqueness in the database. It represents
+     * <p>This field is non-null and unique through {@link #EMAIL_CONSTRAINT}. It represents
      * the person's email, which may be used for communication or identification.</p>
      */
 @NotBlank(message = "Email cannot be empty.")
 @Email(message = "Email should be valid and follow the format user@example.com.")
 @Size(max = 150)
-@Column(nullable = false, unique = true)
+@Column(nullable = false)
 private String email;
 
     /**
@@ -0,0 +1,114 @@
+package com.library.library_management.exports;
+
+import com.library.library_management.dto.BorrowingExportRow;
+import com.library.library_management.dto.CopyExportRow;
+import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.services.BorrowingService;
+import com.library.library_management.services.ServiceMetrics;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static com.library.library_management.exports.ExportColumn.column;
+
+/**
+ * Exports the circulation history and the copies for auditors.
+ *
+ * <p>Rows are read as flat DTOs from a repository {@link Stream} backed by a database cursor with a
+ * fetch size, and written to the output as they arrive, so heap use does not depend on the number of
+ * rows. The persistence context is cleared every {@value #CLEAR_INTERVAL} rows in case anything got
+ * attached to it while streaming, such as the users and copies of archived loans, which
+ * {@link BorrowingService#streamHistory()} merges into the circulation history.</p>
+ */
+@Service
+@Timed(ServiceMetrics.SERVICE)
+public class CirculationExportService {
+
+    private static final int CLEAR_INTERVAL = 1_000;
+
+    private static final List<ExportColumn<BorrowingExportRow>> BORROWING_COLUMNS = List.of(
+            column("id", BorrowingExportRow::id),
+            column("borrow_date", BorrowingExportRow::borrowDate),
+            column("return_date", BorrowingExportRow::returnDate),
+            column("user_id", BorrowingExportRow::userId),
+            column("user_name", BorrowingExportRow::userName),
+            column("user_email", BorrowingExportRow::userEmail),
+            column("copy_id", BorrowingExportRow::copyId),
+            column("copy_number", BorrowingExportRow::copyNumber),
+            column("book_id", BorrowingExportRow::bookId),
+            column("book_title", BorrowingExportRow::bookTitle),
+            column("isbn", BorrowingExportRow::isbn));
+
+    private static final List<ExportColumn<CopyExportRow>> COPY_COLUMNS = List.of(
+            column("id", CopyExportRow::id),
+            column("copy_number", CopyExportRow::copyNumber),
+            column("status", row -> row.status().getName()),
+            column("book_id", CopyExportRow::bookId),
+            column("book_title", CopyExportRow::bookTitle),
+            column("author", CopyExportRow::author),
+            column("isbn", CopyExportRow::isbn));
+
+    private final BorrowingService borrowingService;
+
+    private final CopyRepository copyRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CirculationExportService(BorrowingService borrowingService, CopyRepository copyRepository,
+                                    EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.borrowingService = borrowingService;
+        this.copyRepository = copyRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void exportBorrowings(ExportFormat format, OutputStream output) throws IOException {
+        export(format, output, BORROWING_COLUMNS, borrowingService::streamHistory);
+    }
+
+    public void exportCopies(ExportFormat format, OutputStream output) throws IOException {
+        export(format, output, COPY_COLUMNS, copyRepository::streamExportRows);
+    }
+
+    private <T> void export(ExportFormat format, OutputStream output, List<ExportColumn<T>> columns,
+                            Supplier<Stream<T>> rows) throws IOException {
+        List<String> names = columns.stream().map(ExportColumn::name).toList();
+        try {
+            // The stream's cursor only lives as long as the transaction
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> stream = rows.get();
+                     RowWriter writer = format.open(output, names)) {
+                    Object[] row = new Object[columns.size()];
+                    Iterator<T> iterator = stream.iterator();
+                    for (long count = 1; iterator.hasNext(); count++) {
+                        T item = iterator.next();
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = columns.get(i).value().apply(item);
+                        }
+                        writer.write(row);
+                        if (count % CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
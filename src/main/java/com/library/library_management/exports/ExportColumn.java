@@ -0,0 +1,13 @@
+package com.library.library_management.exports;
+
+import java.util.function.Function;
+
+/**
+ * A named column of an export and how its value is read from a row.
+ */
+record ExportColumn<T>(String name, Function<T, ?> value) {
+
+    static <T> ExportColumn<T> column(String name, Function<T, ?> value) {
+        return new ExportColumn<>(name, value);
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.library_management.exports;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * The supported export file formats.
+ */
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+
+    JSON("application/json", "json");
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Opens a writer over a stream; closing the writer flushes it but leaves the stream open.
+     */
+    public RowWriter open(OutputStream output, List<String> columns) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvRowWriter(output, columns);
+            case JSON -> new JsonRowWriter(output, columns);
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.library_management.exports;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes rows as a JSON array of objects keyed by column name, using the streaming generator so that
+ * no document tree is built.
+ */
+class JsonRowWriter implements RowWriter {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder().build();
+
+    private final JsonGenerator generator;
+
+    private final String[] columns;
+
+    JsonRowWriter(OutputStream output, List<String> columns) throws IOException {
+        this.generator = FACTORY.createGenerator(output, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.columns = columns.toArray(String[]::new);
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.length; i++) {
+            generator.writeFieldName(columns[i]);
+            Object value = values[i];
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Long number) {
+                generator.writeNumber(number);
+            } else if (value instanceof Integer number) {
+                generator.writeNumber(number);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.library_management.exports;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes export rows one at a time, without holding previous rows.
+ */
+public interface RowWriter extends Closeable {
+
+    /**
+     * Writes one row; the values are in the order of the columns the writer was opened with.
+     */
+    void write(Object[] values) throws IOException;
+}
@@ -0,0 +1,34 @@
+package com.library.library_management.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The supported import file formats.
+ */
+public enum CatalogFormat {
+
+    /**
+     * Comma-separated values with a header row, see {@link CsvCatalogReader}.
+     */
+    CSV,
+
+    /**
+     * MARC records in the line-based mnemonic text form, see {@link MarcCatalogReader}.
+     */
+    MARC;
+
+    /**
+     * Opens a reader over a UTF-8 encoded file in this format.
+     */
+    public CatalogRecordReader open(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return switch (this) {
+            case CSV -> new CsvCatalogReader(reader);
+            case MARC -> new MarcCatalogReader(reader);
+        };
+    }
+}
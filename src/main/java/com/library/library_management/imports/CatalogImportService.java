@@ -0,0 +1,363 @@
+package com.library.library_management.imports;
+
+import com.library.library_management.circulation.CirculationEngine;
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.BookAvailability;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.Publisher;
+import com.library.library_management.repository.BookRepository;
+import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.repository.PublisherRepository;
+import com.library.library_management.search.BookDocument;
+import com.library.library_management.search.CatalogIndexer;
+import com.library.library_management.services.BookAvailabilityService;
+import com.library.library_management.services.CatalogVersion;
+import com.library.library_management.services.HoldService;
+import com.library.library_management.services.SecondLevelCacheEvictor;
+import com.library.library_management.services.ServiceMetrics;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Imports publishers, books and copies in bulk.
+ *
+ * <p>Records are streamed from the file in chunks of {@value #CHUNK_SIZE}, so memory use does not
+ * depend on the file size. The records of a chunk are validated in parallel and then written in one
+ * transaction; with sequence-generated IDs Hibernate sends the inserts as JDBC batches. Publishers are
+ * matched by name and books by ISBN against maps loaded once at the start, so resolving them does
+ * not query the database per record.</p>
+ *
+ * <p>A record whose ISBN is already known adds its copies to the existing book, and they are offered to
+ * the waiting holds of the book first, like returned copies. Invalid records are
+ * skipped and reported; a chunk that fails to commit is reported as a whole and the import goes on
+ * with the next chunk.</p>
+ */
+@Service
+@Timed(ServiceMetrics.SERVICE)
+public class CatalogImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+
+    static final int CHUNK_SIZE = 1_000;
+
+    static final int MAX_ERRORS = 100;
+
+    private static final int MAX_COPIES = 1_000;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private static final int MAX_PHONE_LENGTH = 20;
+
+    private final PublisherRepository publisherRepository;
+
+    private final BookRepository bookRepository;
+
+    private final CopyRepository copyRepository;
+
+    private final BookAvailabilityService availabilityService;
+
+    private final SecondLevelCacheEvictor cacheEvictor;
+
+    private final CatalogIndexer catalogIndexer;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CirculationEngine engine;
+
+    private final HoldService holdService;
+
+    private final TransactionTemplate transaction;
+
+    public CatalogImportService(PublisherRepository publisherRepository, BookRepository bookRepository,
+                                CopyRepository copyRepository, BookAvailabilityService availabilityService,
+                                SecondLevelCacheEvictor cacheEvictor, CatalogIndexer catalogIndexer,
+                                CatalogVersion catalogVersion, CirculationEngine engine, HoldService holdService,
+                                PlatformTransactionManager transactionManager) {
+        this.publisherRepository = publisherRepository;
+        this.bookRepository = bookRepository;
+        this.copyRepository = copyRepository;
+        this.availabilityService = availabilityService;
+        this.cacheEvictor = cacheEvictor;
+        this.catalogIndexer = catalogIndexer;
+        this.catalogVersion = catalogVersion;
+        this.engine = engine;
+        this.holdService = holdService;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public ImportReport importCatalog(CatalogRecordReader reader) throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run();
+        loadKnownKeys(run);
+
+        List<CatalogRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+        try {
+            CatalogRecord record;
+            while ((record = reader.read()) != null) {
+                chunk.add(record);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, run);
+                    chunk.clear();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            run.error("The import stopped: " + e.getMessage());
+        }
+        importChunk(chunk, run);
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Imported {} of {} catalog records in {} ms: {} books, {} copies, {} publishers",
+                run.records - run.rejected, run.records, millis, run.books, run.copies, run.publishersCreated);
+        return new ImportReport(run.records, run.books, run.copies, run.publishersCreated, run.rejected,
+                List.copyOf(run.errors), millis);
+    }
+
+    private void loadKnownKeys(Run run) {
+        transaction.executeWithoutResult(status -> {
+            publisherRepository.findAll().forEach(publisher ->
+                    run.publishers.putIfAbsent(publisherKey(publisher.getName()), publisher));
+            try (Stream<BookRepository.BookIsbn> isbns = bookRepository.streamIsbns()) {
+                isbns.forEach(book -> run.isbns.put(Isbn.normalize(book.getIsbn()), book.getId()));
+            }
+        });
+    }
+
+    private void importChunk(List<CatalogRecord> chunk, Run run) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        run.records += chunk.size();
+
+        List<ValidRecord> valid = new ArrayList<>(chunk.size());
+        chunk.parallelStream().map(CatalogImportService::validate).toList().forEach(result -> {
+            switch (result) {
+                case ValidRecord record -> valid.add(record);
+                case Invalid invalid -> run.reject(invalid.message());
+            }
+        });
+
+        Chunk written = new Chunk();
+        try {
+            transaction.executeWithoutResult(status -> {
+                valid.forEach(record -> write(record, run, written));
+                catalogIndexer.booksImported(written.documents);
+                catalogVersion.changed();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Catalog import chunk starting at line {} was rolled back", chunk.get(0).line(), e);
+            run.rejected += valid.size();
+            run.error("Lines " + chunk.get(0).line() + "-" + chunk.get(chunk.size() - 1).line()
+                    + " were not imported: " + e.getMessage());
+            return;
+        }
+
+        run.publishers.putAll(written.publishers);
+        run.isbns.putAll(written.isbns);
+        run.books += written.books;
+        run.copies += written.copies;
+        run.publishersCreated += written.publishers.size();
+    }
+
+    private void write(ValidRecord record, Run run, Chunk written) {
+        Long bookId = run.isbns.get(record.isbn());
+        if (bookId == null) {
+            bookId = written.isbns.get(record.isbn());
+        }
+        if (bookId == null) {
+            // The publisher of a known ISBN is ignored, so it is only resolved or created for a new book
+            Publisher publisher = run.publishers.get(record.publisherKey());
+            boolean knownPublisher = publisher != null;
+            if (publisher == null) {
+                publisher = written.publishers.get(record.publisherKey());
+            }
+            if (publisher == null) {
+                publisher = publisherRepository.save(new Publisher(record.publisherName(), record.publisherAddress(),
+                        record.publisherPhone()));
+                written.publishers.put(record.publisherKey(), publisher);
+            }
+
+            Book book = bookRepository.save(new Book(record.title(), record.author(), publisher,
+                    record.publicationYear(), record.isbn()));
+            written.isbns.put(record.isbn(), book.getId());
+            written.newBooks.put(book.getId(), book);
+            written.availability.put(book.getId(), availabilityService.bookImported(book, record.copies()));
+            written.documents.add(new BookDocument(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                    book.getPublicationYear(), publisher.getId(), publisher.getName()));
+            written.books++;
+            addCopies(book, 1, record.copies(), written);
+            if (knownPublisher && written.evictedPublishers.add(publisher.getId())) {
+                cacheEvictor.evictPublisherBooks(publisher.getId());
+            }
+            return;
+        }
+
+        // A known ISBN: the record brings more copies of an existing book
+        Book book = written.newBooks.get(bookId);
+        if (book != null) {
+            written.availability.get(bookId).add(CopyStatus.Available, record.copies());
+        } else {
+            book = bookRepository.findById(bookId).orElseThrow();
+            for (int i = 0; i < record.copies(); i++) {
+                availabilityService.copyAdded(bookId, CopyStatus.Available);
+            }
+            cacheEvictor.evictBookCopies(bookId);
+        }
+        int first = written.nextCopyNumber.computeIfAbsent(bookId, id -> copyRepository.findMaxCopyNumber(id) + 1);
+        List<Copy> added = addCopies(book, first, record.copies(), written);
+        if (!written.newBooks.containsKey(bookId)) {
+            // Patrons may be waiting for a book that was already in the catalog
+            holdService.copiesReturned(added);
+        }
+    }
+
+    private List<Copy> addCopies(Book book, int first, int count, Chunk written) {
+        List<Copy> added = new ArrayList<>(count);
+        for (int number = first; number < first + count; number++) {
+            Copy copy = copyRepository.save(new Copy(book, number, CopyStatus.Available));
+            engine.copyChanged(copy.getId());
+            added.add(copy);
+        }
+        written.nextCopyNumber.put(book.getId(), first + count);
+        written.copies += count;
+        return added;
+    }
+
+    /**
+     * Returns a {@link ValidRecord}, or an {@link Invalid} describing the first problem of the record.
+     */
+    private static Validation validate(CatalogRecord record) {
+        String isbn = Isbn.normalize(record.isbn());
+        if (isbn == null || isbn.isEmpty()) {
+            return new Invalid(record, "the ISBN is empty");
+        }
+        if (!Isbn.isValid(isbn)) {
+            return new Invalid(record, "the ISBN " + record.isbn() + " is not valid");
+        }
+        if (isBlank(record.title()) || record.title().length() > MAX_TEXT_LENGTH) {
+            return new Invalid(record, "the title must have 1 to " + MAX_TEXT_LENGTH + " characters");
+        }
+        if (isBlank(record.author()) || record.author().length() > MAX_TEXT_LENGTH) {
+            return new Invalid(record, "the author must have 1 to " + MAX_TEXT_LENGTH + " characters");
+        }
+        if (isBlank(record.publisherName()) || record.publisherName().length() > MAX_TEXT_LENGTH) {
+            return new Invalid(record, "the publisher must have 1 to " + MAX_TEXT_LENGTH + " characters");
+        }
+        if (record.publisherAddress() != null && record.publisherAddress().length() > MAX_TEXT_LENGTH) {
+            return new Invalid(record, "the publisher address is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+        if (record.publisherPhone() != null && record.publisherPhone().length() > MAX_PHONE_LENGTH) {
+            return new Invalid(record, "the publisher phone is longer than " + MAX_PHONE_LENGTH + " characters");
+        }
+
+        int year;
+        int copies;
+        try {
+            year = Integer.parseInt(record.publicationYear() == null ? "" : record.publicationYear().trim());
+            copies = record.copies() == null ? 1 : Integer.parseInt(record.copies().trim());
+        } catch (NumberFormatException e) {
+            return new Invalid(record, "the year and the number of copies must be numbers");
+        }
+        if (copies < 1 || copies > MAX_COPIES) {
+            return new Invalid(record, "the number of copies must be between 1 and " + MAX_COPIES);
+        }
+
+        return new ValidRecord(isbn, record.title().trim(), record.author().trim(), year,
+                publisherKey(record.publisherName()), record.publisherName().trim(),
+                record.publisherAddress(), record.publisherPhone(), copies);
+    }
+
+    private static String publisherKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private sealed interface Validation permits ValidRecord, Invalid {
+    }
+
+    private record ValidRecord(String isbn, String title, String author, int publicationYear, String publisherKey,
+                               String publisherName, String publisherAddress, String publisherPhone,
+                               int copies) implements Validation {
+    }
+
+    private record Invalid(CatalogRecord record, String reason) implements Validation {
+
+        String message() {
+            return "Line " + record.line() + ": " + reason + ".";
+        }
+    }
+
+    /**
+     * Everything known for the whole import: the keys committed so far and the report counters.
+     */
+    private static class Run {
+
+        final Map<String, Publisher> publishers = new HashMap<>();
+
+        final Map<String, Long> isbns = new HashMap<>();
+
+        final List<String> errors = new ArrayList<>();
+
+        long records;
+
+        long books;
+
+        long copies;
+
+        long publishersCreated;
+
+        long rejected;
+
+        void reject(String error) {
+            rejected++;
+            error(error);
+        }
+
+        void error(String error) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    /**
+     * What a chunk writes; merged into the {@link Run} only once the chunk has committed.
+     */
+    private static class Chunk {
+
+        final Map<String, Publisher> publishers = new HashMap<>();
+
+        final Map<String, Long> isbns = new HashMap<>();
+
+        final Map<Long, Book> newBooks = new HashMap<>();
+
+        final Map<Long, BookAvailability> availability = new HashMap<>();
+
+        final Map<Long, Integer> nextCopyNumber = new HashMap<>();
+
+        final Set<Long> evictedPublishers = new HashSet<>();
+
+        final List<BookDocument> documents = new ArrayList<>();
+
+        long books;
+
+        long copies;
+    }
+}
@@ -0,0 +1,21 @@
+package com.library.library_management.imports;
+
+/**
+ * One book read from an import file, with the raw field values as they appear in the file.
+ *
+ * <p>Values are validated and converted by {@link CatalogImportService}, so a reader only has to
+ * split the input into fields.</p>
+ *
+ * @param line the line of the file the record starts at, used in error messages
+ * @param isbn the ISBN, possibly with hyphens
+ * @param title the title of the book
+ * @param author the author of the book
+ * @param publicationYear the publication year
+ * @param publisherName the name of the publisher, which identifies it
+ * @param publisherAddress the address of the publisher, used when the publisher is created
+ * @param publisherPhone the phone number of the publisher, used when the publisher is created
+ * @param copies the number of copies to create, one when empty
+ */
+public record CatalogRecord(long line, String isbn, String title, String author, String publicationYear,
+                            String publisherName, String publisherAddress, String publisherPhone, String copies) {
+}
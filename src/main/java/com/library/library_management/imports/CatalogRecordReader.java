@@ -0,0 +1,20 @@
+package com.library.library_management.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads {@link CatalogRecord}s one at a time from an import file.
+ *
+ * <p>Implementations keep at most one record in memory, so files of any size can be imported.</p>
+ */
+public interface CatalogRecordReader extends Closeable {
+
+    /**
+     * Reads the next record.
+     *
+     * @return the next record, or {@code null} at the end of the file
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    CatalogRecord read() throws IOException;
+}
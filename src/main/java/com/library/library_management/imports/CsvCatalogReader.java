@@ -0,0 +1,131 @@
+package com.library.library_management.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads comma-separated catalog records.
+ *
+ * <p>The first row names the columns, in any order: {@code isbn}, {@code title}, {@code author},
+ * {@code year} and {@code publisher} are required, {@code publisher_address}, {@code publisher_phone}
+ * and {@code copies} are optional. Fields may be quoted with double quotes, in which case they can
+ * contain commas, line breaks and doubled quotes, as in RFC 4180.</p>
+ */
+public class CsvCatalogReader implements CatalogRecordReader {
+
+    private static final List<String> REQUIRED = List.of("isbn", "title", "author", "year", "publisher");
+
+    private final BufferedReader reader;
+
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private final StringBuilder field = new StringBuilder();
+
+    private long line = 1;
+
+    public CsvCatalogReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+
+        List<String> header = readRow();
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty.");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            // A byte order mark is not stripped by the decoder
+            if (i == 0 && name.startsWith("﻿")) {
+                name = name.substring(1);
+            }
+            columns.put(name, i);
+        }
+        for (String column : REQUIRED) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("The header has no '" + column + "' column.");
+            }
+        }
+    }
+
+    @Override
+    public CatalogRecord read() throws IOException {
+        List<String> row;
+        long start;
+        do {
+            start = line;
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).isBlank());
+
+        return new CatalogRecord(start, get(row, "isbn"), get(row, "title"), get(row, "author"), get(row, "year"),
+                get(row, "publisher"), get(row, "publisher_address"), get(row, "publisher_phone"), get(row, "copies"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String get(List<String> row, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.size()) {
+            return null;
+        }
+        String value = row.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Reads the fields of the next row, or returns {@code null} at the end of the file.
+     */
+    private List<String> readRow() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> row = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field at line " + line + ".");
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                row.add(field.toString());
+                return row;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.library_management.imports;
+
+import java.util.List;
+
+/**
+ * The outcome of a catalog import.
+ *
+ * @param records the number of records read from the file
+ * @param books the number of books created
+ * @param copies the number of copies created, including copies added to existing books
+ * @param publishers the number of publishers created
+ * @param rejected the number of records that were not imported
+ * @param errors messages about rejected records, at most {@link CatalogImportService#MAX_ERRORS}
+ * @param millis the duration of the import in milliseconds
+ */
+public record ImportReport(long records, long books, long copies, long publishers, long rejected,
+                           List<String> errors, long millis) {
+
+    /**
+     * Returns the number of records imported per second.
+     */
+    public long recordsPerSecond() {
+        return millis == 0 ? records : records * 1000 / millis;
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.library_management.imports;
+
+/**
+ * ISBN normalization and check digit validation.
+ *
+ * <p>ISBNs are stored without separators, in the form accepted by {@code Book#isbn}: ten or
+ * thirteen characters, digits only except for an {@code X} check digit of an ISBN-10.</p>
+ */
+public final class Isbn {
+
+    private Isbn() {
+    }
+
+    /**
+     * Removes hyphens and spaces and upper-cases the check digit.
+     *
+     * @return the normalized ISBN, or {@code null} for {@code null}
+     */
+    public static String normalize(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && c != ' ') {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Checks the length, characters and check digit of a normalized ISBN-10 or ISBN-13.
+     */
+    public static boolean isValid(String isbn) {
+        if (isbn == null) {
+            return false;
+        }
+        return switch (isbn.length()) {
+            case 10 -> isValidIsbn10(isbn);
+            case 13 -> isValidIsbn13(isbn);
+            default -> false;
+        };
+    }
+
+    private static boolean isValidIsbn10(String isbn) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = isbn.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c == 'X' && i == 9) {
+                digit = 10;
+            } else {
+                return false;
+            }
+            sum += digit * (10 - i);
+        }
+        return sum % 11 == 0;
+    }
+
+    private static boolean isValidIsbn13(String isbn) {
+        if (!isbn.startsWith("978") && !isbn.startsWith("979")) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < 13; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            sum += (c - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return sum % 10 == 0;
+    }
+}
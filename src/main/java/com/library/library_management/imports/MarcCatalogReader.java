@@ -0,0 +1,143 @@
+package com.library.library_management.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads MARC 21 bibliographic records in the mnemonic text form, one field per line and records
+ * separated by blank lines:
+ *
+ * <pre>
+ * =LDR  00000nam  2200000   4500
+ * =020  \\$a9780140447934 (pbk.)
+ * =100  1\$aTolstoy, Leo.
+ * =245  10$aWar and peace /$cLeo Tolstoy.
+ * =260  \\$aLondon :$bPenguin,$c2006.
+ * =852  \\$tc.1
+ * =852  \\$tc.2
+ * </pre>
+ *
+ * <p>The ISBN is read from 020 $a, the author from 100 $a, the title from 245 $a and $b, and the
+ * publisher, its place and the year from 260 or 264 $b, $a and $c. Every 852 holdings field becomes
+ * one copy. Trailing ISBD punctuation is removed; other fields are ignored.</p>
+ */
+public class MarcCatalogReader implements CatalogRecordReader {
+
+    private final BufferedReader reader;
+
+    private long line;
+
+    public MarcCatalogReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public CatalogRecord read() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        long start = line;
+        String isbn = null;
+        String title = null;
+        String author = null;
+        String year = null;
+        String publisher = null;
+        String place = null;
+        int holdings = 0;
+        for (; text != null && !text.isBlank(); text = reader.readLine(), line++) {
+            if (!text.startsWith("=") || text.length() < 4) {
+                throw new IllegalArgumentException("Malformed MARC field at line " + line + ".");
+            }
+            String tag = text.substring(1, 4);
+            switch (tag) {
+                case "020" -> {
+                    if (isbn == null) {
+                        String value = subfield(text, 'a');
+                        isbn = value == null ? null : value.split("\\s+")[0];
+                    }
+                }
+                case "100" -> author = trimPunctuation(subfield(text, 'a'));
+                case "245" -> {
+                    String main = trimPunctuation(subfield(text, 'a'));
+                    String rest = trimPunctuation(subfield(text, 'b'));
+                    title = rest == null || main == null ? main : main + ": " + rest;
+                }
+                case "260", "264" -> {
+                    if (publisher == null) {
+                        publisher = trimPunctuation(subfield(text, 'b'));
+                        place = trimPunctuation(subfield(text, 'a'));
+                        year = yearOf(subfield(text, 'c'));
+                    }
+                }
+                case "852" -> holdings++;
+                default -> {
+                }
+            }
+        }
+        return new CatalogRecord(start, isbn, title, author, year, publisher, place, null,
+                holdings == 0 ? null : String.valueOf(holdings));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Returns the first occurrence of a subfield of a data field line, or {@code null}.
+     */
+    private static String subfield(String text, char code) {
+        // "=TAG  II$a..." - the subfields start after the two indicators
+        int from = 8;
+        while (from < text.length()) {
+            int start = text.indexOf('$', from);
+            if (start == -1 || start + 1 >= text.length()) {
+                return null;
+            }
+            int end = text.indexOf('$', start + 1);
+            if (end == -1) {
+                end = text.length();
+            }
+            if (text.charAt(start + 1) == code) {
+                String value = text.substring(start + 2, end).trim();
+                return value.isEmpty() ? null : value;
+            }
+            from = end;
+        }
+        return null;
+    }
+
+    private static String trimPunctuation(String value) {
+        if (value == null) {
+            return null;
+        }
+        int end = value.length();
+        while (end > 0 && " /:;,.=".indexOf(value.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        // Keep the period of an abbreviation such as "Jr." or an initial
+        if (end < value.length() && value.charAt(end) == '.' && end > 1 && value.charAt(end - 2) == ' ') {
+            end++;
+        }
+        return end == 0 ? null : value.substring(0, end);
+    }
+
+    private static String yearOf(String date) {
+        if (date == null) {
+            return null;
+        }
+        for (int i = 0; i + 4 <= date.length(); i++) {
+            if (Character.isDigit(date.charAt(i)) && Character.isDigit(date.charAt(i + 1))
+                    && Character.isDigit(date.charAt(i + 2)) && Character.isDigit(date.charAt(i + 3))) {
+                return date.substring(i, i + 4);
+            }
+        }
+        return null;
+    }
+}
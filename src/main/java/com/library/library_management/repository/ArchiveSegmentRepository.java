@@ -0,0 +1,13 @@
+package com.library.library_management.repository;
+
+import com.library.library_management.entities.ArchiveSegment;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchiveSegmentRepository extends CrudRepository<ArchiveSegment, Long> {
+
+    @Query("SELECT COALESCE(MAX(s.segment), 0) FROM ArchiveSegment s")
+    long findMaxSegment();
+}
@@ -0,0 +1,35 @@
+package com.library.library_management.repository;
+
+import com.library.library_management.entities.BookAvailability;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookAvailabilityRepository extends CrudRepository<BookAvailability, Long> {
+
+    @Query("SELECT a FROM BookAvailability a JOIN FETCH a.book b JOIN FETCH b.publisher WHERE a.available > 0 ORDER BY b.title")
+    List<BookAvailability> findAvailable();
+
+    @Modifying
+    @Query("UPDATE BookAvailability a SET a.total = a.total + :total, a.available = a.available + :available, " +
+            "a.borrowed = a.borrowed + :borrowed, a.reserved = a.reserved + :reserved, a.lost = a.lost + :lost " +
+            "WHERE a.bookId = :bookId")
+    int adjust(Long bookId, int total, int available, int borrowed, int reserved, int lost);
+
+    @Modifying(flushAutomatically = true)
+    @Query(nativeQuery = true, value = "INSERT INTO BOOK_AVAILABILITY (book_id, total, available, borrowed, reserved, lost) " +
+            "SELECT b.id, COUNT(c.id), " +
+            "SUM(CASE WHEN c.status = :available THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.status = :borrowed THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.status = :reserved THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.status = :lost THEN 1 ELSE 0 END) " +
+            "FROM BOOK b LEFT JOIN COPY c ON c.book_id = b.id " +
+            "WHERE (:bookId IS NULL OR b.id = :bookId) " +
+            "AND NOT EXISTS (SELECT 1 FROM BOOK_AVAILABILITY a WHERE a.book_id = b.id) " +
+            "GROUP BY b.id")
+    int insertMissing(Long bookId, char available, char borrowed, char reserved, char lost);
+}
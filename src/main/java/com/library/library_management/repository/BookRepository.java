@@ -1,19 +1,37 @@
 package com.library.library_management.repository;
 
 import com.library.library_management.entities.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends CrudRepository<Book, Long> {
 
-    @Query("SELECT DISTINCT b FROM Book b JOIN Copy c ON b.id = c.book.id WHERE c.status = :status")
-    List<Book> findBookByCopiesStatus(String status);
+    @Override
+    @EntityGraph(attributePaths = "publisher")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Iterable<Book> findAll();
 
-    boolean existsByIsbn(String isbn);
+    @EntityGraph(attributePaths = "publisher")
+    Window<Book> findBy(ScrollPosition position, Sort sort, Limit limit);
 
-    Book findByIsbn(String isbn);
+    @Query("SELECT b.id AS id, b.isbn AS isbn FROM Book b")
+    Stream<BookIsbn> streamIsbns();
+
+    interface BookIsbn {
+        Long getId();
+
+        String getIsbn();
+    }
 }
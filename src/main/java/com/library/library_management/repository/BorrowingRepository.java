@@ -1,13 +1,87 @@
 package com.library.library_management.repository;
 
+import com.library.library_management.archive.ArchivedBorrowing;
+import com.library.library_management.dto.BorrowingExportRow;
 import com.library.library_management.entities.Borrowing;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowingRepository extends CrudRepository<Borrowing, Long> {
-    public List<Borrowing> getByUserId(Long userId);
+    // On the foreign key, without the join a derived query adds, which would keep H2 off idx_borrowing_user_return
+    @Query("SELECT b FROM Borrowing b LEFT JOIN FETCH b.copy c LEFT JOIN FETCH c.book " +
+            "WHERE b.user.id = :userId AND b.returnDate IS NULL ORDER BY b.dueDate, b.id")
+    List<Borrowing> findOpenByUserId(Long userId);
+
+    // Returned loans of a user after a keyset position, read in the order of idx_borrowing_user_return.
+    // H2 only reads an index as sorted when its leading column is in the order, and only seeks it on a
+    // range; hence the constant user ID in the order and the redundant returnDate <= :returnDate
+    @Query("SELECT b FROM Borrowing b LEFT JOIN FETCH b.copy c LEFT JOIN FETCH c.book " +
+            "WHERE b.user.id = :userId AND b.returnDate <= :returnDate " +
+            "AND (b.returnDate < :returnDate OR (b.returnDate = :returnDate AND b.id < :id)) " +
+            "ORDER BY b.user.id, b.returnDate DESC, b.id DESC")
+    List<Borrowing> findReturnedByUserId(Long userId, LocalDate returnDate, Long id, Limit limit);
+
+    // The open loans of the copies handed in at the desk, on idx_borrowing_copy
+    @Query("SELECT b FROM Borrowing b JOIN FETCH b.copy c JOIN FETCH c.book WHERE c.id IN :copyIds AND b.returnDate IS NULL")
+    List<Borrowing> findOpenByCopyIdIn(Collection<Long> copyIds);
+
+    // User.librarian is the inverse side of a one-to-one and is always loaded, so it joins here too
+    @EntityGraph(attributePaths = {"user", "user.librarian", "copy", "copy.book"})
+    Window<Borrowing> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("SELECT new com.library.library_management.dto.BorrowingExportRow(b.id, b.borrowDate, b.returnDate, " +
+            "u.id, u.name, u.email, c.id, c.copyNumber, k.id, k.title, k.isbn) " +
+            "FROM Borrowing b LEFT JOIN b.user u LEFT JOIN b.copy c LEFT JOIN c.book k ORDER BY b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<BorrowingExportRow> streamExportRows();
+
+    // Loans returned before the given day, the earliest returns first, for the archive. A range of
+    // idx_borrowing_open_due that is sorted before the limit applies; once the archive has caught up, the range
+    // only holds the loans that aged past the cutoff since the last run
+    @Query("SELECT new com.library.library_management.archive.ArchivedBorrowing(b.id, b.user.id, b.copy.id, " +
+            "b.borrowDate, b.dueDate, b.returnDate, b.overdue) " +
+            "FROM Borrowing b WHERE b.returnDate < :before ORDER BY b.returnDate, b.id")
+    List<ArchivedBorrowing> findArchivable(LocalDate before, Limit limit);
+
+    // Repeats the age condition, so a loan whose return date changed after it was archived is kept
+    @Modifying
+    @Query("DELETE FROM Borrowing b WHERE b.id IN :ids AND b.returnDate < :before")
+    int deleteArchived(Collection<Long> ids, LocalDate before);
+
+    // Open loans due before the given day, a range of idx_borrowing_open_due
+    @Query("SELECT b.id AS id, b.dueDate AS dueDate, b.overdue AS overdue FROM Borrowing b " +
+            "WHERE b.returnDate IS NULL AND b.dueDate < :before")
+    List<DueLoan> findOpenDueBefore(LocalDate before);
+
+    @Query("SELECT b.id AS id, b.dueDate AS dueDate, b.overdue AS overdue FROM Borrowing b " +
+            "WHERE b.returnDate IS NULL AND b.dueDate = :dueDate")
+    List<DueLoan> findOpenDueOn(LocalDate dueDate);
+
+    interface DueLoan {
+        Long getId();
+
+        LocalDate getDueDate();
+
+        boolean isOverdue();
+    }
 }
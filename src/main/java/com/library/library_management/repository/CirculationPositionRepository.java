@@ -0,0 +1,9 @@
+package com.library.library_management.repository;
+
+import com.library.library_management.entities.CirculationPosition;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CirculationPositionRepository extends CrudRepository<CirculationPosition, Integer> {
+}
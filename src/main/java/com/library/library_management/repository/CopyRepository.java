@@ -1,18 +1,62 @@
 package com.library.library_management.repository;
 
+import com.library.library_management.circulation.CopyCirculation;
+import com.library.library_management.dto.CopyExportRow;
 import com.library.library_management.entities.Book;
 import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CopyRepository extends CrudRepository<Copy, Long> {
     List<Copy> findByBook(Book book);
 
-    List<Copy> findByStatus(String status);
+    List<Copy> findByStatus(CopyStatus status);
 
-    Optional<Copy> findByBookAndCopyNumber(Book book, Integer copyNumber);
+    boolean existsByBookIdAndStatusIn(Long bookId, Collection<CopyStatus> statuses);
+
+    @EntityGraph(attributePaths = "book")
+    Window<Copy> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // One statement for all copies of a desk checkout, with the books for the counters
+    @Query("SELECT c FROM Copy c JOIN FETCH c.book WHERE c.id IN :copyIds")
+    List<Copy> findWithBookByIdIn(Collection<Long> copyIds);
+
+    @Query("SELECT COALESCE(MAX(c.copyNumber), 0) FROM Copy c WHERE c.book.id = :bookId")
+    int findMaxCopyNumber(Long bookId);
+
+    @Query("SELECT new com.library.library_management.dto.CopyExportRow(c.id, c.copyNumber, c.status, " +
+            "k.id, k.title, k.author, k.isbn) FROM Copy c LEFT JOIN c.book k ORDER BY c.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<CopyExportRow> streamExportRows();
+
+    // Every copy with its open loan and ready hold, read once when the circulation engine starts
+    @Query("SELECT new com.library.library_management.circulation.CopyCirculation(c.id, c.status, b.user.id, b.borrowDate, h.user.id) " +
+            "FROM Copy c LEFT JOIN Borrowing b ON b.copy = c AND b.returnDate IS NULL " +
+            "LEFT JOIN Hold h ON h.copy = c AND h.status = com.library.library_management.entities.HoldStatus.Ready")
+    List<CopyCirculation> findCirculation();
+
+    // The same for the copies the circulation engine stored or was told about, on idx_borrowing_copy and idx_book_hold_copy
+    @Query("SELECT new com.library.library_management.circulation.CopyCirculation(c.id, c.status, b.user.id, b.borrowDate, h.user.id) " +
+            "FROM Copy c LEFT JOIN Borrowing b ON b.copy = c AND b.returnDate IS NULL " +
+            "LEFT JOIN Hold h ON h.copy = c AND h.status = com.library.library_management.entities.HoldStatus.Ready " +
+            "WHERE c.id IN :copyIds")
+    List<CopyCirculation> findCirculationByIdIn(Collection<Long> copyIds);
 }
@@ -0,0 +1,32 @@
+package com.library.library_management.repository;
+
+import com.library.library_management.entities.Hold;
+import com.library.library_management.entities.HoldStatus;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends CrudRepository<Hold, Long> {
+
+    // Queue order, used to rebuild the in-memory queues on startup
+    @Query("SELECT h FROM Hold h WHERE h.status = :status ORDER BY h.id")
+    List<Hold> findByStatusInQueueOrder(HoldStatus status);
+
+    @Query("SELECT h FROM Hold h WHERE h.status = :status AND h.expiresAt < :now")
+    List<Hold> findExpired(HoldStatus status, LocalDateTime now);
+
+    @Query("SELECT h FROM Hold h WHERE h.copy.id = :copyId AND h.status = :status")
+    Optional<Hold> findByCopyIdAndStatus(Long copyId, HoldStatus status);
+
+    @Query("SELECT h FROM Hold h JOIN FETCH h.book WHERE h.user.id = :userId ORDER BY h.id DESC")
+    List<Hold> findByUserId(Long userId);
+
+    @Query("SELECT COUNT(h) > 0 FROM Hold h WHERE h.user.id = :userId AND h.book.id = :bookId AND h.status IN :statuses")
+    boolean existsByUserIdAndBookIdAndStatusIn(Long userId, Long bookId, Collection<HoldStatus> statuses);
+}
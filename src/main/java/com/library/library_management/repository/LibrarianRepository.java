@@ -1,11 +1,17 @@
 package com.library.library_management.repository;
 
+import com.library.library_management.dto.LibrarianRow;
 import com.library.library_management.entities.Librarian;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface LibrarianRepository extends CrudRepository<Librarian, Long> {
-    Librarian findByUserEmail(String email);
+    @Query("SELECT new com.library.library_management.dto.LibrarianRow(l.id, u.name, l.employmentDate, l.position) " +
+            "FROM Librarian l JOIN l.user u ORDER BY l.id")
+    List<LibrarianRow> findRows();
 }
@@ -1,9 +1,16 @@
 package com.library.library_management.repository;
 
 import com.library.library_management.entities.Publisher;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PublisherRepository extends CrudRepository<Publisher, Long> {
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Iterable<Publisher> findAll();
 }
@@ -1,13 +1,32 @@
 package com.library.library_management.repository;
 
 import com.library.library_management.entities.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
     User getByEmail(String email);
 
     User getByPhoneNumber(String phoneNumber);
+
+    @EntityGraph(attributePaths = "librarian")
+    Window<User> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "librarian")
+    List<User> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamEmails();
 }
@@ -0,0 +1,36 @@
+package com.library.library_management.search;
+
+import com.library.library_management.entities.Book;
+
+/**
+ * The stored fields of a book in the search index.
+ *
+ * <p>Search results are rendered from these fields alone, so answering a query never touches the database.</p>
+ *
+ * @param id              the id of the book
+ * @param title           the title of the book
+ * @param author          the author of the book
+ * @param isbn            the ISBN of the book
+ * @param publicationYear the publication year of the book
+ * @param publisherId     the id of the publisher
+ * @param publisherName   the name of the publisher
+ */
+public record BookDocument(long id, String title, String author, String isbn, Integer publicationYear,
+                           Long publisherId, String publisherName) {
+
+    /**
+     * Creates the document of a book. The publisher must be loaded or loadable.
+     *
+     * @param book the book
+     * @return the document
+     */
+    public static BookDocument of(Book book) {
+        return new BookDocument(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublicationYear(),
+                book.getPublisher() == null ? null : book.getPublisher().getId(),
+                book.getPublisher() == null ? null : book.getPublisher().getName());
+    }
+
+    BookDocument withPublisherName(String name) {
+        return new BookDocument(id, title, author, isbn, publicationYear, publisherId, name);
+    }
+}
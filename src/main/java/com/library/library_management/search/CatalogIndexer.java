@@ -0,0 +1,123 @@
+package com.library.library_management.search;
+
+import com.library.library_management.entities.Publisher;
+import com.library.library_management.repository.BookRepository;
+import com.library.library_management.services.CatalogVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps the {@link CatalogSearchIndex} in step with the database.
+ *
+ * <p>The index is rebuilt in the background once the application has started, reading the catalog
+ * in keyset-ordered batches. Afterwards the book and publisher services report every change; changes
+ * made inside a transaction are applied to the index only after it commits.</p>
+ */
+@Service
+public class CatalogIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexer.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+
+    private final CatalogSearchIndex index;
+
+    private final BookRepository bookRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final TransactionTemplate afterCommitTransaction;
+
+    private final TaskExecutor taskExecutor;
+
+    private final CatalogVersion catalogVersion;
+
+    public CatalogIndexer(CatalogSearchIndex index, BookRepository bookRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor, CatalogVersion catalogVersion) {
+        this.index = index;
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // The committed transaction is still bound while its afterCommit callbacks run, and a read-only
+        // one would go to the replica, which may not have the change yet
+        this.afterCommitTransaction = new TransactionTemplate(transactionManager);
+        this.afterCommitTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.taskExecutor = taskExecutor;
+        this.catalogVersion = catalogVersion;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        index.rebuild(sink -> {
+            ScrollPosition position = ScrollPosition.keyset();
+            Window<BookDocument> batch;
+            do {
+                ScrollPosition current = position;
+                batch = readOnlyTransaction.execute(status ->
+                        bookRepository.findBy(current, Sort.by("id"), Limit.of(REBUILD_BATCH_SIZE)).map(BookDocument::of));
+                batch.forEach(sink);
+                if (!batch.isEmpty()) {
+                    position = batch.positionAt(batch.size() - 1);
+                }
+            } while (batch.hasNext());
+        });
+        // Search results served while the index was filling are incomplete
+        catalogVersion.changed();
+        log.info("Catalog search index rebuilt with {} books in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void bookChanged(Long bookId) {
+        afterCommit(() -> afterCommitTransaction.executeWithoutResult(status ->
+                bookRepository.findById(bookId).map(BookDocument::of).ifPresent(index::index)));
+    }
+
+    /**
+     * Indexes books created in bulk, without reading them back from the database.
+     */
+    public void booksImported(List<BookDocument> documents) {
+        afterCommit(() -> documents.forEach(index::index));
+    }
+
+    public void bookRemoved(Long bookId) {
+        afterCommit(() -> index.remove(bookId));
+    }
+
+    public void publisherChanged(Publisher publisher) {
+        afterCommit(() -> index.renamePublisher(publisher.getId(), publisher.getName()));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
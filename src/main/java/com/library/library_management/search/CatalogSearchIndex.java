@@ -0,0 +1,630 @@
+package com.library.library_management.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over the book catalog.
+ *
+ * <p>Title, author, ISBN and publisher name are tokenized with {@link CatalogTokenizer}; title terms
+ * count twice. A query term matches index terms exactly, by prefix (the last query term only, for
+ * search-as-you-type) and within one edit (insertion, deletion, substitution or adjacent transposition)
+ * for terms of at least {@value #MIN_FUZZY_LENGTH} characters. Typo candidates are found through a
+ * single-deletion neighbourhood, so no term dictionary scan is needed. Matches are ranked with BM25,
+ * with prefix and typo matches down-weighted.</p>
+ *
+ * <p>The index is updated incrementally; {@link #rebuild(Consumer)} builds a fresh index off-line and
+ * swaps it in, replaying the updates that arrived in the meantime.</p>
+ */
+@Component
+public class CatalogSearchIndex {
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final float PREFIX_WEIGHT = 0.7f;
+
+    private static final float FUZZY_WEIGHT = 0.5f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment = new Segment();
+
+    private List<Consumer<Segment>> updatesDuringRebuild;
+
+    /**
+     * Adds a book to the index or replaces its previous version.
+     *
+     * @param document the book
+     */
+    public void index(BookDocument document) {
+        apply(segment -> segment.put(document));
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param bookId the id of the book
+     */
+    public void remove(long bookId) {
+        apply(segment -> segment.remove(bookId));
+    }
+
+    /**
+     * Re-indexes every book of a publisher under its new name.
+     *
+     * @param publisherId the id of the publisher
+     * @param name        the new name of the publisher
+     */
+    public void renamePublisher(long publisherId, String name) {
+        apply(segment -> segment.renamePublisher(publisherId, name));
+    }
+
+    /**
+     * Replaces the whole index with the documents produced by {@code source}.
+     *
+     * <p>The source runs without holding the index lock, so searches and incremental updates
+     * continue against the current index while it is being rebuilt.</p>
+     *
+     * @param source feeds every document of the catalog to the consumer it is given
+     */
+    public void rebuild(Consumer<Consumer<BookDocument>> source) {
+        lock.writeLock().lock();
+        try {
+            updatesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment fresh = new Segment();
+        try {
+            source.accept(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                updatesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            updatesDuringRebuild.forEach(update -> update.accept(fresh));
+            updatesDuringRebuild = null;
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the catalog.
+     *
+     * @param query the free-text query
+     * @param limit the maximum number of hits
+     * @return the hits, best first
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(CatalogTokenizer.tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed books.
+     *
+     * @return the number of books
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Segment> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(segment);
+            if (updatesDuringRebuild != null) {
+                updatesDuringRebuild.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One complete generation of the index. Not thread-safe; guarded by the enclosing lock.
+     */
+    private static final class Segment {
+
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+
+        private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+        private BookDocument[] documents = new BookDocument[1024];
+
+        private int[] lengths = new int[1024];
+
+        private int nextOrdinal;
+
+        private int count;
+
+        private long totalLength;
+
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+
+        /**
+         * Maps every single-character deletion of an indexed term to the terms it was derived from.
+         */
+        private final Map<String, String[]> deletions = new HashMap<>();
+
+        void put(BookDocument document) {
+            remove(document.id());
+
+            int ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+            if (ordinal >= documents.length) {
+                documents = Arrays.copyOf(documents, documents.length * 2);
+                lengths = Arrays.copyOf(lengths, lengths.length * 2);
+            }
+
+            Map<String, Integer> frequencies = termFrequencies(document);
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                addPosting(entry.getKey(), ordinal, entry.getValue());
+                length += entry.getValue();
+            }
+
+            documents[ordinal] = document;
+            lengths[ordinal] = length;
+            ordinalById.put(document.id(), ordinal);
+            totalLength += length;
+            count++;
+        }
+
+        void remove(long id) {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            for (String term : termFrequencies(documents[ordinal]).keySet()) {
+                Postings postings = terms.get(term);
+                if (postings != null && postings.remove(ordinal) && postings.size == 0) {
+                    terms.remove(term);
+                    removeDeletions(term);
+                }
+            }
+            totalLength -= lengths[ordinal];
+            documents[ordinal] = null;
+            lengths[ordinal] = 0;
+            freeOrdinals.push(ordinal);
+            count--;
+        }
+
+        void renamePublisher(long publisherId, String name) {
+            List<BookDocument> renamed = new ArrayList<>();
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                BookDocument document = documents[ordinal];
+                if (document != null && document.publisherId() != null && document.publisherId() == publisherId) {
+                    renamed.add(document.withPublisherName(name));
+                }
+            }
+            renamed.forEach(this::put);
+        }
+
+        /**
+         * Finds the best {@code limit} documents with MaxScore: documents are visited in ordinal order
+         * through the lists with the highest score bounds, and the other lists, whose bounds together
+         * cannot lift a document over the current top hits, are only looked up for the documents found.
+         * The ranking is the same as scoring every posting.
+         */
+        List<SearchHit> search(List<String> queryTerms, int limit) {
+            if (count == 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / count;
+            List<Cursor> cursors = new ArrayList<>();
+            for (int i = 0; i < queryTerms.size(); i++) {
+                boolean last = i == queryTerms.size() - 1;
+                for (Map.Entry<String, Float> expansion : expand(queryTerms.get(i), last).entrySet()) {
+                    Postings postings = terms.get(expansion.getKey());
+                    float idf = (float) Math.log(1 + (count - postings.size + 0.5) / (postings.size + 0.5));
+                    cursors.add(new Cursor(postings, expansion.getValue() * idf, averageLength));
+                }
+            }
+            cursors.sort((a, b) -> Float.compare(a.upperBound, b.upperBound));
+
+            // boundSums[i] is the most the lists up to i can add to a document
+            float[] boundSums = new float[cursors.size()];
+            float sum = 0;
+            for (int i = 0; i < cursors.size(); i++) {
+                sum += cursors.get(i).upperBound;
+                boundSums[i] = sum;
+            }
+
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a.score(), b.score()));
+            int firstEssential = 0;
+            CursorHeap essential = new CursorHeap(cursors, firstEssential);
+            while (!essential.isEmpty()) {
+                int ordinal = essential.peek().ordinal();
+                float score = 0;
+                while (!essential.isEmpty() && essential.peek().ordinal() == ordinal) {
+                    Cursor cursor = essential.peek();
+                    score += cursor.score(lengths[ordinal]);
+                    cursor.next();
+                    essential.update();
+                }
+                for (int i = firstEssential - 1; i >= 0 && score + boundSums[i] > top.peek().score(); i--) {
+                    Cursor cursor = cursors.get(i);
+                    if (cursor.advance(ordinal) == ordinal) {
+                        score += cursor.score(lengths[ordinal]);
+                    }
+                }
+
+                if (top.size() < limit) {
+                    top.add(new SearchHit(documents[ordinal], score));
+                } else if (score > top.peek().score()) {
+                    top.poll();
+                    top.add(new SearchHit(documents[ordinal], score));
+                } else {
+                    continue;
+                }
+                if (top.size() == limit) {
+                    int essentialBefore = firstEssential;
+                    while (firstEssential < cursors.size() && boundSums[firstEssential] <= top.peek().score()) {
+                        firstEssential++;
+                    }
+                    if (firstEssential != essentialBefore) {
+                        essential = new CursorHeap(cursors, firstEssential);
+                    }
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(top);
+            hits.sort((a, b) -> Double.compare(b.score(), a.score()));
+            return hits;
+        }
+
+        /**
+         * Finds the index terms a query term matches, with the weight of each kind of match.
+         */
+        private Map<String, Float> expand(String term, boolean prefix) {
+            Map<String, Float> expansions = new LinkedHashMap<>();
+            if (terms.containsKey(term)) {
+                expansions.put(term, 1f);
+            }
+            if (prefix && term.length() >= MIN_PREFIX_LENGTH) {
+                int added = 0;
+                for (String candidate : terms.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                    if (added++ == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    expansions.putIfAbsent(candidate, PREFIX_WEIGHT);
+                }
+            }
+            if (term.length() >= MIN_FUZZY_LENGTH) {
+                Set<String> candidates = new LinkedHashSet<>();
+                addAll(candidates, deletions.get(term));
+                for (String deletion : deletionsOf(term)) {
+                    if (terms.containsKey(deletion)) {
+                        candidates.add(deletion);
+                    }
+                    addAll(candidates, deletions.get(deletion));
+                }
+                for (String candidate : candidates) {
+                    if (!expansions.containsKey(candidate) && withinOneEdit(term, candidate)) {
+                        expansions.put(candidate, FUZZY_WEIGHT);
+                    }
+                }
+            }
+            return expansions;
+        }
+
+        private void addPosting(String term, int ordinal, int frequency) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+                addDeletions(term);
+            }
+            postings.add(ordinal, frequency);
+        }
+
+        private void addDeletions(String term) {
+            if (term.length() < MIN_FUZZY_LENGTH) {
+                return;
+            }
+            for (String deletion : deletionsOf(term)) {
+                String[] sources = deletions.get(deletion);
+                if (sources == null) {
+                    deletions.put(deletion, new String[]{term});
+                } else if (!Arrays.asList(sources).contains(term)) {
+                    String[] extended = Arrays.copyOf(sources, sources.length + 1);
+                    extended[sources.length] = term;
+                    deletions.put(deletion, extended);
+                }
+            }
+        }
+
+        private void removeDeletions(String term) {
+            if (term.length() < MIN_FUZZY_LENGTH) {
+                return;
+            }
+            for (String deletion : deletionsOf(term)) {
+                String[] sources = deletions.get(deletion);
+                if (sources == null) {
+                    continue;
+                }
+                String[] remaining = Arrays.stream(sources).filter(source -> !source.equals(term)).toArray(String[]::new);
+                if (remaining.length == 0) {
+                    deletions.remove(deletion);
+                } else {
+                    deletions.put(deletion, remaining);
+                }
+            }
+        }
+
+        private static Map<String, Integer> termFrequencies(BookDocument document) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : CatalogTokenizer.tokenize(document.title())) {
+                frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+            }
+            for (String term : CatalogTokenizer.tokenize(document.author())) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            for (String term : CatalogTokenizer.tokenize(document.isbn())) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            for (String term : CatalogTokenizer.tokenize(document.publisherName())) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            return frequencies;
+        }
+
+        private static Set<String> deletionsOf(String term) {
+            Set<String> variants = new LinkedHashSet<>();
+            for (int i = 0; i < term.length(); i++) {
+                variants.add(term.substring(0, i) + term.substring(i + 1));
+            }
+            return variants;
+        }
+
+        private static void addAll(Set<String> target, String[] values) {
+            if (values != null) {
+                target.addAll(Arrays.asList(values));
+            }
+        }
+
+        /**
+         * Checks whether two different terms are one insertion, deletion, substitution or adjacent
+         * transposition apart.
+         */
+        private static boolean withinOneEdit(String a, String b) {
+            if (a.length() > b.length()) {
+                return withinOneEdit(b, a);
+            }
+            if (b.length() - a.length() > 1) {
+                return false;
+            }
+            int i = 0;
+            while (i < a.length() && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            if (a.length() == b.length()) {
+                if (i == a.length()) {
+                    return true;
+                }
+                if (a.substring(i + 1).equals(b.substring(i + 1))) {
+                    return true;
+                }
+                return i + 1 < a.length()
+                        && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                        && a.substring(i + 2).equals(b.substring(i + 2));
+            }
+            return a.substring(i).equals(b.substring(i + 1));
+        }
+    }
+
+    /**
+     * Document ordinals and term frequencies of one term, in ordinal order.
+     */
+    private static final class Postings {
+
+        private int[] ordinals = new int[2];
+
+        private int[] frequencies = new int[2];
+
+        private int size;
+
+        /**
+         * The highest term frequency ever added; removals leave it as is, which keeps it an upper bound.
+         */
+        private int maxFrequency;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            // New books get new ordinals, so this only shifts for a book that reuses a freed one
+            int position = size == 0 || ordinals[size - 1] < ordinal ? size : -Arrays.binarySearch(ordinals, 0, size, ordinal) - 1;
+            System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            ordinals[position] = ordinal;
+            frequencies[position] = frequency;
+            maxFrequency = Math.max(maxFrequency, frequency);
+            size++;
+        }
+
+        boolean remove(int ordinal) {
+            int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (position < 0) {
+                return false;
+            }
+            size--;
+            System.arraycopy(ordinals, position + 1, ordinals, position, size - position);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position);
+            return true;
+        }
+    }
+
+    /**
+     * Position in the postings of one matched index term during a query, with the term's BM25 weight.
+     */
+    private static final class Cursor {
+
+        private final Postings postings;
+
+        private final float weight;
+
+        private final float averageLength;
+
+        /**
+         * The most one posting can score: the highest frequency at the shortest possible length.
+         */
+        private final float upperBound;
+
+        private int position;
+
+        Cursor(Postings postings, float weight, float averageLength) {
+            this.postings = postings;
+            this.weight = weight;
+            this.averageLength = averageLength;
+            this.upperBound = bm25(postings.maxFrequency, 1);
+        }
+
+        int ordinal() {
+            return position < postings.size ? postings.ordinals[position] : Integer.MAX_VALUE;
+        }
+
+        float score(int length) {
+            return bm25(postings.frequencies[position], length);
+        }
+
+        void next() {
+            position++;
+        }
+
+        /**
+         * Moves to the first posting at or after {@code ordinal}, galloping from the current one.
+         */
+        int advance(int ordinal) {
+            int[] ordinals = postings.ordinals;
+            int size = postings.size;
+            if (position >= size || ordinals[position] >= ordinal) {
+                return ordinal();
+            }
+            int low = position;
+            int step = 1;
+            while (low + step < size && ordinals[low + step] < ordinal) {
+                low += step;
+                step *= 2;
+            }
+            int found = Arrays.binarySearch(ordinals, low + 1, Math.min(size, low + step + 1), ordinal);
+            position = found >= 0 ? found : -found - 1;
+            return ordinal();
+        }
+
+        private float bm25(int frequency, int length) {
+            float norm = K1 * (1 - B + B * length / averageLength);
+            return weight * frequency * (K1 + 1) / (frequency + norm);
+        }
+    }
+
+    /**
+     * Binary min-heap of the unexhausted cursors from a given index on, by their current ordinal.
+     */
+    private static final class CursorHeap {
+
+        private final Cursor[] heap;
+
+        private int size;
+
+        CursorHeap(List<Cursor> cursors, int from) {
+            heap = new Cursor[cursors.size() - from];
+            for (Cursor cursor : cursors.subList(from, cursors.size())) {
+                if (cursor.ordinal() != Integer.MAX_VALUE) {
+                    heap[size++] = cursor;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        Cursor peek() {
+            return heap[0];
+        }
+
+        /**
+         * Restores the order after the top cursor moved, dropping it when exhausted.
+         */
+        void update() {
+            if (heap[0].ordinal() == Integer.MAX_VALUE) {
+                heap[0] = heap[--size];
+                heap[size] = null;
+            }
+            if (size > 0) {
+                siftDown(0);
+            }
+        }
+
+        private void siftDown(int index) {
+            Cursor cursor = heap[index];
+            int ordinal = cursor.ordinal();
+            while (2 * index + 1 < size) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1].ordinal() < heap[child].ordinal()) {
+                    child++;
+                }
+                if (heap[child].ordinal() >= ordinal) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = cursor;
+        }
+    }
+}
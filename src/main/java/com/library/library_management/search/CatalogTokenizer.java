@@ -0,0 +1,55 @@
+package com.library.library_management.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits catalog text into normalized search terms.
+ *
+ * <p>Terms are maximal runs of letters or digits, so Latin and Cyrillic text are handled alike.
+ * Terms are lower-cased and {@code ё} is folded into {@code е}. Hyphens between digits are dropped
+ * so that a hyphenated ISBN produces the same single term as the stored one.</p>
+ */
+public final class CatalogTokenizer {
+
+    private CatalogTokenizer() {
+    }
+
+    /**
+     * Tokenizes a piece of text.
+     *
+     * @param text the text, may be {@code null}
+     * @return the terms in order of appearance, possibly with duplicates
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(normalize(c));
+            } else if (c == '-' && isDigitAt(text, i - 1) && isDigitAt(text, i + 1)) {
+                continue;
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    private static boolean isDigitAt(String text, int index) {
+        return index >= 0 && index < text.length() && Character.isDigit(text.charAt(index));
+    }
+
+    private static char normalize(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+}
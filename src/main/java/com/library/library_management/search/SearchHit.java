@@ -0,0 +1,10 @@
+package com.library.library_management.search;
+
+/**
+ * A ranked search result.
+ *
+ * @param document the matching book
+ * @param score    the BM25 relevance score, higher is better
+ */
+public record SearchHit(BookDocument document, double score) {
+}
@@ -0,0 +1,100 @@
+package com.library.library_management.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings that can be read and added to concurrently.
+ *
+ * <p>A value that was never added is reported as absent with the configured probability; a value that
+ * was added is always reported as present. Bits are set with atomic updates, so adding takes no lock
+ * and a lookup never sees a value half added. The filter is sized once for the number of values it is
+ * expected to hold; past that, the rate of false positives grows, which
+ * {@link #expectedFalsePositiveRate()} reports from the share of bits already set.</p>
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bits;
+
+    private final int hashes;
+
+    private final AtomicLong setBits = new AtomicLong();
+
+    /**
+     * @param expected the number of values the filter is sized for
+     * @param falsePositiveRate the rate of false positives once it holds that many values
+     */
+    public BloomFilter(long expected, double falsePositiveRate) {
+        if (expected <= 0) {
+            throw new IllegalArgumentException("The filter must be sized for at least one value.");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1.");
+        }
+        double optimalBits = -expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int length = (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(optimalBits / Long.SIZE));
+        this.words = new AtomicLongArray(Math.max(1, length));
+        this.bits = (long) words.length() * Long.SIZE;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expected * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        long first = mix(hash);
+        long second = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(first + i * second, bits);
+            long mask = 1L << bit;
+            long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, set) -> word | set);
+            if ((previous & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the value was certainly never added
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long first = mix(hash);
+        long second = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(first + i * second, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The rate of false positives at the current fill, which grows past the configured rate once the
+     * filter holds more values than it was sized for.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) setBits.get() / bits, hashes);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of the value.
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads the FNV hash over all bits.
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
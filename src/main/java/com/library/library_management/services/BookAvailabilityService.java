@@ -0,0 +1,113 @@
+package com.library.library_management.services;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.BookAvailability;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.repository.BookAvailabilityRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Maintains the per-book copy counters stored in {@link BookAvailability}.
+ *
+ * <p>Every method joins the caller's transaction, so the counters change atomically with the copy
+ * they describe. Counters are adjusted with relative {@code UPDATE} statements, which keeps
+ * concurrent checkouts of different copies of the same book from overwriting each other.</p>
+ */
+@Service
+@Timed(ServiceMetrics.SERVICE)
+public class BookAvailabilityService {
+
+    private final BookAvailabilityRepository availabilityRepository;
+
+    public BookAvailabilityService(BookAvailabilityRepository availabilityRepository) {
+        this.availabilityRepository = availabilityRepository;
+    }
+
+    @Transactional
+    public void bookAdded(Book book) {
+        availabilityRepository.save(new BookAvailability(book));
+    }
+
+    /**
+     * Creates the counters of an imported book whose copies are all available.
+     */
+    @Transactional
+    public BookAvailability bookImported(Book book, int copies) {
+        BookAvailability availability = new BookAvailability(book);
+        availability.add(CopyStatus.Available, copies);
+        return availabilityRepository.save(availability);
+    }
+
+    @Transactional
+    public void bookRemoved(Long bookId) {
+        availabilityRepository.deleteById(bookId);
+    }
+
+    @Transactional
+    public void copyAdded(Long bookId, CopyStatus status) {
+        BookAvailability delta = new BookAvailability();
+        delta.add(status, 1);
+        adjust(bookId, delta);
+    }
+
+    @Transactional
+    public void copyRemoved(Long bookId, CopyStatus status) {
+        BookAvailability delta = new BookAvailability();
+        delta.add(status, -1);
+        adjust(bookId, delta);
+    }
+
+    @Transactional
+    public void statusChanged(Long bookId, CopyStatus from, CopyStatus to) {
+        statusChanged(bookId, from, to, 1);
+    }
+
+    /**
+     * Moves a number of copies of the book from one status to another with a single update.
+     */
+    @Transactional
+    public void statusChanged(Long bookId, CopyStatus from, CopyStatus to, int count) {
+        if (from == to || count == 0) {
+            return;
+        }
+        BookAvailability delta = new BookAvailability();
+        delta.add(from, -count);
+        delta.add(to, count);
+        adjust(bookId, delta);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookAvailability> getAvailable() {
+        return availabilityRepository.findAvailable();
+    }
+
+    /**
+     * Creates the counters of books that do not have them yet, e.g. books stored before the
+     * counters were introduced.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void createMissing() {
+        insertMissing(null);
+    }
+
+    private void adjust(Long bookId, BookAvailability delta) {
+        int updated = availabilityRepository.adjust(bookId, delta.getTotal(), delta.getAvailable(),
+                delta.getBorrowed(), delta.getReserved(), delta.getLost());
+        if (updated == 0) {
+            // The row is computed from the copies table after flushing, so it already includes this change.
+            insertMissing(bookId);
+        }
+    }
+
+    private void insertMissing(Long bookId) {
+        availabilityRepository.insertMissing(bookId, CopyStatus.Available.getCode(), CopyStatus.Borrowed.getCode(),
+                CopyStatus.Reserved.getCode(), CopyStatus.Lost.getCode());
+    }
+}
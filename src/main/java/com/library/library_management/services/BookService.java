@@ -1,80 +1,154 @@
 package com.library.library_management.services;
 
+import com.library.library_management.dto.BookRow;
 import com.library.library_management.entities.Book;
+import com.library.library_management.entities.BookAvailability;
 import com.library.library_management.entities.CopyStatus;
 import com.library.library_management.repository.BookRepository;
+import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.search.CatalogIndexer;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
+@Timed(ServiceMetrics.SERVICE)
 public class BookService {
 
+    private static final Set<String> SORTABLE = Set.of("id", "title", "author", "publicationYear", "isbn");
+
+    /**
+     * Statuses of copies that are out with a patron, which block deleting their book.
+     */
+    private static final Set<CopyStatus> ACTIVE_STATUSES = EnumSet.of(CopyStatus.Borrowed, CopyStatus.Reserved);
+
     private final BookRepository bookRepository;
 
-    public BookService(BookRepository bookRepository) {
+    private final CopyRepository copyRepository;
+
+    private final SecondLevelCacheEvictor cacheEvictor;
+
+    private final BookAvailabilityService availabilityService;
+
+    private final CatalogIndexer catalogIndexer;
+
+    private final UniqueConstraints uniqueConstraints;
+
+    private final CatalogVersion catalogVersion;
+
+    private final Timer validationTimer;
+
+    public BookService(BookRepository bookRepository, CopyRepository copyRepository,
+                       SecondLevelCacheEvictor cacheEvictor, BookAvailabilityService availabilityService,
+                       CatalogIndexer catalogIndexer, UniqueConstraints uniqueConstraints,
+                       CatalogVersion catalogVersion, ServiceMetrics metrics) {
         this.bookRepository = bookRepository;
+        this.copyRepository = copyRepository;
+        this.cacheEvictor = cacheEvictor;
+        this.availabilityService = availabilityService;
+        this.catalogIndexer = catalogIndexer;
+        this.uniqueConstraints = uniqueConstraints;
+        this.catalogVersion = catalogVersion;
+        this.validationTimer = metrics.validation("book");
     }
 
+    @Transactional
     public void insert(Book book) {
-        validateBook(book);
-        bookRepository.save(book);
+        validationTimer.record(() -> validateBook(book));
+        save(book);
+        availabilityService.bookAdded(book);
+        cacheEvictor.evictPublisherBooks(publisherIdOf(book));
+        catalogIndexer.bookChanged(book.getId());
+        catalogVersion.changed();
     }
 
+    /**
+     * Updates a book edited in a form. The stored book, read for its previous publisher, stays in the
+     * transaction, so the save merges into it without reading it again.
+     */
+    @Transactional
     public void update(Book book) {
-        validateBook(book);
-        bookRepository.save(book);
+        validationTimer.record(() -> validateBook(book));
+        Long previousPublisherId = bookRepository.findById(book.getId()).map(this::publisherIdOf).orElse(null);
+        save(book);
+        cacheEvictor.evictPublisherBooks(previousPublisherId);
+        cacheEvictor.evictPublisherBooks(publisherIdOf(book));
+        catalogIndexer.bookChanged(book.getId());
+        catalogVersion.changed();
     }
 
+    @Transactional
     public void delete(Long id) {
         Book book = bookRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Книга с id " + id + " не найдена."));
 
-        if (book.getCopies() != null && book.getCopies().stream()
-                .anyMatch(copy -> "ACTIVE".equalsIgnoreCase(copy.getStatus()))) {
+        if (copyRepository.existsByBookIdAndStatusIn(id, ACTIVE_STATUSES)) {
             throw new IllegalStateException("Невозможно удалить книгу, у которой есть активные копии.");
         }
 
+        availabilityService.bookRemoved(id);
         bookRepository.delete(book);
+        cacheEvictor.evictPublisherBooks(publisherIdOf(book));
+        catalogIndexer.bookRemoved(id);
+        catalogVersion.changed();
     }
 
     public Book getById(Long id) {
         return bookRepository.findById(id).orElseThrow();
     }
 
+    @Transactional(readOnly = true)
     public List<Book> getAll() {
         return (List<Book>) bookRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public KeysetPage<BookRow> getPage(PageQuery query) {
+        return KeysetPage.of(bookRepository.findBy(query.toPosition(), query.toSort(SORTABLE), query.toLimit()), query)
+                .map(BookRow::of);
+    }
+
+    private Long publisherIdOf(Book book) {
+        return book.getPublisher() == null ? null : book.getPublisher().getId();
+    }
+
+    private void save(Book book) {
+        uniqueConstraints.write(Book.ISBN_CONSTRAINT,
+                () -> "Book with ISBN " + book.getIsbn() + " already exists.",
+                () -> bookRepository.save(book));
+    }
+
     private void validateBook(Book book){
         if (book.getIsbn() == null || book.getIsbn().isEmpty()) {
-            throw new IllegalArgumentException("ISBN can`t be empty.");
-        }
-
-        Book existingBook = bookRepository.findByIsbn(book.getIsbn());
-        if (existingBook != null && !existingBook.getId().equals(book.getId())) {
-            throw new IllegalStateException("Book with ISBN " + book.getIsbn() + " already exists.");
+            throw new ValidationException("ISBN can`t be empty.");
         }
 
         if (book.getTitle() == null || book.getTitle().isEmpty()) {
-            throw new IllegalArgumentException("Title can`t be empty.");
+            throw new ValidationException("Title can`t be empty.");
         }
         if (book.getAuthor() == null || book.getAuthor().isEmpty()) {
-            throw new IllegalArgumentException("Author can`t be empty.");
+            throw new ValidationException("Author can`t be empty.");
         }
 
     }
 
+    @Transactional(readOnly = true)
     public List<Book> getAvailableBooks(){
-        return bookRepository.findBookByCopiesStatus(CopyStatus.Available.getName());
+        return availabilityService.getAvailable().stream().map(BookAvailability::getBook).toList();
     }
 
+    @Transactional(readOnly = true)
     public Map<Book, Integer> getAvailableBooksWithNumberOfCopies(){
-        Map<Book, Integer> books = getAvailableBooks()
-                .stream().collect(Collectors.toMap(Function.identity(), book -> book.getNumberOfCopies()));
-
+        Map<Book, Integer> books = new LinkedHashMap<>();
+        availabilityService.getAvailable().forEach(availability -> books.put(availability.getBook(), availability.getAvailable()));
         return books;
     }
 }
\ No newline at end of file
@@ -1,42 +1,305 @@
 package com.library.library_management.services;
 
+import com.library.library_management.archive.ArchivedBorrowing;
+import com.library.library_management.archive.BorrowingArchive;
+import com.library.library_management.archive.SortedMerge;
+import com.library.library_management.circulation.CirculationEngine;
+import com.library.library_management.dto.BorrowingExportRow;
+import com.library.library_management.dto.BorrowingRow;
+import com.library.library_management.entities.Book;
 import com.library.library_management.entities.Borrowing;
 import com.library.library_management.entities.Copy;
 import com.library.library_management.entities.CopyStatus;
 import com.library.library_management.entities.User;
 import com.library.library_management.repository.BorrowingRepository;
+import com.library.library_management.services.paging.KeysetCursor;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
+@Timed(ServiceMetrics.SERVICE)
 public class BorrowingService {
 
+    private static final Set<String> SORTABLE = Set.of("id", "borrowDate");
+
+    /**
+     * How many times a checkout or return is attempted when the copy is changed concurrently.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The last day a date column can hold, which the first page of a returned loan history starts from.
+     */
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final Comparator<Borrowing> HISTORY_ORDER =
+            Comparator.comparing(Borrowing::getReturnDate).thenComparing(Borrowing::getId).reversed();
+
+    /**
+     * How many archived loans of the history are resolved to their users, copies and books at once.
+     */
+    private static final int ARCHIVE_BATCH = 1_000;
+
     private final BorrowingRepository borrowingRepository;
 
+    private final BorrowingArchive archive;
+
+    private final CirculationEngine engine;
+
     private final CopyService copyService;
 
-    public BorrowingService(BorrowingRepository borrowingRepository, CopyService copyService) {
+    private final HoldService holdService;
+
+    private final UserService userService;
+
+    private final OverdueService overdueService;
+
+    private final CatalogVersion catalogVersion;
+
+    private final TransactionTemplate transaction;
+
+    private final Timer validationTimer;
+
+    private final Counter checkouts;
+
+    private final Counter returns;
+
+    private final Counter retries;
+
+    public BorrowingService(BorrowingRepository borrowingRepository, BorrowingArchive archive, CirculationEngine engine,
+                            CopyService copyService, HoldService holdService, UserService userService, OverdueService overdueService,
+                            CatalogVersion catalogVersion, PlatformTransactionManager transactionManager,
+                            ServiceMetrics metrics) {
         this.borrowingRepository = borrowingRepository;
+        this.archive = archive;
+        this.engine = engine;
         this.copyService = copyService;
+        this.holdService = holdService;
+        this.userService = userService;
+        this.overdueService = overdueService;
+        this.catalogVersion = catalogVersion;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.validationTimer = metrics.validation("borrowing");
+        this.checkouts = metrics.circulation("checkout");
+        this.returns = metrics.circulation("return");
+        this.retries = metrics.circulationRetries();
     }
 
-    @Transactional
+    /**
+     * Checks out the borrowing's copy and stores the borrowing.
+     *
+     * <p>The copy is versioned, so when two desks check out the same copy at once only one commit
+     * succeeds. The other attempt is retried in a new transaction, where it sees the copy borrowed and
+     * fails with {@link CopyAlreadyTakenException}.</p>
+     *
+     * <p>A copy reserved for a hold can only be checked out to the patron who placed the hold, which
+     * completes the hold.</p>
+     *
+     * <p>Without a due date the loan is due after the configured loan period.</p>
+     *
+     * <p>With the {@link CirculationEngine} enabled, a loan that is not returned yet is checked out by
+     * the engine like a desk checkout, and the borrowing is stored shortly after, without its ID being
+     * set here.</p>
+     *
+     * @throws CopyAlreadyTakenException if the copy is neither available nor reserved for the user
+     */
     public void insert(Borrowing borrowing) {
-        validateBorrowing(borrowing);
+        if (borrowing != null && borrowing.getDueDate() == null && borrowing.getBorrowDate() != null) {
+            borrowing.setDueDate(overdueService.dueDateFor(borrowing.getBorrowDate()));
+        }
+        validationTimer.record(() -> validateBorrowing(borrowing));
+
+        if (engine.isEnabled() && borrowing.getReturnDate() == null) {
+            Long userId = borrowing.getUser().getId();
+            userService.getById(userId);
+            try {
+                engine.checkOut(userId, List.of(borrowing.getCopy().getId()), borrowing.getBorrowDate(), borrowing.getDueDate());
+            } catch (CirculationBatchException e) {
+                throw new CopyAlreadyTakenException(borrowing.getCopy().getId());
+            }
+            checkouts.increment();
+            return;
+        }
+
+        withRetry(() -> {
+            // A rolled back attempt leaves the generated ID behind
+            borrowing.setId(null);
+            Copy copy = copyService.getById(borrowing.getCopy().getId());
+            if (copy.getStatus() != CopyStatus.Available && !holdService.collect(copy, borrowing.getUser().getId())) {
+                throw new CopyAlreadyTakenException(copy.getId());
+            }
+            copyService.changeStatus(copy, CopyStatus.Borrowed);
+            borrowing.setCopy(copy);
+            catalogVersion.changed();
+            return borrowingRepository.save(borrowing);
+        });
+        overdueService.loanChanged(borrowing);
+        checkouts.increment();
+    }
+
+    /**
+     * Checks out several copies to one patron at the desk.
+     *
+     * <p>The patron is looked up once and all copies are loaded with one query. The copy updates and
+     * the new loans are flushed as JDBC batches, and the copy counters are adjusted once per book.
+     * The checkout is all-or-nothing: if any copy cannot be borrowed, nothing is stored and the reason
+     * is reported for every such copy. A concurrent change of one of the copies is caught by its
+     * version and the whole batch is retried, like a single checkout.</p>
+     *
+     * <p>With the {@link CirculationEngine} enabled, the copies are checked out by the engine instead,
+     * which stores the loans shortly after, and no loans are returned here.</p>
+     *
+     * @param userId     the ID of the borrowing patron
+     * @param copyIds    the IDs of the copies, in the order they were scanned
+     * @param borrowDate the borrow date of all loans; they are due after the configured loan period
+     * @return the new loans, in the order of the copy IDs
+     * @throws CirculationBatchException if a copy is unknown, listed twice, or neither available nor
+     *                                   reserved for the patron
+     */
+    public List<Borrowing> checkOut(Long userId, List<Long> copyIds, LocalDate borrowDate) {
+        validationTimer.record(() -> validateBatch(copyIds, borrowDate, "borrow"));
+        if (userId == null) {
+            throw new ValidationException("Borrowing must have a valid user.");
+        }
+        LocalDate dueDate = overdueService.dueDateFor(borrowDate);
 
-        Copy copy = copyService.getById(borrowing.getCopy().getId());
-        if (copy != null && CopyStatus.Available.getName().equals(copy.getStatus())) {
-            copy.setStatus(CopyStatus.Borrowed.getName());
-            copyService.update(copy);
-        } else {
-            throw new IllegalStateException("The copy is not available for borrowing.");
+        if (engine.isEnabled()) {
+            userService.getById(userId);
+            engine.checkOut(userId, copyIds, borrowDate, dueDate);
+            checkouts.increment(copyIds.size());
+            return List.of();
         }
 
-        borrowingRepository.save(borrowing);
+        List<Borrowing> borrowings = withRetry(() -> {
+            User user = userService.getById(userId);
+            Map<Long, String> errors = new LinkedHashMap<>();
+            Map<Long, Copy> copies = new LinkedHashMap<>();
+            copyService.getAllById(copyIds).forEach(copy -> copies.put(copy.getId(), copy));
+            Set<Long> seen = new HashSet<>();
+            List<Copy> borrowed = new ArrayList<>();
+            for (Long copyId : copyIds) {
+                Copy copy = copies.get(copyId);
+                if (!seen.add(copyId)) {
+                    errors.putIfAbsent(copyId, "The copy is listed more than once.");
+                } else if (copy == null) {
+                    errors.put(copyId, "The copy was not found.");
+                } else if (copy.getStatus() != CopyStatus.Available && !holdService.collect(copy, userId)) {
+                    errors.put(copyId, copy.getStatus() == CopyStatus.Reserved
+                            ? "The copy is held for another patron."
+                            : "The copy is " + copy.getStatus().getName().toLowerCase(Locale.ROOT) + ".");
+                } else {
+                    borrowed.add(copy);
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new CirculationBatchException(errors);
+            }
+
+            copyService.changeStatus(borrowed, CopyStatus.Borrowed);
+            List<Borrowing> loans = new ArrayList<>();
+            for (Copy copy : borrowed) {
+                Borrowing borrowing = new Borrowing();
+                borrowing.setUser(user);
+                borrowing.setCopy(copy);
+                borrowing.setBorrowDate(borrowDate);
+                borrowing.setDueDate(dueDate);
+                loans.add(borrowing);
+            }
+            catalogVersion.changed();
+            List<Borrowing> saved = new ArrayList<>();
+            borrowingRepository.saveAll(loans).forEach(saved::add);
+            return saved;
+        });
+        borrowings.forEach(overdueService::loanChanged);
+        checkouts.increment(borrowings.size());
+        return borrowings;
+    }
+
+    /**
+     * Returns several copies at the desk, ending their open loans.
+     *
+     * <p>The open loans of all copies are loaded with one query. Copies with a waiting hold are
+     * reserved for it, the others go back on the shelf together. Like {@link #checkOut}, the return is
+     * all-or-nothing and reports the reason for every copy that cannot be returned. With the
+     * {@link CirculationEngine} enabled, the copies are returned by the engine instead, and no loans are
+     * returned here.</p>
+     *
+     * @param copyIds    the IDs of the returned copies, in the order they were scanned
+     * @param returnDate the return date of all loans
+     * @return the returned loans, in the order of the copy IDs
+     * @throws CirculationBatchException if a copy is listed twice, is not on loan, or was borrowed
+     *                                   after the return date
+     */
+    public List<Borrowing> returnAll(List<Long> copyIds, LocalDate returnDate) {
+        validationTimer.record(() -> validateBatch(copyIds, returnDate, "return"));
+
+        if (engine.isEnabled()) {
+            engine.returnAll(copyIds, returnDate);
+            returns.increment(copyIds.size());
+            return List.of();
+        }
+
+        List<Borrowing> returned = withRetry(() -> {
+            Map<Long, String> errors = new LinkedHashMap<>();
+            Map<Long, Borrowing> open = new LinkedHashMap<>();
+            borrowingRepository.findOpenByCopyIdIn(copyIds).forEach(borrowing ->
+                    open.put(borrowing.getCopy().getId(), borrowing));
+            Set<Long> seen = new HashSet<>();
+            List<Borrowing> loans = new ArrayList<>();
+            for (Long copyId : copyIds) {
+                Borrowing borrowing = open.get(copyId);
+                if (!seen.add(copyId)) {
+                    errors.putIfAbsent(copyId, "The copy is listed more than once.");
+                } else if (borrowing == null) {
+                    errors.put(copyId, "The copy is not on loan.");
+                } else if (returnDate.isBefore(borrowing.getBorrowDate())) {
+                    errors.put(copyId, "The copy was borrowed after the return date.");
+                } else {
+                    loans.add(borrowing);
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new CirculationBatchException(errors);
+            }
+
+            loans.forEach(borrowing -> borrowing.setReturnDate(returnDate));
+            holdService.copiesReturned(loans.stream().map(Borrowing::getCopy).toList());
+            catalogVersion.changed();
+            return loans;
+        });
+        returns.increment(returned.size());
+        return returned;
     }
 
     public List<Borrowing> getAll() {
@@ -45,26 +308,48 @@ public class BorrowingService {
         return borrowings;
     }
 
+    public KeysetPage<BorrowingRow> getPage(PageQuery query) {
+        return KeysetPage.of(borrowingRepository.findBy(query.toPosition(), query.toSort(SORTABLE), query.toLimit()), query)
+                .map(BorrowingRow::of);
+    }
+
     public Borrowing getById(Long id) {
         return borrowingRepository.findById(id).orElseThrow(() ->
                 new IllegalArgumentException("Borrowing with ID" + id + "was not found."));
     }
 
-    @Transactional
     public void update(Borrowing borrowing) {
-        validateBorrowing(borrowing);
+        validationTimer.record(() -> validateBorrowing(borrowing));
 
-        Borrowing existing = getById(borrowing.getId());
+        boolean returned = withRetry(() -> {
+            Borrowing existing = getById(borrowing.getId());
+            boolean returning = existing.getReturnDate() == null && borrowing.getReturnDate() != null;
 
-        if (borrowing.getReturnDate() != null) {
-            Copy copy = borrowing.getCopy();
-            if (copy != null) {
-                copy.setStatus(CopyStatus.Available.getName());
-                copyService.update(copy);
+            // The overdue flag is not edited in the form; it is kept until the due date is moved
+            if (borrowing.getDueDate() == null) {
+                borrowing.setDueDate(existing.getDueDate());
+            }
+            boolean rescheduled = !Objects.equals(borrowing.getDueDate(), existing.getDueDate());
+            borrowing.setOverdue(existing.isOverdue() && !rescheduled);
+            if (rescheduled) {
+                overdueService.loanChanged(borrowing);
             }
-        }
 
-        borrowingRepository.save(borrowing);
+            if (returning) {
+                Copy copy = existing.getCopy();
+                if (copy != null) {
+                    // Goes to the next hold on the book, if any, instead of back on the shelf
+                    holdService.copyReturned(copy);
+                }
+            }
+
+            borrowingRepository.save(borrowing);
+            catalogVersion.changed();
+            return returning;
+        });
+        if (returned) {
+            returns.increment();
+        }
     }
 
     public void delete(Long id) {
@@ -75,35 +360,213 @@ public class BorrowingService {
         }
 
         borrowingRepository.delete(borrowing);
+        catalogVersion.changed();
     }
 
-    public List<Borrowing> getByUserId(Long userId) {
-        return borrowingRepository.getByUserId(userId);
+    /**
+     * The loans of a user that are not returned yet, earliest due date first, with their copies and books.
+     */
+    @Transactional(readOnly = true)
+    public List<Borrowing> getOpenByUserId(Long userId) {
+        return borrowingRepository.findOpenByUserId(userId);
+    }
+
+    /**
+     * A page of the returned loans of a user, the latest return first, with their copies and books.
+     *
+     * <p>The order is fixed, so only the cursor and size of the query are used. A page reads one loan
+     * more than its size to tell whether another page follows; the next one seeks past the return
+     * date and ID of the last loan, so a patron's thousandth page costs the same as the first. The
+     * first page starts after a position past every loan.</p>
+     *
+     * <p>Loans moved to the {@link BorrowingArchive} are merged in from the segments holding loans of
+     * the user. They are not entities; their copies and books are loaded for display.</p>
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Borrowing> getReturnedPage(Long userId, PageQuery query) {
+        LocalDate returnDate = LAST_DATE;
+        Long id = Long.MAX_VALUE;
+        if (query.cursor() != null) {
+            Map<String, Object> after = KeysetCursor.decode(query.cursor()).getKeys();
+            if (!(after.get("returnDate") instanceof LocalDate date) || !(after.get("id") instanceof Long key)) {
+                throw new IllegalArgumentException("Invalid page cursor.");
+            }
+            returnDate = date;
+            id = key;
+        }
+        List<Borrowing> loans = borrowingRepository.findReturnedByUserId(userId, returnDate, id,
+                Limit.of(query.size() + 1));
+        List<ArchivedBorrowing> archived = archive.findReturnedByUser(userId, returnDate, id, query.size() + 1);
+        if (!archived.isEmpty()) {
+            loans = new ArrayList<>(loans);
+            loans.addAll(fromArchive(userService.getById(userId), archived));
+            loans.sort(HISTORY_ORDER);
+        }
+
+        String next = null;
+        if (loans.size() > query.size()) {
+            loans = loans.subList(0, query.size());
+            Borrowing last = loans.get(loans.size() - 1);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("returnDate", last.getReturnDate());
+            keys.put("id", last.getId());
+            next = KeysetCursor.encode(ScrollPosition.forward(keys));
+        }
+        return new KeysetPage<>(loans, next, query);
+    }
+
+    /**
+     * The whole circulation history in ID order for reports: the loans in the database, streamed from
+     * a cursor, merged with the archived ones, whose users, copies and books are loaded
+     * {@value #ARCHIVE_BATCH} loans at a time. The stream must be read in a transaction and closed.
+     */
+    public Stream<BorrowingExportRow> streamHistory() {
+        Stream<BorrowingExportRow> live = borrowingRepository.streamExportRows();
+        if (archive.isEmpty()) {
+            return live;
+        }
+        Stream<ArchivedBorrowing> archived = archive.stream();
+        Iterator<ArchivedBorrowing> source = archived.iterator();
+        Iterator<BorrowingExportRow> resolved = new Iterator<>() {
+            private Iterator<BorrowingExportRow> batch = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!batch.hasNext() && source.hasNext()) {
+                    List<ArchivedBorrowing> loans = new ArrayList<>(ARCHIVE_BATCH);
+                    while (loans.size() < ARCHIVE_BATCH && source.hasNext()) {
+                        loans.add(source.next());
+                    }
+                    batch = toExportRows(loans).iterator();
+                }
+                return batch.hasNext();
+            }
+
+            @Override
+            public BorrowingExportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.next();
+            }
+        };
+        Iterator<BorrowingExportRow> merged = SortedMerge.merge(List.of(live.iterator(), resolved),
+                Comparator.comparing(BorrowingExportRow::id));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(live::close)
+                .onClose(archived::close);
+    }
+
+    private List<Borrowing> fromArchive(User user, List<ArchivedBorrowing> archived) {
+        Map<Long, Copy> copies = copiesOf(archived);
+        List<Borrowing> loans = new ArrayList<>(archived.size());
+        for (ArchivedBorrowing loan : archived) {
+            Borrowing borrowing = new Borrowing();
+            borrowing.setId(loan.id());
+            borrowing.setUser(user);
+            borrowing.setCopy(copies.get(loan.copyId()));
+            borrowing.setBorrowDate(loan.borrowDate());
+            borrowing.setDueDate(loan.dueDate());
+            borrowing.setReturnDate(loan.returnDate());
+            borrowing.setOverdue(loan.overdue());
+            loans.add(borrowing);
+        }
+        return loans;
+    }
+
+    private List<BorrowingExportRow> toExportRows(List<ArchivedBorrowing> archived) {
+        Map<Long, Copy> copies = copiesOf(archived);
+        Map<Long, User> users = new HashMap<>();
+        userService.getAllById(archived.stream().map(ArchivedBorrowing::userId).filter(Objects::nonNull).distinct().toList())
+                .forEach(user -> users.put(user.getId(), user));
+        List<BorrowingExportRow> rows = new ArrayList<>(archived.size());
+        for (ArchivedBorrowing loan : archived) {
+            User user = users.get(loan.userId());
+            Copy copy = copies.get(loan.copyId());
+            Book book = copy == null ? null : copy.getBook();
+            rows.add(new BorrowingExportRow(loan.id(), loan.borrowDate(), loan.returnDate(),
+                    loan.userId(), user == null ? null : user.getName(), user == null ? null : user.getEmail(),
+                    loan.copyId(), copy == null ? null : copy.getCopyNumber(),
+                    book == null ? null : book.getId(), book == null ? null : book.getTitle(),
+                    book == null ? null : book.getIsbn()));
+        }
+        return rows;
+    }
+
+    // The user and copy of an archived loan may have been deleted since; they are then left empty
+    private Map<Long, Copy> copiesOf(List<ArchivedBorrowing> archived) {
+        Map<Long, Copy> copies = new HashMap<>();
+        copyService.getAllById(archived.stream().map(ArchivedBorrowing::copyId).filter(Objects::nonNull).distinct().toList())
+                .forEach(copy -> copies.put(copy.getId(), copy));
+        return copies;
+    }
+
+    /**
+     * Runs the action in its own transaction, retrying it when a concurrent change of the same copy
+     * wins the optimistic lock. Inside a caller's transaction a conflict cannot be retried, because
+     * that transaction is already marked for rollback, so the action runs once.
+     */
+    private <T> T withRetry(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new IllegalStateException("The copy is being changed by another desk, please try again.", e);
+                }
+                retries.increment();
+            }
+        }
+    }
+
+    private void validateBatch(List<Long> copyIds, LocalDate date, String operation) {
+        if (copyIds == null || copyIds.isEmpty()) {
+            throw new ValidationException("At least one copy must be given.");
+        }
+
+        if (copyIds.stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException("Copy IDs cannot be empty.");
+        }
+
+        if (date == null) {
+            throw new ValidationException("The " + operation + " date must be given.");
+        }
+
+        if (date.isAfter(LocalDate.now())) {
+            throw new ValidationException("The " + operation + " date cannot be in the future.");
+        }
     }
 
     private void validateBorrowing(Borrowing borrowing) {
         if (borrowing == null) {
-            throw new IllegalArgumentException("Borrowing cannot be null.");
+            throw new ValidationException("Borrowing cannot be null.");
         }
 
         if (borrowing.getUser() == null || borrowing.getUser().getId() == null) {
-            throw new IllegalArgumentException("Borrowing must have a valid user.");
+            throw new ValidationException("Borrowing must have a valid user.");
         }
 
         if (borrowing.getCopy() == null || borrowing.getCopy().getId() == null) {
-            throw new IllegalArgumentException("Borrowing must have a valid copy.");
+            throw new ValidationException("Borrowing must have a valid copy.");
         }
 
         if (borrowing.getBorrowDate() == null) {
-            throw new IllegalArgumentException("Borrowing must have a borrow date.");
+            throw new ValidationException("Borrowing must have a borrow date.");
         }
 
         if (borrowing.getBorrowDate().isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("Borrow date cannot be in the future.");
+            throw new ValidationException("Borrow date cannot be in the future.");
         }
 
         if (borrowing.getReturnDate() != null && borrowing.getReturnDate().isBefore(borrowing.getBorrowDate())) {
-            throw new IllegalArgumentException("Return date cannot be before borrow date.");
+            throw new ValidationException("Return date cannot be before borrow date.");
+        }
+
+        if (borrowing.getDueDate() != null && borrowing.getDueDate().isBefore(borrowing.getBorrowDate())) {
+            throw new ValidationException("Due date cannot be before borrow date.");
         }
     }
 }
\ No newline at end of file
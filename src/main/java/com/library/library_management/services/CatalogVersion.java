@@ -0,0 +1,66 @@
+package com.library.library_management.services;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version of everything the catalog and list pages show, used as their HTTP validator.
+ *
+ * <p>The services call {@link #changed()} after every write to books, copies, loans, publishers,
+ * persons or librarians; inside a transaction the version moves once it commits. A page has to read
+ * the version before its rows: a write committed in between then leaves the newer page under the old
+ * version, which the next request sees as changed. That only holds for rows read from the primary. A
+ * replica can still return the old rows after the version moved, so pages read from a replica must
+ * not be tagged.</p>
+ *
+ * <p>The ETag combines the start time of the application with the counter, so it also changes across
+ * restarts. The counter lives in memory, which is enough for a single instance: several instances hand
+ * out different tags for the same content and only cost each other a re-render.</p>
+ */
+@Component
+public class CatalogVersion {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicReference<State> state = new AtomicReference<>(new State(0, System.currentTimeMillis()));
+
+    /**
+     * Moves the version after the surrounding transaction commits, or right away outside of one.
+     */
+    public void changed() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    /**
+     * The current version as a strong entity tag, including the quotes.
+     */
+    public String etag() {
+        return "\"" + instance + "-" + state.get().version() + "\"";
+    }
+
+    /**
+     * The time of the last change, or of the start when nothing changed since.
+     */
+    public long lastModified() {
+        return state.get().lastModified();
+    }
+
+    private void increment() {
+        state.updateAndGet(current -> new State(current.version() + 1, System.currentTimeMillis()));
+    }
+
+    private record State(long version, long lastModified) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.library.library_management.services;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thrown when a checkout or return of several copies is rejected. Nothing of the batch is stored; the
+ * reason is given for every copy that failed, by copy ID in the order the copies were listed.
+ */
+public class CirculationBatchException extends IllegalStateException {
+
+    private final Map<Long, String> errors;
+
+    public CirculationBatchException(Map<Long, String> errors) {
+        super(errors.size() + (errors.size() == 1 ? " copy" : " copies") + " could not be processed, nothing was saved.");
+        this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+    }
+
+    public Map<Long, String> getErrors() {
+        return errors;
+    }
+}
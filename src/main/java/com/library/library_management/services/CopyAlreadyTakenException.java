@@ -0,0 +1,19 @@
+package com.library.library_management.services;
+
+/**
+ * Thrown when a copy cannot be borrowed because it is no longer available, typically because
+ * another desk checked it out first.
+ */
+public class CopyAlreadyTakenException extends IllegalStateException {
+
+    private final Long copyId;
+
+    public CopyAlreadyTakenException(Long copyId) {
+        super("The copy " + copyId + " is already taken.");
+        this.copyId = copyId;
+    }
+
+    public Long getCopyId() {
+        return copyId;
+    }
+}
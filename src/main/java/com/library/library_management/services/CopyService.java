@@ -1,44 +1,166 @@
 package com.library.library_management.services;
 
+import com.library.library_management.circulation.CirculationEngine;
+import com.library.library_management.dto.CopyRow;
 import com.library.library_management.entities.Book;
 import com.library.library_management.entities.Borrowing;
 import com.library.library_management.entities.Copy;
 import com.library.library_management.entities.CopyStatus;
 import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 @Service
+@Timed(ServiceMetrics.SERVICE)
 public class CopyService {
 
+    private static final Set<String> SORTABLE = Set.of("id", "copyNumber");
+
     private final CopyRepository copyRepository;
 
-    public CopyService(CopyRepository copyRepository) {
+    private final SecondLevelCacheEvictor cacheEvictor;
+
+    private final BookAvailabilityService availabilityService;
+
+    private final UniqueConstraints uniqueConstraints;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CirculationEngine engine;
+
+    private final ObjectProvider<HoldService> holdService;
+
+    private final Timer validationTimer;
+
+    /**
+     * @param holdService looked up when a copy becomes available, since the hold service changes copies
+     *                    through this one
+     */
+    public CopyService(CopyRepository copyRepository, SecondLevelCacheEvictor cacheEvictor,
+                       BookAvailabilityService availabilityService, UniqueConstraints uniqueConstraints,
+                       CatalogVersion catalogVersion, CirculationEngine engine, ObjectProvider<HoldService> holdService,
+                       ServiceMetrics metrics) {
         this.copyRepository = copyRepository;
+        this.cacheEvictor = cacheEvictor;
+        this.availabilityService = availabilityService;
+        this.uniqueConstraints = uniqueConstraints;
+        this.catalogVersion = catalogVersion;
+        this.engine = engine;
+        this.holdService = holdService;
+        this.validationTimer = metrics.validation("copy");
     }
 
+    /**
+     * Adds a copy. An available copy is offered to the waiting holds of its book first, like a
+     * returned one.
+     */
+    @Transactional
     public Copy insert(Copy copy) {
-        validateCopy(copy);
-        return copyRepository.save(copy);
+        validationTimer.record(() -> validateCopy(copy));
+        Copy saved = save(copy);
+        availabilityService.copyAdded(copy.getBook().getId(), copy.getStatus());
+        cacheEvictor.evictBookCopies(copy.getBook().getId());
+        catalogVersion.changed();
+        engine.copyChanged(saved.getId());
+        if (saved.getStatus() == CopyStatus.Available) {
+            holdService.getObject().copyReturned(saved);
+        }
+        return saved;
     }
 
+    /**
+     * Updates a copy edited outside the persistence context, e.g. bound from a form.
+     *
+     * <p>The previous book and status are read from the stored copy to keep the availability counters
+     * in sync. Code that already holds the managed copy inside a transaction must use
+     * {@link #changeStatus(Copy, CopyStatus)} instead, since the stored state is no longer visible there.
+     * The stored copy stays in the transaction, so the save merges into it without reading it again.
+     * A copy that becomes available, or moves to another book while available, is offered to the
+     * waiting holds of its book like a returned one.</p>
+     */
+    @Transactional
     public Copy update(Copy copy) {
-        validateCopy(copy);
-        return copyRepository.save(copy);
+        validationTimer.record(() -> validateCopy(copy));
+        Copy previous = getById(copy.getId());
+        Long previousBookId = previous.getBook().getId();
+        CopyStatus previousStatus = previous.getStatus();
+
+        Copy saved = save(copy);
+
+        Long bookId = copy.getBook().getId();
+        CopyStatus status = copy.getStatus();
+        if (bookId.equals(previousBookId)) {
+            availabilityService.statusChanged(bookId, previousStatus, status);
+        } else {
+            availabilityService.copyRemoved(previousBookId, previousStatus);
+            availabilityService.copyAdded(bookId, status);
+            cacheEvictor.evictBookCopies(previousBookId);
+            cacheEvictor.evictBookCopies(bookId);
+        }
+        catalogVersion.changed();
+        engine.copyChanged(copy.getId());
+        if (status == CopyStatus.Available && (previousStatus != CopyStatus.Available || !bookId.equals(previousBookId))) {
+            holdService.getObject().copyReturned(saved);
+        }
+        return saved;
+    }
+
+    @Transactional
+    public Copy changeStatus(Copy copy, CopyStatus status) {
+        CopyStatus previousStatus = copy.getStatus();
+        copy.setStatus(status);
+        Copy saved = copyRepository.save(copy);
+        availabilityService.statusChanged(copy.getBook().getId(), previousStatus, status);
+        catalogVersion.changed();
+        engine.copyChanged(copy.getId());
+        return saved;
+    }
+
+    /**
+     * Moves several copies to the same status. The counters of each book are adjusted once for all of
+     * its copies, and the copy updates are flushed together as one batch.
+     */
+    @Transactional
+    public void changeStatus(Collection<Copy> copies, CopyStatus status) {
+        Map<Long, Map<CopyStatus, Integer>> moved = new HashMap<>();
+        for (Copy copy : copies) {
+            moved.computeIfAbsent(copy.getBook().getId(), bookId -> new EnumMap<>(CopyStatus.class))
+                    .merge(copy.getStatus(), 1, Integer::sum);
+            copy.setStatus(status);
+            engine.copyChanged(copy.getId());
+        }
+        moved.forEach((bookId, previous) -> previous.forEach((from, count) ->
+                availabilityService.statusChanged(bookId, from, status, count)));
+        catalogVersion.changed();
     }
 
+    @Transactional
     public void delete(Long copyId) {
         Copy copy = copyRepository.findById(copyId).orElseThrow(() ->
                 new IllegalArgumentException("Copy with ID" + copyId + "was not found."));
 
-        if (!CopyStatus.Available.getName().equals(copy.getStatus())) {
+        if (copy.getStatus() != CopyStatus.Available) {
             throw new IllegalStateException("You can not remove a copy that is not available.");
         }
 
         copyRepository.delete(copy);
+        availabilityService.copyRemoved(copy.getBook().getId(), copy.getStatus());
+        cacheEvictor.evictBookCopies(copy.getBook().getId());
+        catalogVersion.changed();
+        engine.copyChanged(copyId);
     }
 
     public Copy getById(Long copyId) {
@@ -46,11 +168,18 @@ public class CopyService {
                 .orElseThrow(() -> new IllegalArgumentException("Copy with ID " + copyId +" was not found."));
     }
 
+    /**
+     * Loads the copies with the given IDs and their books in one query. Unknown IDs are left out.
+     */
+    public List<Copy> getAllById(Collection<Long> copyIds) {
+        return copyRepository.findWithBookByIdIn(copyIds);
+    }
+
     public List<Copy> getByBook(Book book) {
         return copyRepository.findByBook(book);
     }
 
-    public List<Copy> getByStatus(String status) {
+    public List<Copy> getByStatus(CopyStatus status) {
         return copyRepository.findByStatus(status);
     }
 
@@ -60,22 +189,29 @@ public class CopyService {
         return copies;
     }
 
+    @Transactional(readOnly = true)
+    public KeysetPage<CopyRow> getPage(PageQuery query) {
+        return KeysetPage.of(copyRepository.findBy(query.toPosition(), query.toSort(SORTABLE), query.toLimit()), query)
+                .map(CopyRow::of);
+    }
+
+    private Copy save(Copy copy) {
+        return uniqueConstraints.write(Copy.NUMBER_CONSTRAINT,
+                () -> "A copy with the number " + copy.getCopyNumber() + " already exists for this book.",
+                () -> copyRepository.save(copy));
+    }
+
     private void validateCopy(Copy copy) {
         if (copy.getBook() == null || copy.getBook().getId() == null) {
-            throw new IllegalArgumentException("The copy should be attached to the book.");
+            throw new ValidationException("The copy should be attached to the book.");
         }
 
         if (copy.getCopyNumber() == null || copy.getCopyNumber() <= 0) {
-            throw new IllegalArgumentException("The copy should have a positive number.");
-        }
-
-        if (copy.getStatus() == null || copy.getStatus().isEmpty()) {
-            throw new IllegalArgumentException("A copy must have a status.");
+            throw new ValidationException("The copy should have a positive number.");
         }
 
-        Optional<Copy> existingCopy = copyRepository.findByBookAndCopyNumber(copy.getBook(), copy.getCopyNumber());
-        if (existingCopy.isPresent() && !existingCopy.get().getId().equals(copy.getId())) {
-            throw new IllegalStateException("A copy with the number " + copy.getCopyNumber() +" already exists for this book.");
+        if (copy.getStatus() == null) {
+            throw new ValidationException("A copy must have a status.");
         }
     }
 }
@@ -0,0 +1,132 @@
+package com.library.library_management.services;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timing wheel with one slot per day.
+ *
+ * <p>The wheel covers the days from the one after {@link #current()} up to, but not including,
+ * {@link #horizon()}. An item is scheduled in O(1) into the slot of its day; {@link #advance()} moves
+ * the wheel one day and hands back only the items of that day's slot. Since the wheel never holds an
+ * item beyond its horizon, every slot holds the items of a single day, and advancing costs time
+ * proportional to the items that become due. Items for later days have to be scheduled once the
+ * horizon reaches them; items for days already passed are due right away.</p>
+ *
+ * <p>Operations take a short {@link ReentrantLock} rather than a monitor, so virtual threads that
+ * schedule items do not pin their carrier.</p>
+ *
+ * @param <T> the type of the scheduled items
+ */
+public class DueDateWheel<T> {
+
+    private final List<Deque<T>> slots;
+
+    private final List<T> due = new ArrayList<>();
+
+    private final Lock lock = new ReentrantLock();
+
+    private long current;
+
+    /**
+     * @param size the number of days the wheel covers
+     * @param current the last day that is already due
+     */
+    public DueDateWheel(int size, LocalDate current) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The wheel must cover at least one day.");
+        }
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        this.current = current.toEpochDay();
+    }
+
+    /**
+     * Schedules an item for a day.
+     *
+     * @return {@code false} if the day is at or beyond the horizon, where the item is not kept
+     */
+    public boolean schedule(T item, LocalDate day) {
+        long epochDay = day.toEpochDay();
+        lock.lock();
+        try {
+            if (epochDay <= current) {
+                due.add(item);
+            } else if (epochDay < current + slots.size()) {
+                slots.get(slot(epochDay)).add(item);
+            } else {
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the wheel to the next day, whose items become due.
+     *
+     * @return the new current day
+     */
+    public LocalDate advance() {
+        lock.lock();
+        try {
+            current++;
+            Deque<T> slot = slots.get(slot(current));
+            due.addAll(slot);
+            slot.clear();
+            return LocalDate.ofEpochDay(current);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the items that are due.
+     */
+    public List<T> drainDue() {
+        lock.lock();
+        try {
+            List<T> drained = new ArrayList<>(due);
+            due.clear();
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The last day whose items are due.
+     */
+    public LocalDate current() {
+        lock.lock();
+        try {
+            return LocalDate.ofEpochDay(current);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The first day the wheel does not cover.
+     */
+    public LocalDate horizon() {
+        lock.lock();
+        try {
+            return LocalDate.ofEpochDay(current + slots.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int slot(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) slots.size());
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.library_management.services;
+
+/**
+ * Thrown when a write is rejected by a unique constraint, e.g. a second user with the same email.
+ *
+ * <p>Like {@link ValidationException}, it captures no stack trace.</p>
+ */
+public class DuplicateValueException extends IllegalStateException {
+
+    private final String constraint;
+
+    public DuplicateValueException(String constraint, String message) {
+        super(message);
+        this.constraint = constraint;
+    }
+
+    /**
+     * The name of the violated constraint.
+     */
+    public String getConstraint() {
+        return constraint;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.library_management.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * In-memory FIFO queues of the waiting holds, one per book.
+ *
+ * <p>The {@code BOOK_HOLD} table stays the source of truth; the queues only hold hold IDs in the
+ * order they are served, so a returned copy finds its next hold with a lock-free poll instead of a
+ * query. Polled IDs are checked against the table, so a stale or duplicate entry, e.g. of a hold
+ * cancelled meanwhile, is skipped. The queues are rebuilt from the table on startup by
+ * {@link HoldService}.</p>
+ */
+@Component
+public class HoldQueue {
+
+    private final Map<Long, Deque<Long>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Appends a hold to the end of its book's queue.
+     */
+    public void add(Long bookId, Long holdId) {
+        queues.computeIfAbsent(bookId, id -> new ConcurrentLinkedDeque<>()).offerLast(holdId);
+    }
+
+    /**
+     * Takes the first hold of the book's queue.
+     *
+     * @return the ID of the hold, or {@code null} if no hold is queued
+     */
+    public Long poll(Long bookId) {
+        Deque<Long> queue = queues.get(bookId);
+        return queue == null ? null : queue.pollFirst();
+    }
+
+    /**
+     * Puts a polled hold back at the front of its book's queue, e.g. when the transaction that was
+     * serving it rolled back.
+     */
+    public void restore(Long bookId, Long holdId) {
+        queues.computeIfAbsent(bookId, id -> new ConcurrentLinkedDeque<>()).offerFirst(holdId);
+    }
+
+    /**
+     * Removes a hold from its book's queue. Linear in the queue length, which only cancellations pay.
+     */
+    public void remove(Long bookId, Long holdId) {
+        Deque<Long> queue = queues.get(bookId);
+        if (queue != null) {
+            queue.remove(holdId);
+        }
+    }
+
+    /**
+     * The 1-based position of a hold in its book's queue.
+     *
+     * @return the position, or {@code 0} if the hold is not queued
+     */
+    public int position(Long bookId, Long holdId) {
+        Deque<Long> queue = queues.get(bookId);
+        if (queue == null) {
+            return 0;
+        }
+        int position = 0;
+        for (Long queued : queue) {
+            position++;
+            if (queued.equals(holdId)) {
+                return position;
+            }
+        }
+        return 0;
+    }
+
+    public void clear() {
+        queues.clear();
+    }
+}
@@ -0,0 +1,326 @@
+package com.library.library_management.services;
+
+import com.library.library_management.config.HoldProperties;
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.Hold;
+import com.library.library_management.entities.HoldStatus;
+import com.library.library_management.entities.User;
+import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.repository.HoldRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Places holds on books and hands returned copies to the waiting patrons.
+ *
+ * <p>A patron can place a hold on a book that has no copy on the shelf. When a copy of the book is
+ * returned, {@link #copyReturned(Copy)} takes the oldest waiting hold from the {@link HoldQueue},
+ * reserves the copy for it and gives the patron the configured pickup period to collect it. A copy
+ * that is not collected in time, or whose hold is cancelled, goes to the next hold in the same way,
+ * and back on the shelf once the queue is empty. Patrons see their ready holds on the holds page,
+ * so they do not need to watch the catalog for a copy to come back.</p>
+ */
+@Service
+@Timed(ServiceMetrics.SERVICE)
+public class HoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldService.class);
+
+    private static final Set<HoldStatus> ACTIVE_STATUSES = EnumSet.of(HoldStatus.Waiting, HoldStatus.Ready);
+
+    private final HoldRepository holdRepository;
+
+    private final HoldQueue queue;
+
+    private final CopyRepository copyRepository;
+
+    private final CopyService copyService;
+
+    private final UserService userService;
+
+    private final BookService bookService;
+
+    private final HoldProperties properties;
+
+    private final TransactionTemplate transaction;
+
+    private final Counter placed;
+
+    private final Counter assigned;
+
+    private final Counter collected;
+
+    private final Counter expired;
+
+    private final Counter cancelled;
+
+    public HoldService(HoldRepository holdRepository, HoldQueue queue, CopyRepository copyRepository,
+                       CopyService copyService, UserService userService, BookService bookService,
+                       HoldProperties properties, PlatformTransactionManager transactionManager,
+                       ServiceMetrics metrics) {
+        this.holdRepository = holdRepository;
+        this.queue = queue;
+        this.copyRepository = copyRepository;
+        this.copyService = copyService;
+        this.userService = userService;
+        this.bookService = bookService;
+        this.properties = properties;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.placed = metrics.holds("placed");
+        this.assigned = metrics.holds("assigned");
+        this.collected = metrics.holds("collected");
+        this.expired = metrics.holds("expired");
+        this.cancelled = metrics.holds("cancelled");
+    }
+
+    /**
+     * Queues a hold of the user on the book.
+     *
+     * @throws IllegalStateException if a copy of the book is on the shelf or the user already has an
+     *                               active hold on it
+     */
+    @Transactional
+    public Hold place(Long userId, Long bookId) {
+        User user = userService.getById(userId);
+        Book book = bookService.getById(bookId);
+
+        if (copyRepository.existsByBookIdAndStatusIn(bookId, EnumSet.of(CopyStatus.Available))) {
+            throw new IllegalStateException("A copy of this book is available, it can be borrowed right away.");
+        }
+        if (holdRepository.existsByUserIdAndBookIdAndStatusIn(userId, bookId, ACTIVE_STATUSES)) {
+            throw new IllegalStateException("You already have a hold on this book.");
+        }
+
+        Hold hold = holdRepository.save(new Hold(book, user, LocalDateTime.now()));
+        afterCommit(() -> queue.add(bookId, hold.getId()));
+        afterCommit(placed::increment);
+        return hold;
+    }
+
+    /**
+     * Withdraws a waiting or ready hold of the user. The copy of a ready hold goes to the next hold.
+     */
+    @Transactional
+    public void cancel(Long userId, Long holdId) {
+        Hold hold = getById(holdId);
+        if (!hold.getUser().getId().equals(userId)) {
+            throw new IllegalArgumentException("Hold with ID " + holdId + " was not found.");
+        }
+
+        HoldStatus status = hold.getStatus();
+        if (!status.isActive()) {
+            throw new IllegalStateException("The hold is already " + status.name().toLowerCase() + ".");
+        }
+
+        hold.setStatus(HoldStatus.Cancelled);
+        if (status == HoldStatus.Ready) {
+            release(hold.getCopy());
+        } else {
+            Long bookId = hold.getBook().getId();
+            afterCommit(() -> queue.remove(bookId, holdId));
+        }
+        afterCommit(cancelled::increment);
+    }
+
+    /**
+     * Serves the next hold of the returned copy's book, or puts the copy back on the shelf.
+     *
+     * <p>Joins the transaction that records the return, so the copy is never visible as available to
+     * other patrons while a hold is waiting for it.</p>
+     */
+    @Transactional
+    public void copyReturned(Copy copy) {
+        release(copy);
+    }
+
+    /**
+     * Serves the next holds of several returned copies at once; the copies that no hold is waiting
+     * for go back on the shelf together.
+     */
+    @Transactional
+    public void copiesReturned(Collection<Copy> copies) {
+        List<Copy> shelved = new ArrayList<>();
+        for (Copy copy : copies) {
+            if (!reserveForNextHold(copy)) {
+                shelved.add(copy);
+            }
+        }
+        copyService.changeStatus(shelved, CopyStatus.Available);
+    }
+
+    /**
+     * Completes the ready hold the copy is reserved for, if it belongs to the borrowing user.
+     *
+     * @return {@code true} if the copy was reserved for the user and can be checked out to them
+     */
+    @Transactional
+    public boolean collect(Copy copy, Long userId) {
+        if (copy.getStatus() != CopyStatus.Reserved) {
+            return false;
+        }
+        return holdRepository.findByCopyIdAndStatus(copy.getId(), HoldStatus.Ready)
+                .filter(hold -> hold.getUser().getId().equals(userId))
+                .map(hold -> {
+                    hold.setStatus(HoldStatus.Collected);
+                    // A checkout that is retried or rolled back must not count the hold again
+                    afterCommit(collected::increment);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    public Hold getById(Long holdId) {
+        return holdRepository.findById(holdId)
+                .orElseThrow(() -> new IllegalArgumentException("Hold with ID " + holdId + " was not found."));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Hold> getByUserId(Long userId) {
+        return holdRepository.findByUserId(userId);
+    }
+
+    /**
+     * The 1-based position of a waiting hold in its book's queue, or {@code 0} for other holds.
+     */
+    public int getQueuePosition(Hold hold) {
+        return hold.getStatus() == HoldStatus.Waiting ? queue.position(hold.getBook().getId(), hold.getId()) : 0;
+    }
+
+    /**
+     * Expires the ready holds whose pickup deadline passed and passes their copies on.
+     *
+     * <p>Every hold is expired in its own transaction. A hold that is collected or cancelled
+     * concurrently loses the optimistic lock and is left to that change.</p>
+     */
+    @Scheduled(fixedDelayString = "${library.holds.expiry-check-interval:PT1M}")
+    public void expireOverdue() {
+        for (Hold overdue : holdRepository.findExpired(HoldStatus.Ready, LocalDateTime.now())) {
+            try {
+                boolean expiredNow = Boolean.TRUE.equals(transaction.execute(status -> {
+                    Hold hold = getById(overdue.getId());
+                    if (hold.getStatus() != HoldStatus.Ready) {
+                        return false;
+                    }
+                    hold.setStatus(HoldStatus.Expired);
+                    release(hold.getCopy());
+                    return true;
+                }));
+                if (expiredNow) {
+                    expired.increment();
+                }
+            } catch (OptimisticLockingFailureException e) {
+                log.debug("Hold {} changed while it was expired, skipping it", overdue.getId());
+            }
+        }
+    }
+
+    /**
+     * Fills the queues with the waiting holds stored in the database. Reads from the primary, since a
+     * hold missing from a lagging replica would never be served.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void loadQueues() {
+        queue.clear();
+        List<Hold> waiting = holdRepository.findByStatusInQueueOrder(HoldStatus.Waiting);
+        waiting.forEach(hold -> queue.add(hold.getBook().getId(), hold.getId()));
+        log.info("Loaded {} waiting holds", waiting.size());
+    }
+
+    /**
+     * Reserves the copy for the next waiting hold of its book, or makes it available.
+     */
+    private void release(Copy copy) {
+        if (!reserveForNextHold(copy)) {
+            copyService.changeStatus(copy, CopyStatus.Available);
+        }
+    }
+
+    /**
+     * Reserves the copy for the next waiting hold of its book.
+     *
+     * @return {@code false} if no hold is waiting for the book
+     */
+    private boolean reserveForNextHold(Copy copy) {
+        Long bookId = copy.getBook().getId();
+        Long holdId;
+        while ((holdId = queue.poll(bookId)) != null) {
+            Hold hold = holdRepository.findById(holdId).orElse(null);
+            if (hold == null || hold.getStatus() != HoldStatus.Waiting) {
+                continue;
+            }
+            // The hold stays first in line if the transaction serving it does not commit
+            restoreOnRollback(bookId, holdId);
+            hold.markAsReady(copy, LocalDateTime.now().plus(properties.getPickupPeriod()));
+            copyService.changeStatus(copy, CopyStatus.Reserved);
+            afterCommit(assigned::increment);
+            return true;
+        }
+        return false;
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Puts a polled hold back at the front of its queue if the current transaction does not commit.
+     * The holds polled by one transaction are restored together, the last polled first, so they end
+     * up in the order they had before.
+     */
+    private void restoreOnRollback(Long bookId, Long holdId) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PolledHolds polled) {
+                polled.add(bookId, holdId);
+                return;
+            }
+        }
+        PolledHolds polled = new PolledHolds();
+        polled.add(bookId, holdId);
+        TransactionSynchronizationManager.registerSynchronization(polled);
+    }
+
+    private final class PolledHolds implements TransactionSynchronization {
+
+        private final Deque<Runnable> restores = new ArrayDeque<>();
+
+        void add(Long bookId, Long holdId) {
+            restores.push(() -> queue.restore(bookId, holdId));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+                restores.forEach(Runnable::run);
+            }
+        }
+    }
+}
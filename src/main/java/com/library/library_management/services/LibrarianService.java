@@ -1,20 +1,35 @@
 package com.library.library_management.services;
 
+import com.library.library_management.dto.LibrarianRow;
 import com.library.library_management.entities.Librarian;
 import com.library.library_management.repository.LibrarianRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
+@Timed(ServiceMetrics.SERVICE)
 public class LibrarianService {
 
     private final LibrarianRepository librarianRepository;
 
-    public LibrarianService(LibrarianRepository librarianRepository) {
+    private final UniqueConstraints uniqueConstraints;
+
+    private final CatalogVersion catalogVersion;
+
+    private final Timer validationTimer;
+
+    public LibrarianService(LibrarianRepository librarianRepository, UniqueConstraints uniqueConstraints,
+                            CatalogVersion catalogVersion, ServiceMetrics metrics) {
         this.librarianRepository = librarianRepository;
+        this.uniqueConstraints = uniqueConstraints;
+        this.catalogVersion = catalogVersion;
+        this.validationTimer = metrics.validation("librarian");
     }
 
     public List<Librarian> getAll() {
@@ -23,10 +38,15 @@ public class LibrarianService {
         return librarians;
     }
 
+    public List<LibrarianRow> getRows() {
+        return librarianRepository.findRows();
+    }
+
     public void delete(Long id) {
         librarianRepository.findById(id).orElseThrow(() ->
                 new IllegalArgumentException("Librarian with ID " + id + " was not found."));
         librarianRepository.deleteById(id);
+        catalogVersion.changed();
     }
 
     public Librarian getById(Long id) {
@@ -34,47 +54,50 @@ public class LibrarianService {
                 new IllegalArgumentException("Librarian with ID" + id + "was not found."));
     }
 
+    /**
+     * Updates a librarian edited in a form. The stored librarian is loaded into the transaction, so the
+     * save merges into it without reading it again.
+     */
+    @Transactional
     public void update(Librarian librarian) {
-        validateLibrarian(librarian);
+        validationTimer.record(() -> validateLibrarian(librarian));
         librarianRepository.findById(librarian.getId()).orElseThrow(() ->
                 new IllegalArgumentException("Librarian with ID " + librarian.getId() + " was not found."));
-        librarianRepository.save(librarian);
+        save(librarian);
+        catalogVersion.changed();
     }
+
     public void insert(Librarian librarian) {
-        validateLibrarian(librarian);
-        librarianRepository.save(librarian);
+        validationTimer.record(() -> validateLibrarian(librarian));
+        save(librarian);
+        catalogVersion.changed();
+    }
+
+    private void save(Librarian librarian) {
+        uniqueConstraints.write(Librarian.USER_CONSTRAINT,
+                () -> "The user with ID " + librarian.getUser().getId() + " already is a librarian.",
+                () -> librarianRepository.save(librarian));
     }
 
     private void validateLibrarian(Librarian librarian) {
         if (librarian == null) {
-            throw new IllegalArgumentException("Librarian cannot be null.");
-        }
-
-        if (librarian.getUser() == null) {
-            throw new IllegalArgumentException("A librarian must have an associated user.");
-        }
-
-        if (librarian.getUser().getEmail() == null || librarian.getUser().getEmail().trim().isEmpty()) {
-            throw new IllegalArgumentException("User email cannot be empty.");
+            throw new ValidationException("Librarian cannot be null.");
         }
 
-        Librarian existingLibrarian = librarianRepository.findByUserEmail(librarian.getUser().getEmail());
-        if (existingLibrarian != null && !existingLibrarian.getId().equals(librarian.getId())) {
-            throw new IllegalStateException(
-                    "A librarian associated with email " + librarian.getUser().getEmail() + " already exists."
-            );
+        if (librarian.getUser() == null || librarian.getUser().getId() == null) {
+            throw new ValidationException("A librarian must have an associated user.");
         }
 
         if (librarian.getEmploymentDate() == null) {
-            throw new IllegalArgumentException("Employment date cannot be null.");
+            throw new ValidationException("Employment date cannot be null.");
         }
 
         if (librarian.getEmploymentDate().isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("Employment date cannot be in the future.");
+            throw new ValidationException("Employment date cannot be in the future.");
         }
 
         if (librarian.getPosition() == null || librarian.getPosition().trim().isEmpty()) {
-            throw new IllegalArgumentException("Position cannot be empty.");
+            throw new ValidationException("Position cannot be empty.");
         }
     }
 }
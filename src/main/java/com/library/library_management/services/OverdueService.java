@@ -0,0 +1,198 @@
+package com.library.library_management.services;
+
+import com.library.library_management.config.LoanProperties;
+import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.repository.BorrowingRepository;
+import com.library.library_management.repository.BorrowingRepository.DueLoan;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Flags open loans as overdue once their due date has passed, and marks the copy as lost when the
+ * loan stays open for the configured period after that.
+ *
+ * <p>Upcoming deadlines are kept in a {@link DueDateWheel} that covers the next
+ * {@code library.loans.wheel-days} days, so a day change only visits the loans whose deadline falls
+ * on that day. The wheel is filled on startup from the open loans due before its horizon, and each
+ * day the horizon moves by one, the loans of the newly covered day are read with an equality lookup
+ * on {@code idx_borrowing_open_due}. New loans and changed due dates are scheduled by
+ * {@link BorrowingService}. Deadlines are checked against the stored loan when they come due, so
+ * entries of loans returned or rescheduled meanwhile are dropped there.</p>
+ */
+@Service
+@Timed(ServiceMetrics.SERVICE)
+public class OverdueService {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueService.class);
+
+    private final BorrowingRepository borrowingRepository;
+
+    private final CopyService copyService;
+
+    private final LoanProperties properties;
+
+    private final CatalogVersion catalogVersion;
+
+    private final TransactionTemplate transaction;
+
+    private final Counter overdue;
+
+    private final Counter lost;
+
+    private volatile DueDateWheel<Deadline> wheel;
+
+    public OverdueService(BorrowingRepository borrowingRepository, CopyService copyService, LoanProperties properties,
+                          CatalogVersion catalogVersion, PlatformTransactionManager transactionManager,
+                          ServiceMetrics metrics) {
+        this.borrowingRepository = borrowingRepository;
+        this.copyService = copyService;
+        this.properties = properties;
+        this.catalogVersion = catalogVersion;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.overdue = metrics.escalations("overdue");
+        this.lost = metrics.escalations("lost");
+    }
+
+    /**
+     * The due date of a loan made on the given day.
+     */
+    public LocalDate dueDateFor(LocalDate borrowDate) {
+        return borrowDate.plus(properties.getLoanPeriod());
+    }
+
+    /**
+     * Schedules the deadlines of a new loan or of a loan whose due date changed, once the
+     * surrounding transaction commits.
+     */
+    public void loanChanged(Borrowing borrowing) {
+        if (borrowing.getReturnDate() != null || borrowing.getDueDate() == null) {
+            return;
+        }
+        Long id = borrowing.getId();
+        LocalDate dueDate = borrowing.getDueDate();
+        boolean flagged = borrowing.isOverdue();
+        afterCommit(() -> {
+            DueDateWheel<Deadline> current = wheel;
+            if (current != null) {
+                schedule(current, id, dueDate, flagged);
+            }
+        });
+    }
+
+    /**
+     * Fills a new wheel from the open loans due before its horizon and escalates the ones already due.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        DueDateWheel<Deadline> rebuilt = new DueDateWheel<>(properties.getWheelDays(), today);
+        // Published before the read, so a loan committed meanwhile is scheduled by loanChanged or read here
+        wheel = rebuilt;
+        List<DueLoan> loans = transaction.execute(status -> borrowingRepository.findOpenDueBefore(rebuilt.horizon()));
+        loans.forEach(loan -> schedule(rebuilt, loan.getId(), loan.getDueDate(), loan.isOverdue()));
+        log.info("Scheduled the deadlines of {} open loans due before {}", loans.size(), rebuilt.horizon());
+        escalate(rebuilt.drainDue(), today);
+    }
+
+    /**
+     * Advances the wheel to today, reading the loans of each newly covered day, and escalates the
+     * loans whose deadline has come.
+     */
+    @Scheduled(fixedDelayString = "${library.loans.overdue-check-interval:10m}")
+    public void tick() {
+        DueDateWheel<Deadline> current = wheel;
+        if (current == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        while (current.current().isBefore(today)) {
+            current.advance();
+            LocalDate covered = current.horizon().minusDays(1);
+            // Overdue from the day after the due date, lost once lostAfter has passed since it
+            transaction.executeWithoutResult(status -> {
+                borrowingRepository.findOpenDueOn(covered.minusDays(1)).stream()
+                        .filter(loan -> !loan.isOverdue())
+                        .forEach(loan -> current.schedule(new Deadline(loan.getId(), Escalation.OVERDUE), covered));
+                borrowingRepository.findOpenDueOn(covered.minus(properties.getLostAfter()))
+                        .forEach(loan -> current.schedule(new Deadline(loan.getId(), Escalation.LOST), covered));
+            });
+        }
+        escalate(current.drainDue(), today);
+    }
+
+    private void schedule(DueDateWheel<Deadline> wheel, Long borrowingId, LocalDate dueDate, boolean flagged) {
+        if (!flagged) {
+            wheel.schedule(new Deadline(borrowingId, Escalation.OVERDUE), dueDate.plusDays(1));
+        }
+        // Beyond the horizon it is read again when the wheel reaches that day
+        wheel.schedule(new Deadline(borrowingId, Escalation.LOST), dueDate.plus(properties.getLostAfter()));
+    }
+
+    private void escalate(List<Deadline> deadlines, LocalDate today) {
+        for (Deadline deadline : deadlines) {
+            try {
+                transaction.executeWithoutResult(status -> escalate(deadline, today));
+            } catch (OptimisticLockingFailureException e) {
+                // The copy changed concurrently, e.g. it is being returned right now
+                log.debug("Copy of borrowing {} changed while it was escalated, skipping it", deadline.borrowingId());
+            }
+        }
+    }
+
+    private void escalate(Deadline deadline, LocalDate today) {
+        Borrowing borrowing = borrowingRepository.findById(deadline.borrowingId()).orElse(null);
+        if (borrowing == null || borrowing.getReturnDate() != null || borrowing.getDueDate() == null
+                || !borrowing.getDueDate().isBefore(today)) {
+            return;
+        }
+        if (!borrowing.isOverdue()) {
+            borrowing.setOverdue(true);
+            catalogVersion.changed();
+            overdue.increment();
+        }
+        if (deadline.escalation() == Escalation.LOST
+                && !borrowing.getDueDate().plus(properties.getLostAfter()).isAfter(today)) {
+            Copy copy = borrowing.getCopy();
+            if (copy != null && copy.getStatus() == CopyStatus.Borrowed) {
+                copyService.changeStatus(copy, CopyStatus.Lost);
+                lost.increment();
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private enum Escalation {
+        OVERDUE, LOST
+    }
+
+    private record Deadline(Long borrowingId, Escalation escalation) {
+    }
+}
@@ -2,28 +2,48 @@ package com.library.library_management.services;
 
 import com.library.library_management.entities.Publisher;
 import com.library.library_management.repository.PublisherRepository;
+import com.library.library_management.search.CatalogIndexer;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
+@Timed(ServiceMetrics.SERVICE)
 public class PublisherService {
 
     private final PublisherRepository publisherRepository;
 
-    public PublisherService(PublisherRepository publisherRepository) {
+    private final SecondLevelCacheEvictor cacheEvictor;
+
+    private final CatalogIndexer catalogIndexer;
+
+    private final CatalogVersion catalogVersion;
+
+    private final Timer validationTimer;
+
+    public PublisherService(PublisherRepository publisherRepository, SecondLevelCacheEvictor cacheEvictor,
+                            CatalogIndexer catalogIndexer, CatalogVersion catalogVersion, ServiceMetrics metrics) {
         this.publisherRepository = publisherRepository;
+        this.cacheEvictor = cacheEvictor;
+        this.catalogIndexer = catalogIndexer;
+        this.catalogVersion = catalogVersion;
+        this.validationTimer = metrics.validation("publisher");
     }
 
     public void insert(Publisher publisher) {
-        validatePublisher(publisher);
+        validationTimer.record(() -> validatePublisher(publisher));
         publisherRepository.save(publisher);
+        catalogVersion.changed();
     }
 
     public void update(Publisher publisher) {
-        validatePublisher(publisher);
+        validationTimer.record(() -> validatePublisher(publisher));
         publisherRepository.save(publisher);
+        catalogIndexer.publisherChanged(publisher);
+        catalogVersion.changed();
     }
 
     public void delete(Long id) {
@@ -32,6 +52,8 @@ public class PublisherService {
             throw new IllegalStateException("It is impossible to delete a publisher who has related books.");
         }
         publisherRepository.deleteById(id);
+        cacheEvictor.evictPublisherBooks(id);
+        catalogVersion.changed();
     }
 
     public List<Publisher> getAll() {
@@ -46,7 +68,7 @@ public class PublisherService {
 
     public void validatePublisher(Publisher publisher){
         if (publisher.getName() == null || publisher.getName().isEmpty()) {
-            throw new IllegalArgumentException("Publisher name can`t be empty.");
+            throw new ValidationException("Publisher name can`t be empty.");
         }
     }
 }
\ No newline at end of file
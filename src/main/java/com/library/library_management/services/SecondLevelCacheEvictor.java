@@ -0,0 +1,57 @@
+package com.library.library_management.services;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.Publisher;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts cached collections that Hibernate does not invalidate on its own.
+ *
+ * <p>Entity regions are kept consistent by Hibernate itself, but the inverse side of a one-to-many
+ * association ({@link Book#getCopies()}, {@link Publisher#getBooks()}) is only a cached list of ids
+ * that goes stale when a child is added, moved or removed. The services call this component after
+ * such writes; inside a transaction the eviction is repeated after commit so a concurrent reader
+ * cannot re-populate the region with the pre-commit state.</p>
+ */
+@Component
+public class SecondLevelCacheEvictor {
+
+    private static final String BOOK_COPIES = Book.class.getName() + ".copies";
+
+    private static final String PUBLISHER_BOOKS = Publisher.class.getName() + ".books";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evictBookCopies(Long bookId) {
+        evictCollection(BOOK_COPIES, bookId);
+    }
+
+    public void evictPublisherBooks(Long publisherId) {
+        evictCollection(PUBLISHER_BOOKS, publisherId);
+    }
+
+    private void evictCollection(String role, Long ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictCollectionData(role, ownerId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evictCollectionData(role, ownerId);
+                }
+            });
+        }
+    }
+}
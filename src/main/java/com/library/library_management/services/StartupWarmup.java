@@ -0,0 +1,72 @@
+package com.library.library_management.services;
+
+import com.library.library_management.services.paging.PageQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the queries behind the busiest pages once on startup, so the first requests do not pay for
+ * Hibernate's query translation, the statement preparation and a cold second-level cache.
+ *
+ * <p>Enabled with {@code library.startup.warmup=true}. It runs once all beans are created and
+ * before the web server opens its port, so no request waits behind it; in the class-data-sharing
+ * training run of the prod build it also records the classes of these queries. Every page is read
+ * in a read-only transaction, as open-in-view would for a request. A failing query is logged and
+ * does not stop the start.</p>
+ */
+@Component
+@ConditionalOnProperty("library.startup.warmup")
+public class StartupWarmup implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final BookService bookService;
+
+    private final CopyService copyService;
+
+    private final BorrowingService borrowingService;
+
+    private final UserService userService;
+
+    private final LibrarianService librarianService;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StartupWarmup(BookService bookService, CopyService copyService, BorrowingService borrowingService,
+                         UserService userService, LibrarianService librarianService,
+                         PlatformTransactionManager transactionManager) {
+        this.bookService = bookService;
+        this.copyService = copyService;
+        this.borrowingService = borrowingService;
+        this.userService = userService;
+        this.librarianService = librarianService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        PageQuery first = PageQuery.first();
+        run("books", () -> bookService.getPage(first));
+        run("copies", () -> copyService.getPage(first));
+        run("borrowings", () -> borrowingService.getPage(first));
+        run("persons", () -> userService.getPage(first));
+        run("librarians", librarianService::getRows);
+        run("available books", bookService::getAvailableBooksWithNumberOfCopies);
+        log.info("Warmed up the list page queries in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void run(String page, Runnable query) {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> query.run());
+        } catch (RuntimeException e) {
+            log.warn("Warmup of the {} page failed", page, e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.library_management.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Runs writes whose uniqueness is enforced by a named unique constraint instead of a lookup before
+ * the save, and translates a violation of that constraint into a {@link DuplicateValueException}.
+ *
+ * <p>Inside a transaction the write is flushed right away, so the violation surfaces here rather than
+ * at commit, where the caller could no longer tell which constraint failed; the statements would be
+ * sent before the commit anyway. Violations of other constraints are passed on unchanged.</p>
+ */
+@Component
+public class UniqueConstraints {
+
+    private final EntityManager entityManager;
+
+    public UniqueConstraints(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Runs and flushes a write.
+     *
+     * @param constraint the name of the unique constraint the write may violate
+     * @param message    the message of the {@link DuplicateValueException}
+     * @param write      the write
+     * @return the result of the write
+     * @throws DuplicateValueException if the write violates the constraint
+     */
+    public <T> T write(String constraint, Supplier<String> message, Supplier<T> write) {
+        try {
+            T result = write.get();
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                entityManager.flush();
+            }
+            return result;
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            if (violates(e, constraint)) {
+                throw new DuplicateValueException(constraint, message.get());
+            }
+            throw e;
+        }
+    }
+
+    private static boolean violates(Throwable exception, String constraint) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                // Some databases report the name qualified by the schema or with the index suffix
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraint);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,191 @@
+package com.library.library_management.services;
+
+import com.library.library_management.config.LookupFilterProperties;
+import com.library.library_management.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * {@link BloomFilter} of the emails of all users, which answers a lookup of an unknown email, such as
+ * a mistyped or guessed login, without a query.
+ *
+ * <p>The filter is built on startup from all stored emails and is rebuilt once its estimated rate of
+ * false positives has drifted to twice the configured rate, either because more users were added than
+ * it was sized for or because changed and deleted emails left their bits behind. Until the first
+ * build, every lookup goes to the database. {@link UserService} adds an email before it is saved, so
+ * a lookup right after the commit already passes, and once more after the commit: a rebuild that
+ * started before the commit cannot see the new row, so the second add puts it into the filter being
+ * built. The rebuild reads from the primary, since a replica may not have the newest rows yet. Adds
+ * and the start and end of a rebuild take a short lock; lookups take none.</p>
+ */
+@Component
+public class UserEmailFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEmailFilter.class);
+
+    private static final long MIN_SIZE = 1_024;
+
+    private final UserRepository userRepository;
+
+    private final LookupFilterProperties properties;
+
+    private final TransactionTemplate transaction;
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private final Counter skipped;
+
+    private final Counter found;
+
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+
+    private BloomFilter building;
+
+    public UserEmailFilter(UserRepository userRepository, LookupFilterProperties properties,
+                           PlatformTransactionManager transactionManager, ServiceMetrics metrics) {
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.skipped = metrics.lookupFilter("email", "skipped");
+        this.found = metrics.lookupFilter("email", "found");
+        this.falsePositives = metrics.lookupFilter("email", "false_positive");
+        metrics.lookupFilterFalsePositives("email", "observed", this, UserEmailFilter::observedFalsePositiveRate);
+        metrics.lookupFilterFalsePositives("email", "estimated", this, UserEmailFilter::estimatedFalsePositiveRate);
+    }
+
+    /**
+     * @return {@code false} if no user has the email, so the lookup can be skipped
+     */
+    public boolean mightExist(String email) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(email)) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * Records the outcome of a lookup that {@link #mightExist(String)} passed to the database.
+     */
+    public void lookedUp(boolean exists) {
+        if (filter != null) {
+            (exists ? found : falsePositives).increment();
+        }
+    }
+
+    /**
+     * Adds the email of a user about to be saved, and again once the surrounding transaction commits.
+     */
+    public void added(String email) {
+        put(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(email);
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds a new filter from the stored emails and replaces the current one with it. A failed
+     * rebuild is logged and keeps the current filter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long users = transaction.execute(status -> {
+                long count = userRepository.count();
+                BloomFilter rebuilt = new BloomFilter(Math.max(MIN_SIZE, count * 2), properties.getFalsePositiveRate());
+                // Started before the read, so an email committed meanwhile is read here or added by added()
+                swap(null, rebuilt);
+                try (Stream<String> emails = userRepository.streamEmails()) {
+                    emails.forEach(rebuilt::put);
+                }
+                return count;
+            });
+            swap(building, null);
+            log.info("Rebuilt the email filter for {} users in {} ms", users, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            swap(null, null);
+            log.warn("Rebuilding the email filter failed", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the filter once its estimated rate of false positives is twice the configured one.
+     */
+    @Scheduled(fixedDelayString = "${library.lookup-filter.check-interval:10m}")
+    public void check() {
+        BloomFilter current = filter;
+        if (current != null && current.expectedFalsePositiveRate() >= 2 * properties.getFalsePositiveRate()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replaces the filter in use and the one being built under the lock, so no add falls in between.
+     * A {@code null} filter leaves the current one in use.
+     */
+    private void swap(BloomFilter next, BloomFilter nextBuilding) {
+        lock.lock();
+        try {
+            if (next != null) {
+                filter = next;
+            }
+            building = nextBuilding;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String email) {
+        lock.lock();
+        try {
+            if (filter != null) {
+                filter.put(email);
+            }
+            if (building != null) {
+                building.put(email);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double passed = falsePositives.count();
+        double missing = passed + skipped.count();
+        return missing == 0 ? 0 : passed / missing;
+    }
+
+    private double estimatedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 1 : current.expectedFalsePositiveRate();
+    }
+}
@@ -2,18 +2,41 @@ package com.library.library_management.services;
 
 import com.library.library_management.entities.User;
 import com.library.library_management.repository.UserRepository;
+import com.library.library_management.services.paging.KeysetPage;
+import com.library.library_management.services.paging.PageQuery;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Service
+@Timed(ServiceMetrics.SERVICE)
 public class UserService {
 
+    private static final Set<String> SORTABLE = Set.of("id", "name", "email");
+
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final UniqueConstraints uniqueConstraints;
+
+    private final UserEmailFilter emailFilter;
+
+    private final CatalogVersion catalogVersion;
+
+    private final Timer validationTimer;
+
+    public UserService(UserRepository userRepository, UniqueConstraints uniqueConstraints,
+                       UserEmailFilter emailFilter, CatalogVersion catalogVersion, ServiceMetrics metrics) {
         this.userRepository = userRepository;
+        this.uniqueConstraints = uniqueConstraints;
+        this.emailFilter = emailFilter;
+        this.catalogVersion = catalogVersion;
+        this.validationTimer = metrics.validation("user");
     }
 
     public List<User> getAll() {
@@ -22,6 +45,10 @@ public class UserService {
         return users;
     }
 
+    public KeysetPage<User> getPage(PageQuery query) {
+        return KeysetPage.of(userRepository.findBy(query.toPosition(), query.toSort(SORTABLE), query.toLimit()), query);
+    }
+
     public void delete(Long id) {
         User user = userRepository.findById(id).orElseThrow(() ->
                 new IllegalArgumentException("User with ID " + id + " was not found."));
@@ -31,6 +58,14 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        catalogVersion.changed();
+    }
+
+    /**
+     * The users with the given IDs, with their librarian records, in one statement; unknown IDs are skipped.
+     */
+    public List<User> getAllById(Collection<Long> ids) {
+        return userRepository.findByIdIn(ids);
     }
 
     public User getById(Long id) {
@@ -38,43 +73,57 @@ public class UserService {
                 new IllegalArgumentException("User with ID" + id + "was not found."));
     }
 
+    /**
+     * Updates a user edited in a form. The stored user is loaded into the transaction, so the save
+     * merges into it without reading it again; a taken email is rejected by the unique constraint.
+     */
+    @Transactional
     public void update(User user) {
-        validateUser(user);
+        validationTimer.record(() -> validateUser(user));
         userRepository.findById(user.getId()).orElseThrow(() ->
                 new IllegalArgumentException("User with ID " + user.getId() + " was not found."));
-        userRepository.save(user);
+        save(user);
+        catalogVersion.changed();
     }
 
+    @Transactional
     public void insert(User user) {
-        validateUser(user);
-        userRepository.save(user);
+        validationTimer.record(() -> validateUser(user));
+        save(user);
+        catalogVersion.changed();
     }
 
+    /**
+     * @return the user with the email, or {@code null} if there is none; an email that
+     *         {@link UserEmailFilter} has never seen is answered without a query
+     */
     public User getByEmail(String email) {
-        return userRepository.getByEmail(email);
+        if (!emailFilter.mightExist(email)) {
+            return null;
+        }
+        User user = userRepository.getByEmail(email);
+        emailFilter.lookedUp(user != null);
+        return user;
+    }
+
+    private void save(User user) {
+        emailFilter.added(user.getEmail());
+        uniqueConstraints.write(User.EMAIL_CONSTRAINT,
+                () -> "User with email " + user.getEmail() + " already exists.",
+                () -> userRepository.save(user));
     }
 
     private void validateUser(User user) {
         if (user.getName() == null || user.getName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Name cannot be empty.");
+            throw new ValidationException("Name cannot be empty.");
         }
 
         if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
-            throw new IllegalArgumentException("Email cannot be empty.");
-        }
-
-        User testUser1 = userRepository.getByEmail(user.getEmail());
-        if (testUser1 != null && !testUser1.getId().equals(user.getId())) {
-            throw new IllegalStateException("User with email " + user.getEmail() + " already exists.");
+            throw new ValidationException("Email cannot be empty.");
         }
 
         if (user.getPhoneNumber() == null || user.getPhoneNumber().trim().isEmpty()) {
-            throw new IllegalArgumentException("Phone number cannot be empty.");
-        }
-
-        User testUser2 = userRepository.getByEmail(user.getEmail());
-        if (testUser2 != null && !testUser2.getId().equals(user.getId())) {
-            throw new IllegalStateException("User with email " + user.getEmail() + " already exists.");
+            throw new ValidationException("Phone number cannot be empty.");
         }
     }
 }
@@ -0,0 +1,19 @@
+package com.library.library_management.services;
+
+/**
+ * Thrown when a submitted entity is invalid, e.g. a required field is empty.
+ *
+ * <p>A rejected form is an expected outcome rather than a failure of the code, so no stack trace is
+ * captured; the message is all the error page shows.</p>
+ */
+public class ValidationException extends IllegalArgumentException {
+
+    public ValidationException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,93 @@
+package com.library.library_management.services.paging;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes keyset scroll positions as opaque, URL-safe cursor strings.
+ *
+ * <p>A cursor carries the sort key values of the last row of a page together with their types, so the
+ * next page can be read without looking that row up again. Only the value types used by sortable columns
+ * are supported: {@link Long}, {@link Integer}, {@link String} and {@link LocalDate}.</p>
+ */
+public final class KeysetCursor {
+
+    private static final char FIELD_SEPARATOR = '\u001F';
+
+    private static final char ENTRY_SEPARATOR = '\u001E';
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Encodes a keyset position.
+     *
+     * @param position the position of the last row of a page
+     * @return the cursor string
+     */
+    public static String encode(KeysetScrollPosition position) {
+        StringBuilder raw = new StringBuilder();
+        for (Map.Entry<String, Object> key : position.getKeys().entrySet()) {
+            if (!raw.isEmpty()) {
+                raw.append(ENTRY_SEPARATOR);
+            }
+            raw.append(key.getKey()).append(FIELD_SEPARATOR)
+                    .append(typeOf(key.getValue())).append(FIELD_SEPARATOR)
+                    .append(key.getValue());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(KeysetScrollPosition)}.
+     *
+     * @param cursor the cursor string
+     * @return the forward keyset position after the encoded row
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String entry : raw.split(String.valueOf(ENTRY_SEPARATOR))) {
+                String[] parts = entry.split(String.valueOf(FIELD_SEPARATOR), 3);
+                keys.put(parts[0], valueOf(parts[1].charAt(0), parts[2]));
+            }
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor.");
+        }
+    }
+
+    private static char typeOf(Object value) {
+        if (value instanceof Long) {
+            return 'L';
+        }
+        if (value instanceof Integer) {
+            return 'I';
+        }
+        if (value instanceof String) {
+            return 'S';
+        }
+        if (value instanceof LocalDate) {
+            return 'D';
+        }
+        throw new IllegalArgumentException("Unsupported sort key type: " + value);
+    }
+
+    private static Object valueOf(char type, String value) {
+        return switch (type) {
+            case 'L' -> Long.valueOf(value);
+            case 'I' -> Integer.valueOf(value);
+            case 'S' -> value;
+            case 'D' -> LocalDate.parse(value);
+            default -> throw new IllegalArgumentException("Unsupported sort key type: " + type);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.library.library_management.services.paging;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A bounded page of rows read with a keyset (seek) predicate.
+ *
+ * <p>Unlike offset pagination, fetching the next page costs the same no matter how deep the reader has
+ * scrolled: the database seeks straight to the row after {@link #nextCursor()} using the sort index.</p>
+ *
+ * @param content    the rows of the page
+ * @param nextCursor the cursor of the following page, or {@code null} if this is the last one
+ * @param query      the query the page was read with
+ * @param <T>        the row type
+ */
+public record KeysetPage<T>(List<T> content, String nextCursor, PageQuery query) {
+
+    /**
+     * Creates a page from a Spring Data keyset window.
+     *
+     * @param window the window returned by the repository
+     * @param query  the query the window was read with
+     * @param <T>    the row type
+     * @return the page
+     */
+    public static <T> KeysetPage<T> of(Window<T> window, PageQuery query) {
+        String next = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            next = KeysetCursor.encode((KeysetScrollPosition) window.positionAt(window.size() - 1));
+        }
+        return new KeysetPage<>(window.getContent(), next, query);
+    }
+
+    /**
+     * Checks whether there is a page after this one.
+     *
+     * @return {@code true} if {@link #nextCursor()} is set
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Converts the rows of the page, keeping its cursor.
+     *
+     * @param mapper the row conversion
+     * @param <R>    the new row type
+     * @return the converted page
+     */
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPage<>(content.stream().<R>map(mapper).toList(), nextCursor, query);
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.library_management.services.paging;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+/**
+ * Request parameters of a keyset-paginated list view.
+ *
+ * <p>Bound directly from the query string of the admin list pages ({@code ?sort=title&direction=desc&cursor=...}).
+ * Missing values fall back to sorting by {@code id} in ascending order with a page of {@value #DEFAULT_SIZE} rows,
+ * and the page size is capped at {@value #MAX_SIZE} so a single request can never drain a whole table.</p>
+ *
+ * @param cursor    opaque position of the last row of the previous page, or {@code null} for the first page
+ * @param sort      the property to sort by
+ * @param direction the sort direction, {@code asc} or {@code desc}
+ * @param size      the maximum number of rows in the page
+ */
+public record PageQuery(String cursor, String sort, String direction, Integer size) {
+
+    public static final int DEFAULT_SIZE = 50;
+
+    public static final int MAX_SIZE = 200;
+
+    private static final String ID = "id";
+
+    public PageQuery {
+        if (cursor != null && cursor.isBlank()) {
+            cursor = null;
+        }
+        if (sort == null || sort.isBlank()) {
+            sort = ID;
+        }
+        direction = Sort.Direction.fromOptionalString(direction).orElse(Sort.Direction.ASC).name().toLowerCase();
+        if (size == null || size <= 0) {
+            size = DEFAULT_SIZE;
+        }
+        size = Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Creates a query for the first page sorted by id.
+     *
+     * @return the default page query
+     */
+    public static PageQuery first() {
+        return new PageQuery(null, null, null, null);
+    }
+
+    /**
+     * Builds the sort order of the page.
+     *
+     * <p>The id is always appended as the last sort key so that the order is total and the keyset
+     * predicate never skips or repeats rows that share the same value of the sort property.</p>
+     *
+     * @param sortable the properties the caller allows sorting by
+     * @return the sort order
+     * @throws IllegalArgumentException if the requested property is not sortable
+     */
+    public Sort toSort(Set<String> sortable) {
+        if (!sortable.contains(sort)) {
+            throw new IllegalArgumentException("Sorting by '" + sort + "' is not supported.");
+        }
+        Sort.Direction dir = Sort.Direction.fromString(direction);
+        Sort order = Sort.by(dir, sort);
+        return ID.equals(sort) ? order : order.and(Sort.by(dir, ID));
+    }
+
+    /**
+     * Gets the scroll position the page starts after.
+     *
+     * @return the decoded cursor, or the initial keyset position for the first page
+     */
+    public ScrollPosition toPosition() {
+        return cursor == null ? ScrollPosition.keyset() : KeysetCursor.decode(cursor);
+    }
+
+    /**
+     * Gets the row limit of the page.
+     *
+     * @return the limit
+     */
+    public Limit toLimit() {
+        return Limit.of(size);
+    }
+
+    /**
+     * Gets the direction a column header link should request for the given property.
+     *
+     * @param property the property of the column
+     * @return {@code desc} if the page is currently sorted ascending by that property, {@code asc} otherwise
+     */
+    public String toggledDirection(String property) {
+        return property.equals(sort) && "asc".equals(direction) ? "desc" : "asc";
+    }
+}
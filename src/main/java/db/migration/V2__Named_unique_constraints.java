@@ -0,0 +1,78 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the unnamed unique constraints of the baseline with named ones and turns the index on the
+ * book and copy number into a unique constraint.
+ *
+ * <p>The services no longer look values up before saving them but translate the violation of a
+ * constraint into a message, which needs to know the constraint by name. The baseline left naming
+ * the email, ISBN and librarian user constraints to the database, so their names are read from the
+ * information schema before they are dropped; that is why this migration is not plain SQL. The foreign
+ * key of the librarian's user uses the index of its unnamed constraint, which keeps the constraint
+ * from being dropped, so the key is recreated on top of the named constraint.</p>
+ */
+public class V2__Named_unique_constraints extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        replaceUnique(connection, "USERS", "EMAIL", "uk_users_email");
+        replaceUnique(connection, "BOOK", "ISBN", "uk_book_isbn");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE librarian DROP CONSTRAINT fk_librarian_user");
+            replaceUnique(connection, "LIBRARIAN", "USER_ID", "uk_librarian_user");
+            statement.execute("ALTER TABLE librarian ADD CONSTRAINT fk_librarian_user FOREIGN KEY (user_id) REFERENCES users");
+
+            statement.execute("ALTER TABLE copy ADD CONSTRAINT uk_copy_book_number UNIQUE (book_id, copy_number)");
+            statement.execute("DROP INDEX idx_copy_book_number");
+        }
+    }
+
+    private static void replaceUnique(Connection connection, String table, String column, String name)
+            throws SQLException {
+        List<String> unnamed = uniqueConstraints(connection, table, column);
+        try (Statement statement = connection.createStatement()) {
+            // Dropped first: a new constraint would take over the existing index, and with it its name
+            for (String constraint : unnamed) {
+                statement.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + constraint + "\"");
+            }
+            statement.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " UNIQUE (" + column + ")");
+        }
+    }
+
+    /**
+     * The single-column unique constraints on the column.
+     */
+    private static List<String> uniqueConstraints(Connection connection, String table, String column)
+            throws SQLException {
+        String sql = "SELECT tc.constraint_name FROM information_schema.table_constraints tc"
+                + " JOIN information_schema.key_column_usage k ON k.constraint_schema = tc.constraint_schema"
+                + " AND k.constraint_name = tc.constraint_name"
+                + " WHERE tc.constraint_type = 'UNIQUE' AND tc.table_schema = CURRENT_SCHEMA"
+                + " AND tc.table_name = ? AND k.column_name = ?"
+                + " AND (SELECT COUNT(*) FROM information_schema.key_column_usage c"
+                + " WHERE c.constraint_schema = tc.constraint_schema AND c.constraint_name = tc.constraint_name) = 1";
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            query.setString(1, table);
+            query.setString(2, column);
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    names.add(result.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,18 @@
+-- Converts COPY.status from the status name to its one-character code (CopyStatus.getCode())
+-- and adds the (status, book_id) index, for databases created before the column was typed.
+-- Run once with the application stopped, e.g. from the H2 console. A copy with a status that
+-- is not a known name stops the script at SET NOT NULL, before anything is lost.
+ALTER TABLE COPY ADD COLUMN status_code CHAR(1);
+
+UPDATE COPY SET status_code = CASE status
+    WHEN 'Available' THEN 'A'
+    WHEN 'Borrowed' THEN 'B'
+    WHEN 'Reserved' THEN 'R'
+    WHEN 'Lost' THEN 'L'
+END;
+
+ALTER TABLE COPY ALTER COLUMN status_code SET NOT NULL;
+ALTER TABLE COPY DROP COLUMN status;
+ALTER TABLE COPY ALTER COLUMN status_code RENAME TO status;
+
+CREATE INDEX idx_copy_status_book ON COPY (status, book_id);
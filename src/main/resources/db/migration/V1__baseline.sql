@@ -0,0 +1,116 @@
+-- Schema of the entities as of the first Flyway-managed release. Later changes to the entities need
+-- a V<n>__*.sql migration next to this one; the prod profile validates the schema against the
+-- entities on startup and refuses to start on a mismatch.
+
+CREATE SEQUENCE publisher_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE copy_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE librarian_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE borrowing_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_hold_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE publisher (
+    id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    address VARCHAR(255),
+    phonenumber VARCHAR(20),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE book (
+    id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    publication_year INTEGER NOT NULL,
+    isbn VARCHAR(255) NOT NULL UNIQUE,
+    publisher_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_book_publisher FOREIGN KEY (publisher_id) REFERENCES publisher
+);
+
+CREATE INDEX idx_book_publisher ON book (publisher_id);
+
+CREATE TABLE book_availability (
+    book_id BIGINT NOT NULL,
+    total INTEGER NOT NULL,
+    available INTEGER NOT NULL,
+    borrowed INTEGER NOT NULL,
+    reserved INTEGER NOT NULL,
+    lost INTEGER NOT NULL,
+    PRIMARY KEY (book_id),
+    CONSTRAINT fk_book_availability_book FOREIGN KEY (book_id) REFERENCES book
+);
+
+CREATE INDEX idx_book_availability_available ON book_availability (available);
+
+-- status holds CopyStatus.getCode()
+CREATE TABLE copy (
+    id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    copy_number INTEGER NOT NULL,
+    status CHAR(1) NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_copy_book FOREIGN KEY (book_id) REFERENCES book
+);
+
+CREATE INDEX idx_copy_book_number ON copy (book_id, copy_number);
+CREATE INDEX idx_copy_status_book ON copy (status, book_id);
+
+CREATE TABLE users (
+    id BIGINT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(150) NOT NULL UNIQUE,
+    phone_number VARCHAR(20) NOT NULL,
+    address VARCHAR(250),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_users_phone_number ON users (phone_number);
+
+CREATE TABLE librarian (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL UNIQUE,
+    employment_date DATE NOT NULL,
+    position VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_librarian_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE TABLE borrowing (
+    id BIGINT NOT NULL,
+    user_id BIGINT,
+    copy_id BIGINT,
+    borrow_date DATE NOT NULL,
+    due_date DATE,
+    return_date DATE,
+    overdue BOOLEAN NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_borrowing_user FOREIGN KEY (user_id) REFERENCES users,
+    CONSTRAINT fk_borrowing_copy FOREIGN KEY (copy_id) REFERENCES copy
+);
+
+CREATE INDEX idx_borrowing_user ON borrowing (user_id);
+CREATE INDEX idx_borrowing_copy ON borrowing (copy_id);
+CREATE INDEX idx_borrowing_open_due ON borrowing (return_date, due_date);
+
+CREATE TABLE book_hold (
+    id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    status ENUM ('Cancelled', 'Collected', 'Expired', 'Ready', 'Waiting') NOT NULL,
+    placed_at TIMESTAMP(6) NOT NULL,
+    copy_id BIGINT,
+    expires_at TIMESTAMP(6),
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_book_hold_book FOREIGN KEY (book_id) REFERENCES book,
+    CONSTRAINT fk_book_hold_user FOREIGN KEY (user_id) REFERENCES users,
+    CONSTRAINT fk_book_hold_copy FOREIGN KEY (copy_id) REFERENCES copy
+);
+
+CREATE INDEX idx_book_hold_book_status ON book_hold (book_id, status);
+CREATE INDEX idx_book_hold_user ON book_hold (user_id);
+CREATE INDEX idx_book_hold_copy ON book_hold (copy_id);
+CREATE INDEX idx_book_hold_status_expires ON book_hold (status, expires_at);
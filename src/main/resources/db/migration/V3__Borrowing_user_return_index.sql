@@ -0,0 +1,6 @@
+-- The loans of a user are read as two lists: the open ones, with return_date IS NULL, and the
+-- returned ones, newest return first and paged by (return_date, id). One index in that order serves
+-- both and replaces the index on user_id alone, which is its prefix.
+
+CREATE INDEX idx_borrowing_user_return ON borrowing (user_id, return_date DESC, id DESC);
+DROP INDEX idx_borrowing_user;
@@ -0,0 +1,9 @@
+-- The circulation engine logs desk checkouts and returns before they are stored. Each shard of its
+-- log stores here the sequence number of its last record applied to borrowing and copy, in the same
+-- transaction, so a restart replays the records after it and no others.
+
+CREATE TABLE circulation_position (
+    shard INTEGER NOT NULL,
+    last_sequence BIGINT NOT NULL,
+    PRIMARY KEY (shard)
+);
@@ -0,0 +1,9 @@
+-- The loan archive writes a segment file before it deletes the loans from borrowing. The delete
+-- transaction inserts the number of the segment here, so after a crash a pending segment is published
+-- exactly when its row exists, and dropped otherwise.
+
+CREATE TABLE archive_segment (
+    segment BIGINT NOT NULL,
+    loans INTEGER NOT NULL,
+    PRIMARY KEY (segment)
+);
@@ -0,0 +1,140 @@
+package com.library.library_management.controllers;
+
+import com.library.library_management.services.CatalogVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CatalogConditionalGetInterceptorTest {
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+
+    private final AtomicBoolean replica = new AtomicBoolean();
+
+    private final PageController controller = new PageController(catalogVersion);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addInterceptors(new CatalogConditionalGetInterceptor(catalogVersion, replica::get))
+                .build();
+    }
+
+    @Test
+    void tagsARenderedPage() throws Exception {
+        mockMvc.perform(get("/page"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogVersion.etag()))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    void answersACurrentTagWithoutRunningTheController() throws Exception {
+        String etag = catalogVersion.etag();
+
+        mockMvc.perform(get("/page").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        assertThat(controller.calls.get()).isZero();
+    }
+
+    @Test
+    void rendersAgainAfterAChange() throws Exception {
+        String etag = catalogVersion.etag();
+        catalogVersion.changed();
+
+        mockMvc.perform(get("/page").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogVersion.etag()));
+
+        assertThat(catalogVersion.etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void tagsAPageWithTheVersionReadBeforeTheController() throws Exception {
+        String before = catalogVersion.etag();
+        controller.changeWhileReading = true;
+
+        mockMvc.perform(get("/page"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, before));
+
+        controller.changeWhileReading = false;
+        mockMvc.perform(get("/page").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void leavesAPageReadFromTheReplicaUntagged() throws Exception {
+        replica.set(true);
+
+        mockMvc.perform(get("/page"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void stillAnswersACurrentTagWhenReadingFromTheReplica() throws Exception {
+        replica.set(true);
+
+        mockMvc.perform(get("/page").header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag()))
+                .andExpect(status().isNotModified());
+
+        assertThat(controller.calls.get()).isZero();
+    }
+
+    @Test
+    void ignoresOtherMethods() throws Exception {
+        mockMvc.perform(post("/page").header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @RestController
+    static class PageController {
+
+        private final CatalogVersion catalogVersion;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private volatile boolean changeWhileReading;
+
+        PageController(CatalogVersion catalogVersion) {
+            this.catalogVersion = catalogVersion;
+        }
+
+        @GetMapping("/page")
+        String page() {
+            calls.incrementAndGet();
+            if (changeWhileReading) {
+                // A write that commits after the interceptor read the version
+                catalogVersion.changed();
+            }
+            return "page";
+        }
+
+        @PostMapping("/page")
+        String save() {
+            return "saved";
+        }
+    }
+}
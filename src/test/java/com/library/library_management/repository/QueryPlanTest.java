@@ -0,0 +1,472 @@
+package com.library.library_management.repository;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.Hold;
+import com.library.library_management.entities.HoldStatus;
+import com.library.library_management.entities.Librarian;
+import com.library.library_management.entities.Publisher;
+import com.library.library_management.entities.User;
+import com.library.library_management.services.BookAvailabilityService;
+import com.library.library_management.services.BorrowingService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression suite for the repository package.
+ *
+ * <p>Every method declared on a repository interface in this package is called against a seeded
+ * in-memory H2 database: derived queries, {@code @Query} methods and modifying queries alike, each in
+ * a transaction that is rolled back. Keyset-paged methods are called for the first page and for a
+ * continuation. A proxy around the data source runs {@code EXPLAIN} with the same parameters before
+ * each statement the call executes, and the method's test fails when a plan reads a table with
+ * {@code tableScan}, i.e. without an index condition.</p>
+ *
+ * <p>Methods whose purpose is to read a whole table are listed in {@link #FULL_SCANS_ALLOWED} with
+ * the table they may scan. A new repository method must either be served by an index or be added
+ * there with a reason; a parameter type the suite cannot supply fails its test, so new methods
+ * cannot be skipped silently.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"spring.datasource.url=jdbc:h2:mem:plans;DB_CLOSE_DELAY=-1", "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final int BOOKS = 2000;
+
+    private static final int BOOKS_PER_PUBLISHER = 100;
+
+    private static final int BOOKS_PER_USER = 10;
+
+    private static final int COPIES_PER_BOOK = 3;
+
+    private static final int BORROWINGS = 500;
+
+    private static final int HOLDS = 200;
+
+    private static final int LIBRARIANS = 20;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final CopyStatus[] STATUSES = {
+            CopyStatus.Available, CopyStatus.Available, CopyStatus.Borrowed,
+            CopyStatus.Available, CopyStatus.Reserved, CopyStatus.Available, CopyStatus.Lost
+    };
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* (\\w+)\\.(\\w+)\\.tableScan \\*/");
+
+    /**
+     * Methods allowed to scan a table, by {@code Repository.method}, with the tables they may scan.
+     */
+    private static final Map<String, Set<String>> FULL_SCANS_ALLOWED = Map.of(
+            // Whole catalog for the cached catalog views and the search index
+            "BookRepository.findAll", Set.of("BOOK", "PUBLISHER"),
+            "PublisherRepository.findAll", Set.of("PUBLISHER"),
+            // ISBN set of the whole catalog for the bulk import
+            "BookRepository.streamIsbns", Set.of("BOOK"),
+            // Full exports
+            "BorrowingRepository.streamExportRows", Set.of("BORROWING"),
+            "CopyRepository.streamExportRows", Set.of("COPY"),
+            // Every copy's circulation state, read once when the circulation engine starts
+            "CopyRepository.findCirculation", Set.of("COPY"),
+            // The librarian list is not paged and the staff table is small
+            "LibrarianRepository.findRows", Set.of("LIBRARIAN"),
+            // The book and copy list pages fetch the association with the page, so a page is one
+            // statement; H2 drives such a join from the smaller joined table
+            "BookRepository.findBy", Set.of("PUBLISHER"),
+            "CopyRepository.findBy", Set.of("BOOK"));
+
+    /**
+     * Plans of the statements run by the repository method under test on this thread; scheduled
+     * jobs running on other threads are not recorded.
+     */
+    private static final ThreadLocal<List<Plan>> RECORDED = new ThreadLocal<>();
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Samples samples;
+
+    @BeforeAll
+    void seed() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        List<Publisher> publishers = new ArrayList<>();
+        for (int i = 0; i < BOOKS / BOOKS_PER_PUBLISHER; i++) {
+            publishers.add(new Publisher("Publisher " + i, "Street " + i, "+4800000" + i));
+        }
+        saveInBatches(transaction, publishers, context.getBean(PublisherRepository.class)::saveAll);
+
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Book("Title " + i, "Author " + (i % 500), publishers.get(i % publishers.size()),
+                    1900 + i % 125, String.format("978%010d", i)));
+        }
+        saveInBatches(transaction, books, context.getBean(BookRepository.class)::saveAll);
+
+        List<Copy> copies = new ArrayList<>(BOOKS * COPIES_PER_BOOK);
+        List<Copy> availableCopies = new ArrayList<>();
+        int n = 0;
+        for (Book book : books) {
+            for (int number = 1; number <= COPIES_PER_BOOK; number++) {
+                CopyStatus status = STATUSES[n++ % STATUSES.length];
+                Copy copy = new Copy(book, number, status);
+                copies.add(copy);
+                if (status == CopyStatus.Available) {
+                    availableCopies.add(copy);
+                }
+            }
+        }
+        saveInBatches(transaction, copies, context.getBean(CopyRepository.class)::saveAll);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < BOOKS / BOOKS_PER_USER; i++) {
+            users.add(new User("User " + i, "user" + i + "@example.com", "+4811111" + i, "Street " + i));
+        }
+        saveInBatches(transaction, users, context.getBean(UserRepository.class)::saveAll);
+        context.getBean(BookAvailabilityService.class).createMissing();
+
+        BorrowingService borrowingService = context.getBean(BorrowingService.class);
+        for (int i = 0; i < BORROWINGS; i++) {
+            borrowingService.insert(new Borrowing(users.get(i % users.size()), availableCopies.get(i),
+                    LocalDate.now(), null));
+        }
+        HoldRepository holdRepository = context.getBean(HoldRepository.class);
+        for (int i = 0; i < HOLDS; i++) {
+            holdRepository.save(new Hold(books.get(i % books.size()), users.get(i % users.size()),
+                    LocalDateTime.now()));
+        }
+        LibrarianRepository librarianRepository = context.getBean(LibrarianRepository.class);
+        for (int i = 0; i < LIBRARIANS; i++) {
+            librarianRepository.save(new Librarian(users.get(i), LocalDate.now(), "Librarian"));
+        }
+        // Row counts and selectivity for the planner
+        context.getBean(JdbcTemplate.class).execute("ANALYZE");
+        samples = new Samples(books.get(BOOKS / 2), users.get(1), availableCopies.get(BORROWINGS));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryMethodsAreServedByIndexes() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<DynamicTest> tests = new ArrayList<>();
+        for (Object repository : context.getBeansOfType(Repository.class).values()) {
+            // Spring Data repositories are JDK proxies of the declared interface
+            for (Class<?> type : repository.getClass().getInterfaces()) {
+                if (!type.getPackageName().equals(QueryPlanTest.class.getPackageName())) {
+                    continue;
+                }
+                for (Method method : type.getDeclaredMethods()) {
+                    if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                        continue;
+                    }
+                    String name = type.getSimpleName() + "." + method.getName();
+                    tests.add(DynamicTest.dynamicTest(name, () -> explain(transaction, repository, name, method)));
+                }
+            }
+        }
+        assertThat(tests).isNotEmpty();
+        return tests.stream().sorted(Comparator.comparing(DynamicTest::getDisplayName));
+    }
+
+    private void explain(TransactionTemplate transaction, Object repository, String name, Method method) {
+        List<Plan> plans = new ArrayList<>();
+        RECORDED.set(plans);
+        try {
+            for (Object[] arguments : samples.argumentsFor(method)) {
+                transaction.executeWithoutResult(status -> {
+                    try {
+                        Object result = method.invoke(repository, arguments);
+                        if (result instanceof Stream<?> stream) {
+                            try (stream) {
+                                stream.forEach(row -> { });
+                            }
+                        }
+                    } catch (IllegalAccessException | InvocationTargetException e) {
+                        throw new IllegalStateException(name + " failed", e instanceof InvocationTargetException
+                                ? e.getCause() : e);
+                    }
+                    status.setRollbackOnly();
+                });
+            }
+        } finally {
+            RECORDED.remove();
+        }
+
+        assertThat(plans).as("statements run by %s", name).isNotEmpty();
+        Set<String> allowed = FULL_SCANS_ALLOWED.getOrDefault(name, Set.of());
+        for (Plan plan : plans) {
+            assertThat(plan.scannedTables())
+                    .as("tables scanned by %s:%n%s%n%s", name, plan.sql(), plan.plan())
+                    .allMatch(allowed::contains);
+        }
+    }
+
+    private static <T> void saveInBatches(TransactionTemplate transaction, List<T> entities,
+                                          Consumer<List<T>> saveAll) {
+        for (int from = 0; from < entities.size(); from += BATCH_SIZE) {
+            List<T> batch = entities.subList(from, Math.min(entities.size(), from + BATCH_SIZE));
+            transaction.executeWithoutResult(status -> saveAll.accept(batch));
+        }
+    }
+
+    private record Plan(String sql, String plan) {
+
+        List<String> scannedTables() {
+            List<String> tables = new ArrayList<>();
+            if (plan.contains("/* direct lookup */")) {
+                // MIN/MAX of an indexed column is read from the index, though the plan names a scan
+                return tables;
+            }
+            Matcher matcher = TABLE_SCAN.matcher(plan);
+            while (matcher.find()) {
+                tables.add(matcher.group(2));
+            }
+            return tables;
+        }
+    }
+
+    /**
+     * Sample arguments by parameter type and name; every call of a method is one array.
+     */
+    private record Samples(Book book, User user, Copy copy) {
+
+        List<Object[]> argumentsFor(Method method) {
+            Parameter[] parameters = method.getParameters();
+            boolean paged = Arrays.stream(parameters).anyMatch(parameter -> parameter.getType() == ScrollPosition.class);
+            List<Object[]> calls = new ArrayList<>();
+            for (ScrollPosition position : paged
+                    ? List.of(ScrollPosition.keyset(), ScrollPosition.forward(Map.of("id", book.getId())))
+                    : List.of(ScrollPosition.keyset())) {
+                Object[] arguments = new Object[parameters.length];
+                for (int i = 0; i < parameters.length; i++) {
+                    arguments[i] = argumentFor(parameters[i], position);
+                }
+                calls.add(arguments);
+            }
+            return calls;
+        }
+
+        private Object argumentFor(Parameter parameter, ScrollPosition position) {
+            Class<?> type = parameter.getType();
+            String name = parameter.getName();
+            if (type == ScrollPosition.class) {
+                return position;
+            } else if (type == Sort.class) {
+                return Sort.by("id");
+            } else if (type == Limit.class) {
+                return Limit.of(50);
+            } else if (type == Book.class) {
+                return book;
+            } else if (type == CopyStatus.class) {
+                return CopyStatus.Available;
+            } else if (type == HoldStatus.class) {
+                return HoldStatus.Waiting;
+            } else if (type == LocalDate.class) {
+                return LocalDate.now();
+            } else if (type == LocalDateTime.class) {
+                return LocalDateTime.now();
+            } else if (Collection.class.isAssignableFrom(type) && name.equals("statuses")) {
+                Type element = ((ParameterizedType) parameter.getParameterizedType()).getActualTypeArguments()[0];
+                return element == HoldStatus.class
+                        ? EnumSet.of(HoldStatus.Waiting, HoldStatus.Ready)
+                        : EnumSet.of(CopyStatus.Borrowed, CopyStatus.Reserved);
+            } else if (Collection.class.isAssignableFrom(type) && name.equals("copyIds")) {
+                return List.of(copy.getId());
+            } else if (Collection.class.isAssignableFrom(type) && name.equals("ids")) {
+                return List.of(book.getId());
+            } else if (type == char.class || type == Character.class) {
+                // insertMissing(bookId, available, borrowed, ...) takes the code of each status
+                return CopyStatus.fromName(name.substring(0, 1).toUpperCase(Locale.ROOT) + name.substring(1)).getCode();
+            } else if (type == int.class || type == Integer.class) {
+                return 0;
+            } else if (type == Long.class || type == long.class) {
+                return switch (name) {
+                    case "bookId" -> book.getId();
+                    case "userId" -> user.getId();
+                    case "copyId" -> copy.getId();
+                    // Keyset position of a hand-written paged query
+                    case "id" -> book.getId();
+                    default -> throw new IllegalArgumentException("no sample value for Long parameter " + name);
+                };
+            } else if (type == String.class) {
+                return switch (name) {
+                    case "email" -> user.getEmail();
+                    case "phoneNumber" -> user.getPhoneNumber();
+                    case "isbn" -> book.getIsbn();
+                    default -> throw new IllegalArgumentException("no sample value for String parameter " + name);
+                };
+            }
+            throw new IllegalArgumentException("no sample value for parameter " + name + " of type " + type.getName());
+        }
+    }
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new ExplainingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Hands out connections whose prepared statements are explained before they run.
+     */
+    private static class ExplainingDataSource extends DelegatingDataSource {
+
+        ExplainingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                            return explaining(connection, statement, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private PreparedStatement explaining(Connection connection, PreparedStatement statement, String sql) {
+            Map<Integer, Object[]> parameters = new LinkedHashMap<>();
+            InvocationHandler handler = (proxy, method, args) -> {
+                String name = method.getName();
+                List<Plan> plans = RECORDED.get();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, new Object[]{name, args});
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                } else if (name.startsWith("execute") && plans != null) {
+                    explain(connection, sql, parameters, plans);
+                }
+                return invoke(statement, method, args);
+            };
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, handler);
+        }
+
+        private static void explain(Connection connection, String sql, Map<Integer, Object[]> parameters,
+                                    List<Plan> plans) throws Throwable {
+            String statement = sql.strip().toLowerCase(Locale.ROOT);
+            boolean explainable = statement.startsWith("select") || statement.startsWith("update")
+                    || statement.startsWith("delete") || statement.startsWith("with")
+                    || (statement.startsWith("insert") && !statement.contains(" values"));
+            if (!explainable) {
+                return;
+            }
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (Object[] parameter : parameters.values()) {
+                    Object[] args = (Object[]) parameter[1];
+                    Method setter = Arrays.stream(PreparedStatement.class.getMethods())
+                            .filter(method -> method.getName().equals(parameter[0]) && method.getParameterCount() == args.length)
+                            .filter(method -> isApplicable(method, args))
+                            .findFirst()
+                            .orElseThrow();
+                    invoke(explain, setter, args);
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    plans.add(new Plan(sql, plan.getString(1)));
+                }
+            }
+        }
+    }
+
+    private static boolean isApplicable(Method method, Object[] args) {
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (args[i] != null && !wrap(types[i]).isInstance(args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return switch (type.getName()) {
+            case "int" -> Integer.class;
+            case "long" -> Long.class;
+            case "boolean" -> Boolean.class;
+            case "double" -> Double.class;
+            case "float" -> Float.class;
+            case "short" -> Short.class;
+            case "byte" -> Byte.class;
+            default -> Character.class;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
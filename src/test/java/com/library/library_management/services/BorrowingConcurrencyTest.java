@@ -0,0 +1,168 @@
+package com.library.library_management.services;
+
+import com.library.library_management.entities.Book;
+import com.library.library_management.entities.Borrowing;
+import com.library.library_management.entities.Copy;
+import com.library.library_management.entities.CopyStatus;
+import com.library.library_management.entities.Publisher;
+import com.library.library_management.entities.User;
+import com.library.library_management.repository.BookRepository;
+import com.library.library_management.repository.CopyRepository;
+import com.library.library_management.repository.PublisherRepository;
+import com.library.library_management.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent checkouts through {@link BorrowingService#insert(Borrowing)}.
+ *
+ * <p>Threads racing for the same copy must produce exactly one loan, the others ending with
+ * {@link CopyAlreadyTakenException}; threads checking out distinct copies must all succeed. Either
+ * way no copy may end up with more than one open borrowing. The throughput on distinct copies is
+ * measured by {@code CheckoutConcurrencyCheck} in the benchmarks module.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"spring.datasource.url=jdbc:h2:mem:checkouts;DB_CLOSE_DELAY=-1", "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BorrowingConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int CONTENDED_ROUNDS = 20;
+
+    private static final int COPIES_PER_THREAD = 10;
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CopyRepository copyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookAvailabilityService availabilityService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final List<Copy> contendedCopies = new ArrayList<>();
+
+    private final List<Copy> distinctCopies = new ArrayList<>();
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        Publisher publisher = publisherRepository.save(new Publisher("Publisher", "Street 1", "+48000000"));
+        for (int i = 0; i < CONTENDED_ROUNDS + THREADS * COPIES_PER_THREAD; i++) {
+            Book book = bookRepository.save(new Book("Title " + i, "Author", publisher, 2000,
+                    String.format("978%010d", i)));
+            Copy copy = copyRepository.save(new Copy(book, 1, CopyStatus.Available));
+            (i < CONTENDED_ROUNDS ? contendedCopies : distinctCopies).add(copy);
+        }
+        for (int i = 0; i < THREADS; i++) {
+            users.add(userRepository.save(new User("User " + i, "user" + i + "@example.com", "+4811111" + i,
+                    "Street " + i)));
+        }
+        availabilityService.createMissing();
+    }
+
+    @Test
+    void onlyOneOfTheThreadsRacingForACopyGetsIt() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Copy copy : contendedCopies) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (User user : users) {
+                    attempts.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            borrowingService.insert(new Borrowing(user, copy, LocalDate.now(), null));
+                            return true;
+                        } catch (CopyAlreadyTakenException e) {
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+
+                int succeeded = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    succeeded += attempt.get() ? 1 : 0;
+                }
+                assertThat(succeeded).as("checkouts of copy %d", copy.getId()).isEqualTo(1);
+                assertThat(openLoans(copy)).as("open loans of copy %d", copy.getId()).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void threadsOnDistinctCopiesAllSucceed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Callable<Void>> workers = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                User user = users.get(thread);
+                List<Copy> own = distinctCopies.subList(thread * COPIES_PER_THREAD, (thread + 1) * COPIES_PER_THREAD);
+                workers.add(() -> {
+                    start.await();
+                    for (Copy copy : own) {
+                        borrowingService.insert(new Borrowing(user, copy, LocalDate.now(), null));
+                    }
+                    return null;
+                });
+            }
+            List<Future<Void>> results = workers.stream().map(executor::submit).toList();
+            start.countDown();
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    throw new AssertionError("A checkout of a distinct copy failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Copy copy : distinctCopies) {
+            assertThat(openLoans(copy)).as("open loans of copy %d", copy.getId()).isEqualTo(1);
+        }
+    }
+
+    private int openLoans(Copy copy) {
+        Integer open = jdbc.queryForObject("SELECT COUNT(*) FROM BORROWING WHERE copy_id = ? AND return_date IS NULL",
+                Integer.class, copy.getId());
+        return open == null ? 0 : open;
+    }
+}